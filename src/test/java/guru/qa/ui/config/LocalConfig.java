@@ -10,7 +10,8 @@ import org.aeonbits.owner.Config;
  * <p><b>ENV-маппинг:</b> ключ {@code appium.server.url} ⇔ переменная {@code APPIUM_SERVER_URL}, {@code app.dir} ⇔ {@code APP_DIR} и т.д.</p>
  *
  * <p><b>Маршрутизация APK:</b> {@code app} может быть путём к файлу или HTTP(S)-URL. Если пусто — берётся {@code app.url},
- * скачивается в {@code app.dir} c именем {@code app.filename}.</p>
+ * скачивается в {@code app.dir} c именем {@code app.filename}. Скачанные APK кешируются в {@code app.cache.dir}
+ * с проверкой SHA-256 и условной ревалидацией (ETag / If-Modified-Since).</p>
  */
 @Config.LoadPolicy(Config.LoadType.MERGE)
 @Config.Sources({
@@ -29,11 +30,11 @@ public interface LocalConfig extends Config {
     @Key("deviceName")
     String getDeviceName();
 
-    /** Android applicationId (package). */
+    /** Android applicationId (package); пусто — берётся из манифеста APK. */
     @Key("appPackage")
     String getAppPackage();
 
-    /** Android launcher activity. */
+    /** Android launcher activity; пусто — берётся из манифеста APK. */
     @Key("appActivity")
     String getAppActivity();
 
@@ -42,6 +43,11 @@ public interface LocalConfig extends Config {
     @DefaultValue("http://127.0.0.1:4723/wd/hub")
     String getAppiumServerUrl();
 
+    /** Поднимать Appium самим: отдельный процесс на каждое арендованное устройство (иначе — внешний {@code appium.server.url}). */
+    @Key("appium.managed")
+    @DefaultValue("false")
+    boolean isAppiumManaged();
+
     /** Унифицированный указатель на приложение: путь к APK/IPA или HTTP(S)-URL. */
     @Key("app")
     @DefaultValue("")
@@ -61,4 +67,69 @@ public interface LocalConfig extends Config {
     @Key("app.url")
     @DefaultValue("https://github.com/wikimedia/apps-android-wikipedia/releases/download/latest/app-alpha-universal-release.apk")
     String getAppUrl();
+
+    /** Каталог контентно-адресуемого кеша APK (blob-ы по SHA-256 + {@code index.json}); переживает {@code gradle clean}. */
+    @Key("app.cache.dir")
+    @DefaultValue("${user.home}/.cache/wikipedia-tests/apk")
+    String getAppCacheDir();
+
+    /** Лимит суммарного размера кеша APK в байтах (сверх — LRU-вытеснение старых версий). */
+    @Key("app.cache.maxBytes")
+    @DefaultValue("524288000")
+    long getAppCacheMaxBytes();
+
+    /** Не переустанавливать APK, если на устройстве уже стоит та же сборка (пакет + versionCode); только очистка данных. */
+    @Key("app.install.skipIfSame")
+    @DefaultValue("true")
+    boolean isInstallSkipIfSame();
+
+    /** Число параллельных HTTP-соединений (Range) при загрузке большого APK. */
+    @Key("app.download.connections")
+    @DefaultValue("4")
+    int getDownloadConnections();
+
+    /** С какого размера файла (байт) качать в несколько соединений; меньше — одним потоком. */
+    @Key("app.download.parallelMinBytes")
+    @DefaultValue("16777216")
+    long getDownloadParallelMinBytes();
+
+    /** Раздавать online-устройства из {@code adb devices} по потокам/форкам; {@code false} — одно устройство по {@code deviceName}. */
+    @Key("device.pool")
+    @DefaultValue("true")
+    boolean isDevicePoolEnabled();
+
+    /** Ограничить пул устройств списком udid через запятую (пусто — все online-устройства). */
+    @Key("device.udids")
+    @DefaultValue("")
+    String getDeviceUdids();
+
+    /** Каталог lock-файлов аренды устройств (общий для всех Gradle-форков прогона). */
+    @Key("device.lease.dir")
+    @DefaultValue("build/device-leases")
+    String getDeviceLeaseDir();
+
+    /** Максимальное ожидание свободного устройства, сек. */
+    @Key("device.lease.timeout")
+    @DefaultValue("600")
+    int getDeviceLeaseTimeoutSec();
+
+    /** Базовый {@code appium:systemPort} (к нему прибавляется номер слота аренды). */
+    @Key("device.systemPort.base")
+    @DefaultValue("8200")
+    int getSystemPortBase();
+
+    /** Базовый {@code appium:mjpegServerPort} (к нему прибавляется номер слота аренды). */
+    @Key("device.mjpegServerPort.base")
+    @DefaultValue("7810")
+    int getMjpegServerPortBase();
+
+    /** «Тёплая» сессия: драйвер живёт между тестами, изоляция — сбросом данных приложения (без переустановки APK). */
+    @Key("session.reuse")
+    @DefaultValue("false")
+    boolean isSessionReuse();
+
+    /** Область жизни тёплой сессии: {@code class} — до конца тест-класса, {@code fork} — до конца JVM-форка. */
+    @Key("session.reuse.scope")
+    @DefaultValue("class")
+    String getSessionReuseScope();
 }
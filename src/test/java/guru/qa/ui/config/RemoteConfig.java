@@ -72,4 +72,39 @@ public interface RemoteConfig extends Config {
     @Key("automation")
     @DefaultValue("uiautomator2")
     String getAutomation();
+
+    /** Лимит параллельных сессий BrowserStack на весь прогон (все форки); {@code 0} — взять из тарифа (plan API). */
+    @Key("bs.parallel.max")
+    @DefaultValue("0")
+    int getParallelMax();
+
+    /** Источник загрузки тарифа: {@code api} — BrowserStack plan API, {@code stub} — локальная заглушка без сети. */
+    @Key("bs.plan.source")
+    @DefaultValue("api")
+    String getPlanSource();
+
+    /** Лимит параллельных сессий, который отдаёт заглушка {@code bs.plan.source=stub}. */
+    @Key("bs.plan.stub.max")
+    @DefaultValue("1")
+    int getPlanStubMax();
+
+    /** Каталог lock-файлов слотов BrowserStack (общий для всех Gradle-форков прогона). */
+    @Key("bs.slot.dir")
+    @DefaultValue("build/bs-slots")
+    String getSlotDir();
+
+    /** Максимальное ожидание свободного слота, сек. */
+    @Key("bs.slot.timeout")
+    @DefaultValue("900")
+    int getSlotTimeoutSec();
+
+    /** Сколько раз повторять старт сессии при ошибках очереди BrowserStack (queue size / all parallels in use). */
+    @Key("bs.queue.retries")
+    @DefaultValue("5")
+    int getQueueRetries();
+
+    /** Файл кеша загрузок APK в BrowserStack ({@code sha256=bs://...}); общий для прогонов на этой машине. */
+    @Key("bs.app.cacheFile")
+    @DefaultValue("${user.home}/.cache/wikipedia-tests/bs-apps.properties")
+    String getAppCacheFile();
 }
@@ -3,6 +3,11 @@ package guru.qa.ui.drivers;
 import com.codeborne.selenide.WebDriverProvider;
 import guru.qa.ui.config.AuthConfig;
 import guru.qa.ui.config.RemoteConfig;
+import guru.qa.ui.drivers.remote.BrowserstackApps;
+import guru.qa.ui.drivers.remote.SlotScheduler;
+import guru.qa.ui.drivers.remote.SlottedRemoteWebDriver;
+import guru.qa.ui.drivers.session.SessionBuild;
+import guru.qa.ui.reporting.SessionTimings;
 import lombok.extern.slf4j.Slf4j;
 import org.aeonbits.owner.ConfigFactory;
 import org.jetbrains.annotations.NotNull;
@@ -12,19 +17,12 @@ import org.openqa.selenium.MutableCapabilities;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.remote.RemoteWebDriver;
 
-import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Duration;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Провайдер удалённого драйвера для BrowserStack (App Automate).
@@ -36,11 +34,13 @@ import java.util.regex.Pattern;
  *   <li>W3C-капабилити для Appium 3: верхний уровень {@code platformName} + префиксы {@code appium:*}
  *       и {@code bstack:options};</li>
  *   <li>Резолвер приложения: поддержка {@code bs://}, HTTP(S)-URL или локального APK с автозагрузкой
- *       в BrowserStack через API;</li>
+ *       в BrowserStack через API (одна загрузка на версию APK);</li>
  *   <li>Failover для Free-плана: автоматическая замена девайса/ОС, если выбранный недоступен
  *       в бесплатном тарифе;</li>
  *   <li>Pass-through системных свойств: {@code -Dappium:*} в корневые капабилити, {@code -Dbstack.*}
- *       внутрь {@code bstack:options}.</li>
+ *       внутрь {@code bstack:options};</li>
+ *   <li>Лимит параллельных сессий тарифа: старт сессии только после захвата слота {@link SlotScheduler},
+ *       повтор с паузой при ошибках очереди BrowserStack.</li>
  * </ul>
  *
  * <p><b>Включение/отключение Free-plan fallback:</b> системное свойство
@@ -62,8 +62,24 @@ public class BrowserstackDriver implements WebDriverProvider {
      */
     @Override
     public @NotNull WebDriver createDriver(@Nullable Capabilities incoming) {
-        AuthConfig auth     = ConfigFactory.create(AuthConfig.class, System.getProperties());
-        RemoteConfig mobile = ConfigFactory.create(RemoteConfig.class, System.getProperties());
+        SessionTimings.begin("browserstack");
+        try {
+            return SessionTimings.finish(create(incoming));
+        } catch (RuntimeException e) {
+            SessionTimings.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Тело {@link #createDriver(Capabilities)}; фазы старта пишутся в {@link SessionTimings}.
+     *
+     * @param incoming входные капабилити (могут быть {@code null})
+     * @return инициализированный {@link RemoteWebDriver}
+     */
+    private WebDriver create(@Nullable Capabilities incoming) {
+        AuthConfig auth     = SessionTimings.phase("config", () -> ConfigFactory.create(AuthConfig.class, System.getProperties()));
+        RemoteConfig mobile = SessionTimings.phase("config", () -> ConfigFactory.create(RemoteConfig.class, System.getProperties()));
 
         URL hubUrl = toUrl(auth.getRemoteUrl(), "remoteUrl");
 
@@ -75,7 +91,7 @@ public class BrowserstackDriver implements WebDriverProvider {
         if (appProperty.isEmpty()) {
             throw new IllegalStateException("remote.properties: 'app' пустой. Укажи bs://<app-id> или путь к APK внутри репо.");
         }
-        String appForBs = resolveAppForBrowserStack(appProperty, auth);
+        String appForBs = SessionTimings.phase("apk_upload", () -> resolveAppForBrowserStack(appProperty, auth, mobile));
         caps.setCapability("appium:app", appForBs);
 
         Map<String, Object> bstack = new HashMap<>();
@@ -107,8 +123,19 @@ public class BrowserstackDriver implements WebDriverProvider {
         boolean freeFallbackEnabled = !"false".equalsIgnoreCase(System.getProperty("bs.freePlan.fallback", "true"));
 
         try {
-            return new RemoteWebDriver(hubUrl, caps);
-        } catch (RuntimeException first) {
+            return startSession(hubUrl, caps);
+        } catch (RuntimeException rejected) {
+            RuntimeException first = rejected;
+            // закешированный bs:// проверяется лениво: сессия отклонила приложение — ищем/загружаем заново
+            if (BrowserstackApps.forgetIfStale(appForBs, rejected)) {
+                String fresh = SessionTimings.phase("apk_upload", () -> resolveAppForBrowserStack(appProperty, auth, mobile));
+                caps.setCapability("appium:app", fresh);
+                try {
+                    return startSession(hubUrl, caps);
+                } catch (RuntimeException e) {
+                    first = e;
+                }
+            }
             if (freeFallbackEnabled && isFreePlanDeviceError(first)) {
                 log.warn("BrowserStack Free plan limitation detected — retrying on {} / {}", FREE_FALLBACK_DEVICE, FREE_FALLBACK_OS);
                 @SuppressWarnings("unchecked")
@@ -121,7 +148,8 @@ public class BrowserstackDriver implements WebDriverProvider {
                     caps.setCapability("bstack:options", bs);
                 }
                 try {
-                    return new RemoteWebDriver(hubUrl, caps);
+                    // повтор на бесплатном устройстве — отдельной фазой, чтобы не смешивать с первой попыткой
+                    return SessionTimings.phase("plan_retry", () -> startSession(hubUrl, caps));
                 } catch (RuntimeException second) {
                     throw wrap(second, hubUrl, mobile, auth, caps);
                 }
@@ -130,6 +158,33 @@ public class BrowserstackDriver implements WebDriverProvider {
         }
     }
 
+    /**
+     * Стартует сессию в свободном слоте {@link SlotScheduler}; при ошибке очереди BrowserStack —
+     * пауза и повтор (до {@code bs.queue.retries} раз). Слот освобождается при {@code quit()} драйвера.
+     *
+     * @param hubUrl адрес хаба
+     * @param caps   капабилити сессии
+     * @return драйвер, удерживающий слот
+     */
+    private static WebDriver startSession(URL hubUrl, Capabilities caps) {
+        // идентичность сборки для профилей UI-индексов (FeedIndex): bs://-id уникален для версии APK
+        String build = Objects.toString(caps.getCapability("appium:app"), "");
+        int attempt = 0;
+        while (true) {
+            SlotScheduler.Slot slot = SessionTimings.phase("slot_wait", SlotScheduler::acquire);
+            try {
+                WebDriver driver = SessionTimings.phase("new_session", () -> new SlottedRemoteWebDriver(hubUrl, caps, slot));
+                SlotScheduler.onSessionStarted();
+                return SessionBuild.bind(driver, build);
+            } catch (RuntimeException e) {
+                slot.release();
+                if (!SlotScheduler.isQueueError(e) || ++attempt > SlotScheduler.maxQueueRetries()) throw e;
+                int failed = attempt;
+                SessionTimings.phase("queue_backoff", () -> SlotScheduler.onQueueError(failed));
+            }
+        }
+    }
+
     /* ===================== app resolver / uploader ===================== */
 
     /**
@@ -137,15 +192,16 @@ public class BrowserstackDriver implements WebDriverProvider {
      * <ul>
      *   <li>{@code bs://...} — возвращается как есть;</li>
      *   <li>HTTP(S) — отдаётся как URL (BrowserStack скачает самостоятельно);</li>
-     *   <li>Локальный путь — загружается через API, возвращается {@code bs://<id>}.</li>
+     *   <li>Локальный путь — {@link BrowserstackApps}: один upload на версию APK (по SHA-256), возвращается {@code bs://<id>}.</li>
      * </ul>
      *
      * @param appProp исходное значение свойства {@code app}
      * @param auth    учётные данные для BrowserStack API
+     * @param mobile  удалённая конфигурация (путь к кешу загрузок)
      * @return подготовленный идентификатор/URL приложения
      * @throws IllegalStateException если файл не найден или загрузка неуспешна
      */
-    private static String resolveAppForBrowserStack(String appProp, AuthConfig auth) {
+    private static String resolveAppForBrowserStack(String appProp, AuthConfig auth, RemoteConfig mobile) {
         if (appProp.startsWith("bs://")) return appProp;
         if (appProp.startsWith("http://") || appProp.startsWith("https://")) return appProp;
 
@@ -157,70 +213,7 @@ public class BrowserstackDriver implements WebDriverProvider {
             throw new IllegalStateException("APK not found: " + appProp + " (cwd=" + System.getProperty("user.dir") + ")");
         }
 
-        String uploaded = uploadApkToBrowserStack(p, auth);
-        if (uploaded == null || !uploaded.startsWith("bs://")) {
-            throw new IllegalStateException("BrowserStack upload failed or returned unexpected app_url: " + uploaded);
-        }
-        return uploaded;
-    }
-
-    /**
-     * Загружает APK в BrowserStack App Automate и возвращает {@code bs://<app-id>}.
-     *
-     * @param apk  путь к APK
-     * @param auth учётные данные для API
-     * @return {@code bs://<app-id>} при успехе
-     * @throws IllegalStateException при сетевых/IO ошибках или неожидаемом ответе API
-     */
-    private static String uploadApkToBrowserStack(Path apk, AuthConfig auth) {
-        log.info("Uploading APK to BrowserStack: {}", apk);
-        try {
-            String boundary   = "----BSFormBoundary" + UUID.randomUUID();
-            byte[] fileBytes  = Files.readAllBytes(apk);
-            String filename   = apk.getFileName().toString();
-
-            String partHeader = "--" + boundary + "\r\n" +
-                    "Content-Disposition: form-data; name=\"file\"; filename=\"" + filename + "\"\r\n" +
-                    "Content-Type: application/octet-stream\r\n\r\n";
-            String partFooter = "\r\n--" + boundary + "--\r\n";
-
-            byte[] headerBytes = partHeader.getBytes();
-            byte[] footerBytes = partFooter.getBytes();
-            byte[] body = new byte[headerBytes.length + fileBytes.length + footerBytes.length];
-            System.arraycopy(headerBytes, 0, body, 0, headerBytes.length);
-            System.arraycopy(fileBytes, 0, body, headerBytes.length, fileBytes.length);
-            System.arraycopy(footerBytes, 0, body, headerBytes.length + fileBytes.length, footerBytes.length);
-
-            String basic = Base64.getEncoder().encodeToString((auth.getUserName() + ":" + auth.getKey()).getBytes());
-
-            HttpRequest req = HttpRequest.newBuilder()
-                    .uri(URI.create("https://api-cloud.browserstack.com/app-automate/upload"))
-                    .timeout(Duration.ofMinutes(5))
-                    .header("Authorization", "Basic " + basic)
-                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
-                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
-                    .build();
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
-
-            if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
-                String json = resp.body();
-                Matcher m = Pattern.compile("\"app_url\"\\s*:\\s*\"(bs://[^\"]+)\"").matcher(json);
-                if (m.find()) {
-                    String url = m.group(1);
-                    log.info("Uploaded to BrowserStack: {}", url);
-                    return url;
-                }
-                log.error("Upload ok but 'app_url' not found. Response: {}", json);
-                return null;
-            } else {
-                log.error("Upload failed. HTTP {} Body: {}", resp.statusCode(), resp.body());
-                return null;
-            }
-        } catch (IOException | InterruptedException e) {
-            throw new IllegalStateException("Failed to upload APK to BrowserStack: " + e, e);
-        }
+        return BrowserstackApps.resolve(p, auth, Path.of(mobile.getAppCacheFile()));
     }
 
     /* ============================ utils ============================ */
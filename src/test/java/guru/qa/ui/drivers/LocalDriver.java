@@ -2,6 +2,15 @@ package guru.qa.ui.drivers;
 
 import com.codeborne.selenide.WebDriverProvider;
 import guru.qa.ui.config.LocalConfig;
+import guru.qa.ui.drivers.apk.ApkCache;
+import guru.qa.ui.drivers.apk.ApkManifest;
+import guru.qa.ui.drivers.apk.ResumableDownloader;
+import guru.qa.ui.drivers.appium.AppiumServerPool;
+import guru.qa.ui.drivers.device.Adb;
+import guru.qa.ui.drivers.device.DeviceLease;
+import guru.qa.ui.drivers.device.DeviceLeaseBroker;
+import guru.qa.ui.drivers.session.SessionBuild;
+import guru.qa.ui.reporting.SessionTimings;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.android.options.UiAutomator2Options;
 import lombok.extern.slf4j.Slf4j;
@@ -11,17 +20,11 @@ import org.jetbrains.annotations.Nullable;
 import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.WebDriver;
 
-import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.time.Duration;
+import java.util.OptionalLong;
 
 import static io.appium.java_client.remote.AutomationName.ANDROID_UIAUTOMATOR2;
 import static io.appium.java_client.remote.MobilePlatform.ANDROID;
@@ -32,76 +35,19 @@ import static io.appium.java_client.remote.MobilePlatform.ANDROID;
  * <p><b>Особенности:</b>
  * <ul>
  *   <li>Конфигурация через {@link LocalConfig} (MERGE: system props → env → {@code ${env}.properties} → {@code local.properties});</li>
- *   <li>Проверка доступности Appium по {@code /status} с дружелюбными подсказками к {@code base-path};</li>
- *   <li>Унифицированное разрешение приложения: путь/URL/автозагрузка с атомарной записью;</li>
+ *   <li>Appium-сервер из {@link AppiumServerPool}: внешний с закешированным {@code /status}
+ *       или управляемый процесс на устройство ({@code -Dappium.managed=true});</li>
+ *   <li>Унифицированное разрешение приложения: путь/URL/автозагрузка через {@link ApkCache}
+ *       (SHA-256, ревалидация одним HEAD, LRU по размеру);</li>
  *   <li>Явные опции {@link UiAutomator2Options} и развёрнутая диагностика ошибок старта.</li>
  * </ul>
  *
- * <p><b>Минимальные требования:</b> запущенный Appium Server и доступный устройства/эмулятор.</p>
+ * <p><b>Минимальные требования:</b> запущенный Appium Server (или {@code -Dappium.managed=true} и Appium в {@code PATH})
+ * и доступный устройства/эмулятор.</p>
  */
 @Slf4j
 public final class LocalDriver implements WebDriverProvider {
 
-    /**
-     * Быстро проверяет, что Appium отвечает по {@code /status}, учитывая возможный {@code /wd/hub} base-path.
-     *
-     * @param serverUrl адрес Appium
-     * @throws IllegalStateException если сервер недоступен или отвечает некорректно
-     */
-    @SuppressWarnings("resource")
-    private static void ensureAppiumAlive(URL serverUrl) {
-        try {
-            var client = HttpClient.newBuilder()
-                    .connectTimeout(Duration.ofSeconds(3))
-                    .build();
-            String base = serverUrl.toString().replaceAll("/+$", "");
-            var candidates = new String[]{base + "/status", base.replace("/wd/hub", "") + "/status"};
-
-            boolean ok = false;
-            for (String s : candidates) {
-                try {
-                    var req = HttpRequest.newBuilder(URI.create(s))
-                            .timeout(Duration.ofSeconds(3))
-                            .GET()
-                            .build();
-                    var resp = client.send(req, HttpResponse.BodyHandlers.ofString());
-                    if (resp.statusCode() / 100 == 2 || resp.statusCode() == 404) {
-                        ok = true;
-                        break;
-                    }
-                } catch (Exception ignore) { }
-            }
-            if (!ok) throw new IllegalStateException("No response from Appium");
-        } catch (Exception e) {
-            throw new IllegalStateException(
-                    "Appium is not reachable at " + serverUrl + "\n" +
-                            "Start it locally:\n" +
-                            "  • если в URL есть '/wd/hub':  appium --base-path /wd/hub\n" +
-                            "  • иначе (base-path '/'):       appium\n" +
-                            "Либо переопредели URL: -Dappium.server.url=http://127.0.0.1:4723/\n", e);
-        }
-    }
-
-    /* ===================== App path resolution (Owner only) ===================== */
-
-    /**
-     * Преобразует строку в {@link URL} с понятной диагностикой.
-     *
-     * @param raw         исходная строка
-     * @param keyForError имя ключа для сообщения об ошибке
-     * @return валидный URL
-     * @throws IllegalArgumentException при неверном формате URL
-     */
-    @SuppressWarnings("SameParameterValue")
-    private static URL toUrl(String raw, String keyForError) {
-        try {
-            return URI.create(raw).toURL();
-        } catch (MalformedURLException e) {
-            log.error("Invalid {}='{}'. Cause: {}", keyForError, raw, e, e);
-            throw new IllegalArgumentException("Bad " + keyForError + ": " + raw, e);
-        }
-    }
-
     /* =============================== Helpers =============================== */
 
     /**
@@ -148,37 +94,52 @@ public final class LocalDriver implements WebDriverProvider {
     }
 
     /**
-     * Атомарная загрузка файла: скачивает во временный {@code *.part} и переименовывает.
+     * Возвращает первое непустое значение.
      *
-     * @param url    источник
-     * @param target путь сохранения
-     * @throws Exception при сетевых/IO-ошибках или неуспешном ответе
+     * @param preferred значение из конфигурации
+     * @param derived   значение, выведенное из APK
+     * @return {@code preferred}, если задано, иначе {@code derived}
      */
-    @SuppressWarnings("resource")
-    private static void download(String url, Path target) throws Exception {
-        var client = HttpClient.newBuilder()
-                .followRedirects(HttpClient.Redirect.NORMAL)
-                .connectTimeout(Duration.ofSeconds(20))
-                .build();
-
-        var request = HttpRequest.newBuilder(URI.create(url))
-                .timeout(Duration.ofMinutes(2))
-                .header("User-Agent", "wikipedia-mobile-tests/1.0")
-                .GET()
-                .build();
+    private static String firstNonBlank(String preferred, String derived) {
+        String p = trimToNull(preferred);
+        return p != null ? p : derived;
+    }
 
-        var resp = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
-        if (resp.statusCode() / 100 != 2) {
-            String body = new String(resp.body(), StandardCharsets.UTF_8);
-            if (body.length() > 500) body = body.substring(0, 500) + "...";
-            log.error("HTTP {} while downloading APK from {}\nResponse snippet:\n{}",
-                    resp.statusCode(), url, body);
-            throw new IllegalStateException("HTTP " + resp.statusCode() + " while downloading APK");
+    /**
+     * Читает манифест APK; ошибки разбора не фатальны (тогда работают значения из конфигурации).
+     *
+     * @param appPath путь к APK
+     * @return манифест или {@code null}
+     */
+    private static ApkManifest readManifest(String appPath) {
+        try {
+            return ApkManifest.read(Path.of(appPath));
+        } catch (RuntimeException e) {
+            log.warn("Cannot parse AndroidManifest.xml of {}: {}", appPath, e.toString());
+            return null;
         }
+    }
 
-        Path tmp = target.resolveSibling(target.getFileName() + ".part");
-        Files.write(tmp, resp.body());
-        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    /**
+     * Проверяет по {@code dumpsys package}, что на устройстве уже стоит ровно эта сборка (пакет + versionCode).
+     *
+     * @param manifest манифест APK ({@code null} — сравнить не с чем)
+     * @param lease    аренда устройства ({@code udid == null} — единственное подключённое устройство)
+     * @return {@code true}, если установку можно пропустить
+     */
+    private static boolean isSameBuildInstalled(ApkManifest manifest, DeviceLease lease) {
+        if (manifest == null || manifest.versionCode() < 0) return false;
+        try {
+            OptionalLong installed = Adb.installedVersionCode(lease.udid(), manifest.packageName());
+            boolean same = installed.isPresent() && installed.getAsLong() == manifest.versionCode();
+            log.info("Installed build of '{}': {} (APK: {}) → {}", manifest.packageName(),
+                    installed.isPresent() ? installed.getAsLong() : "none", manifest.versionCode(),
+                    same ? "skip install, clear data only" : "install");
+            return same;
+        } catch (IllegalStateException e) {
+            log.warn("Cannot query installed build via adb: {}", e.getMessage());
+            return false;
+        }
     }
 
     /**
@@ -188,9 +149,12 @@ public final class LocalDriver implements WebDriverProvider {
      * <ol>
      *   <li>Загрузка {@link LocalConfig};</li>
      *   <li>Разрешение пути к APK (локально/скачивание/кеш);</li>
-     *   <li>Проверка доступности Appium по {@code /status};</li>
+     *   <li>Пакет/активность — из конфигурации или из манифеста APK; установка пропускается, если на устройстве
+     *       уже стоит та же сборка (versionCode из {@code dumpsys package});</li>
+     *   <li>Аренда устройства и Appium-сервер для него ({@link AppiumServerPool}: кеш {@code /status} или свой процесс);</li>
      *   <li>Сборка {@link UiAutomator2Options} и запуск сессии.</li>
      * </ol>
+     * Длительность каждого шага пишется в {@link SessionTimings}.
      *
      * @param capabilities входные капабилити (не используются напрямую)
      * @return активный {@link WebDriver}
@@ -198,44 +162,84 @@ public final class LocalDriver implements WebDriverProvider {
      */
     @Override
     public @NotNull WebDriver createDriver(@Nullable Capabilities capabilities) {
-        LocalConfig cfg = ConfigFactory.create(LocalConfig.class, System.getProperties());
+        SessionTimings.begin("local");
+        try {
+            return SessionTimings.finish(create());
+        } catch (RuntimeException e) {
+            SessionTimings.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Тело {@link #createDriver(Capabilities)}: шаги старта, каждый — отдельной фазой {@link SessionTimings}.
+     *
+     * @return активный {@link AndroidDriver}
+     */
+    private AndroidDriver create() {
+        LocalConfig cfg = SessionTimings.phase("config", () -> ConfigFactory.create(LocalConfig.class, System.getProperties()));
 
-        String appPath = resolveAppPath(cfg);
-        URL serverUrl = toUrl(cfg.getAppiumServerUrl(), "appium.server.url");
+        String appPath = SessionTimings.phase("apk", () -> resolveAppPath(cfg));
 
-        ensureAppiumAlive(serverUrl);
+        DeviceLease lease = SessionTimings.phase("device_lease", () -> DeviceLeaseBroker.acquire(cfg));
+        URL serverUrl = SessionTimings.phase("appium_server", () -> AppiumServerPool.serverFor(cfg, lease));
+
+        ApkManifest manifest = SessionTimings.phase("apk_manifest", () -> readManifest(appPath));
+        String appPackage = firstNonBlank(cfg.getAppPackage(), manifest == null ? null : manifest.packageName());
+        String appActivity = firstNonBlank(cfg.getAppActivity(), manifest == null ? null : manifest.launcherActivity());
+        // идентичность сборки для профилей UI-индексов (FeedIndex)
+        String build = manifest != null && manifest.versionCode() >= 0 ? appPackage + ":" + manifest.versionCode() : null;
+        boolean sameBuildInstalled = cfg.isInstallSkipIfSame()
+                && SessionTimings.phase("install_check", () -> isSameBuildInstalled(manifest, lease));
 
         log.info("Starting local Android driver");
         log.info("Appium server: {}", serverUrl);
         log.info("Device: name='{}', platform='{} {}'",
                 cfg.getDeviceName(), ANDROID, cfg.getPlatformVersion());
-        log.info("App: path='{}', package='{}', activity='{}'",
-                appPath, cfg.getAppPackage(), cfg.getAppActivity());
+        if (lease.pooled()) {
+            log.info("Device lease: udid='{}', slot={}, systemPort={}, mjpegServerPort={}",
+                    lease.udid(), lease.slot(), lease.systemPort(), lease.mjpegServerPort());
+        }
+        log.info("App: path='{}', package='{}', activity='{}', versionCode={}",
+                appPath, appPackage, appActivity, manifest == null ? "?" : manifest.versionCode());
+        log.info("Session: install={}, fullReset={}, reuse={}", !sameBuildInstalled,
+                !sameBuildInstalled && !cfg.isSessionReuse(), cfg.isSessionReuse());
 
         UiAutomator2Options options = new UiAutomator2Options()
                 .setAutomationName(ANDROID_UIAUTOMATOR2)
                 .setPlatformName(ANDROID)
                 .setPlatformVersion(cfg.getPlatformVersion())
                 .setDeviceName(cfg.getDeviceName())
-                .setApp(appPath)
-                .setAppPackage(cfg.getAppPackage())
-                .setAppActivity(cfg.getAppActivity())
-                .setFullReset(true);
+                .setAppPackage(appPackage)
+                .setAppActivity(appActivity)
+                // та же сборка уже стоит — без переустановки (UiAutomator2 только очистит данные: noReset=false);
+                // в тёплом режиме APK тоже не переустанавливается: данные чистит WarmSession.reset()
+                .setFullReset(!sameBuildInstalled && !cfg.isSessionReuse());
+        if (!sameBuildInstalled) {
+            options.setApp(appPath);
+        }
+
+        if (lease.pooled()) {
+            // у каждого потока своё устройство и свои порты на хосте — параллельные сессии не конфликтуют
+            options.setUdid(lease.udid())
+                    .setSystemPort(lease.systemPort())
+                    .setMjpegServerPort(lease.mjpegServerPort());
+        }
 
         try {
-            return new AndroidDriver(serverUrl, options);
+            return SessionBuild.bind(SessionTimings.phase("new_session", () -> new AndroidDriver(serverUrl, options)), build);
         } catch (RuntimeException e) {
             log.error("""
                             Failed to create AndroidDriver.
                             Check:
                               1) Appium server: {}
-                              2) Device: deviceName='{}', platformVersion='{}' (adb devices / эмулятор запущен?)
+                              2) Device: deviceName='{}', platformVersion='{}', udid='{}' (adb devices / эмулятор запущен?)
                               3) APK path exists and is readable: {}
                               4) appPackage='{}', appActivity='{}'
                             Cause: {}
                             """,
-                    serverUrl, cfg.getDeviceName(), cfg.getPlatformVersion(),
-                    appPath, cfg.getAppPackage(), cfg.getAppActivity(),
+                    serverUrl, cfg.getDeviceName(), cfg.getPlatformVersion(), lease.udid(),
+                    appPath, appPackage, appActivity,
                     e, e);
             throw new IllegalStateException("AndroidDriver creation failed. See logs.", e);
         }
@@ -255,15 +259,9 @@ public final class LocalDriver implements WebDriverProvider {
             if (isHttp(app)) {
                 Path target = Path.of(cfg.getAppDir()).resolve(fileNameOrDefault(app, cfg));
                 try {
-                    Files.createDirectories(Path.of(cfg.getAppDir()));
-                    if (Files.notExists(target)) {
-                        log.info("Downloading APK from Owner 'app' URL: {}", app);
-                        download(app, target);
-                        log.info("APK saved: {} ({} bytes)", target.toAbsolutePath(), Files.size(target));
-                    } else {
-                        log.info("Using cached APK: {}", target.toAbsolutePath());
-                    }
-                    return target.toAbsolutePath().toString();
+                    Path p = apkCache(cfg).resolve(app, target);
+                    log.info("Using APK from Owner 'app' URL: {} → {}", app, p);
+                    return p.toString();
                 } catch (Exception e) {
                     log.error("Failed to download APK from '{}'. Cause: {}", app, e, e);
                     throw new IllegalStateException("Download failed for 'app' URL: " + app, e);
@@ -280,23 +278,27 @@ public final class LocalDriver implements WebDriverProvider {
             }
         }
 
-        Path dir = Path.of(cfg.getAppDir());
-        Path target = dir.resolve(cfg.getAppFilename());
+        Path target = Path.of(cfg.getAppDir()).resolve(cfg.getAppFilename());
         String url = cfg.getAppUrl();
 
         try {
-            Files.createDirectories(dir);
-            if (Files.notExists(target)) {
-                log.info("Owner 'app' not set. Downloading default APK: {}", url);
-                download(url, target);
-                log.info("APK saved: {} ({} bytes)", target.toAbsolutePath(), Files.size(target));
-            } else {
-                log.info("Using local default APK: {}", target.toAbsolutePath());
-            }
-            return target.toAbsolutePath().toString();
+            Path p = apkCache(cfg).resolve(url, target);
+            log.info("Owner 'app' not set. Using default APK: {} → {}", url, p);
+            return p.toString();
         } catch (Exception e) {
             log.error("Failed to prepare default APK at {}. Cause: {}", target.toAbsolutePath(), e, e);
             throw new IllegalStateException("Default APK prepare failed. See logs.", e);
         }
     }
+
+    /**
+     * Кеш APK из настроек {@code app.cache.*}.
+     *
+     * @param cfg конфигурация запуска
+     * @return кеш скачанных APK
+     */
+    private static ApkCache apkCache(LocalConfig cfg) {
+        return new ApkCache(Path.of(cfg.getAppCacheDir()), cfg.getAppCacheMaxBytes(),
+                new ResumableDownloader(cfg.getDownloadConnections(), cfg.getDownloadParallelMinBytes()));
+    }
 }
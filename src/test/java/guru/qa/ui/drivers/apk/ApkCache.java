@@ -0,0 +1,342 @@
+package guru.qa.ui.drivers.apk;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Контентно-адресуемый кеш APK: {@code blobs/<sha256>.apk} + индекс {@code index.json} (URL → blob).
+ *
+ * <p><b>Жизненный цикл запроса {@link #resolve(String, Path)}:</b>
+ * <ol>
+ *   <li>есть запись для URL и blob проходит проверку SHA-256 → один условный {@code HEAD}
+ *       ({@code If-None-Match}/{@code If-Modified-Since}); {@code 304} или тот же {@code ETag} — берём из кеша;</li>
+ *   <li>иначе (нет записи / blob повреждён / на сервере новая версия) — скачиваем {@link ResumableDownloader}
+ *       (поток на диск, докачка по {@code Range}), считаем SHA-256,
+ *       кладём blob под его хешем (одинаковые версии из разных URL не дублируются);</li>
+ *   <li>сеть недоступна, но проверенный blob есть — работаем офлайн с предупреждением;</li>
+ *   <li>в конце — LRU-вытеснение blob-ов сверх {@code app.cache.maxBytes}.</li>
+ * </ol>
+ *
+ * <p>Результат материализуется под «человеческим» именем ({@code app.dir/app.filename}) жёсткой ссылкой
+ * (или копией, если ссылки не поддерживаются) — этот путь используют и локальный, и удалённый запуск.</p>
+ *
+ * <p><b>Конкурентность:</b> индекс защищён файловой блокировкой {@code .lock} (общая для Gradle-форков)
+ * и монитором внутри JVM.</p>
+ */
+@Slf4j
+public final class ApkCache {
+
+    private static final Object JVM_LOCK = new Object();
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /** Посчитанные в этой JVM хеши: абсолютный путь → размер, время изменения и SHA-256 на тот момент. */
+    private static final Map<Path, Digest> DIGESTS = new ConcurrentHashMap<>();
+
+    private final Path root;
+    private final long maxBytes;
+    private final HttpClient http;
+    private final ResumableDownloader downloader;
+
+    /** Хеш файла и атрибуты, при которых он посчитан. */
+    private record Digest(long size, FileTime modified, String sha256) {
+    }
+
+    /** Индекс кеша (сериализуется в {@code index.json}). */
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static final class Index {
+        private Map<String, Entry> entries = new LinkedHashMap<>();
+    }
+
+    /** Запись индекса: откуда скачан blob и с какими валидаторами. */
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static final class Entry {
+        private String url;
+        private String sha256;
+        private long size;
+        private String etag;
+        private String lastModified;
+        private long fetchedAt;
+        private long lastUsedAt;
+    }
+
+    /**
+     * @param root       каталог кеша
+     * @param maxBytes   лимит суммарного размера blob-ов (LRU-вытеснение сверх лимита)
+     * @param downloader загрузчик новых версий
+     */
+    public ApkCache(Path root, long maxBytes, ResumableDownloader downloader) {
+        this.root = root;
+        this.maxBytes = maxBytes;
+        this.downloader = downloader;
+        this.http = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(20))
+                .build();
+    }
+
+    /**
+     * Вернуть актуальный APK для URL, материализованный по пути {@code target}.
+     *
+     * @param url    HTTP(S)-адрес APK
+     * @param target «человеческий» путь к файлу (создаётся/обновляется)
+     * @return абсолютный путь к {@code target}
+     * @throws IllegalStateException при невозможности получить APK ни из сети, ни из кеша
+     */
+    public Path resolve(String url, Path target) {
+        synchronized (JVM_LOCK) {
+            try {
+                Files.createDirectories(root.resolve("blobs"));
+                try (FileChannel ch = FileChannel.open(root.resolve(".lock"),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                     FileLock ignored = ch.lock()) {
+                    Index index = readIndex();
+                    Entry entry = resolveLocked(index, url);
+                    entry.setLastUsedAt(System.currentTimeMillis());
+                    evict(index, entry.getSha256());
+                    writeIndex(index);
+                    return materialize(blob(entry.getSha256()), target);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("APK cache failure for " + url + " (cache: " + root.toAbsolutePath() + ")", e);
+            }
+        }
+    }
+
+    /* ============================ internals ============================ */
+
+    private Entry resolveLocked(Index index, String url) throws IOException {
+        Entry cached = index.getEntries().get(url);
+        boolean intact = cached != null && verify(cached);
+
+        if (intact) {
+            Optional<Boolean> fresh = revalidate(cached);
+            if (fresh.isEmpty()) {
+                log.warn("[ApkCache] Сервер недоступен — используем закешированный APK {} ({})", shortSha(cached), url);
+                return cached;
+            }
+            if (fresh.get()) {
+                log.info("[ApkCache] APK актуален (HEAD): {} ({} bytes)", shortSha(cached), cached.getSize());
+                return cached;
+            }
+            log.info("[ApkCache] На сервере новая версия APK — обновляем: {}", url);
+        } else if (cached != null) {
+            log.warn("[ApkCache] Blob {} повреждён или удалён — скачиваем заново", shortSha(cached));
+        }
+
+        try {
+            Entry fetched = download(url);
+            index.getEntries().put(url, fetched);
+            return fetched;
+        } catch (IOException | RuntimeException e) {
+            if (intact) {
+                log.warn("[ApkCache] Не удалось обновить APK ({}), остаёмся на {}", e.toString(), shortSha(cached));
+                return cached;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Условный HEAD.
+     *
+     * @return {@code true} — не изменился, {@code false} — изменился, пусто — сервер недоступен
+     */
+    private Optional<Boolean> revalidate(Entry e) {
+        HttpRequest.Builder req = HttpRequest.newBuilder(URI.create(e.getUrl()))
+                .timeout(Duration.ofSeconds(20))
+                .header("User-Agent", ResumableDownloader.USER_AGENT)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody());
+        if (e.getEtag() != null) req.header("If-None-Match", e.getEtag());
+        if (e.getLastModified() != null) req.header("If-Modified-Since", e.getLastModified());
+        try {
+            HttpResponse<Void> resp = http.send(req.build(), HttpResponse.BodyHandlers.discarding());
+            if (resp.statusCode() == 304) return Optional.of(true);
+            if (resp.statusCode() / 100 != 2) return Optional.empty();
+            String etag = resp.headers().firstValue("ETag").orElse(null);
+            String lastModified = resp.headers().firstValue("Last-Modified").orElse(null);
+            long length = resp.headers().firstValueAsLong("Content-Length").orElse(-1L);
+            if (etag != null && e.getEtag() != null) return Optional.of(etag.equals(e.getEtag()));
+            if (lastModified != null && e.getLastModified() != null) {
+                return Optional.of(lastModified.equals(e.getLastModified()) && (length < 0 || length == e.getSize()));
+            }
+            return Optional.of(false); // валидаторов нет — доверять нечему
+        } catch (IOException ex) {
+            log.debug("[ApkCache] HEAD {} не удался: {}", e.getUrl(), ex.toString());
+            return Optional.empty();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    /** Скачать APK (с докачкой), посчитать SHA-256 и переложить в blob. */
+    private Entry download(String url) throws IOException {
+        Path partialDir = root.resolve("partial");
+        Files.createDirectories(partialDir);
+        // стабильное имя по URL: недокачанные сегменты переживают перезапуск прогона
+        Path tmp = partialDir.resolve(sha256(url.getBytes(StandardCharsets.UTF_8)) + ".apk");
+
+        ResumableDownloader.Result result = downloader.download(url, tmp);
+        String sha = sha256(tmp);
+        Path blob = blob(sha);
+        if (Files.exists(blob)) {
+            Files.delete(tmp);
+        } else {
+            Files.move(tmp, blob, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        Entry e = new Entry();
+        e.setUrl(url);
+        e.setSha256(sha);
+        e.setSize(Files.size(blob));
+        e.setEtag(result.etag());
+        e.setLastModified(result.lastModified());
+        e.setFetchedAt(System.currentTimeMillis());
+        log.info("[ApkCache] Скачан APK {} ({} bytes): {}", shortSha(e), e.getSize(), url);
+        return e;
+    }
+
+    /** Blob на месте и его SHA-256 совпадает с записью. */
+    private boolean verify(Entry e) throws IOException {
+        Path blob = blob(e.getSha256());
+        if (!Files.isRegularFile(blob) || Files.size(blob) != e.getSize()) return false;
+        return e.getSha256().equals(sha256(blob));
+    }
+
+    /** LRU: удаляем давно не использованные blob-ы, пока сумма больше лимита (текущий не трогаем). */
+    private void evict(Index index, String keepSha) throws IOException {
+        Map<String, Long> lastUse = new LinkedHashMap<>();
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        for (Entry e : index.getEntries().values()) {
+            lastUse.merge(e.getSha256(), e.getLastUsedAt(), Math::max);
+            sizes.put(e.getSha256(), e.getSize());
+        }
+        long total = sizes.values().stream().mapToLong(Long::longValue).sum();
+        if (total <= maxBytes) return;
+
+        List<String> order = new ArrayList<>(lastUse.keySet());
+        order.sort(Comparator.comparingLong(lastUse::get));
+        for (String sha : order) {
+            if (total <= maxBytes) break;
+            if (sha.equals(keepSha)) continue;
+            Files.deleteIfExists(blob(sha));
+            index.getEntries().values().removeIf(e -> sha.equals(e.getSha256()));
+            total -= sizes.get(sha);
+            log.info("[ApkCache] Вытеснен blob {} ({} bytes), в кеше осталось {} bytes", sha.substring(0, 12), sizes.get(sha), total);
+        }
+    }
+
+    /** Жёсткая ссылка (или копия) blob-а по «человеческому» пути. */
+    private static Path materialize(Path blob, Path target) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        if (Files.exists(target) && Files.isSameFile(blob, target)) return target.toAbsolutePath();
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".part");
+        Files.deleteIfExists(tmp);
+        try {
+            Files.createLink(tmp, blob);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(blob, tmp, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return target.toAbsolutePath();
+    }
+
+    private Index readIndex() {
+        Path file = root.resolve("index.json");
+        if (Files.notExists(file)) return new Index();
+        try {
+            return JSON.readValue(file.toFile(), Index.class);
+        } catch (IOException e) {
+            log.warn("[ApkCache] index.json не читается ({}), начинаем с пустого индекса", e.toString());
+            return new Index();
+        }
+    }
+
+    private void writeIndex(Index index) throws IOException {
+        Path file = root.resolve("index.json");
+        Path tmp = root.resolve("index.json.part");
+        JSON.writeValue(tmp.toFile(), index);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path blob(String sha) {
+        return root.resolve("blobs").resolve(sha + ".apk");
+    }
+
+    private static String shortSha(Entry e) {
+        return e.getSha256().substring(0, 12);
+    }
+
+    /**
+     * SHA-256 файла (hex, нижний регистр). Результат запоминается в JVM по пути, размеру и времени изменения:
+     * пока они те же, файл повторно не читается (проверка кеша и загрузка на BrowserStack при каждом старте сессии).
+     *
+     * @param file файл
+     * @return хеш содержимого
+     * @throws IOException при ошибке чтения
+     */
+    public static String sha256(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+        Digest known = DIGESTS.get(key);
+        if (known != null && known.size() == attrs.size() && known.modified().equals(attrs.lastModifiedTime())) {
+            return known.sha256();
+        }
+
+        MessageDigest md = sha256();
+        byte[] buf = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(key)) {
+            for (int n; (n = in.read(buf)) > 0; ) md.update(buf, 0, n);
+        }
+        String sha = HexFormat.of().formatHex(md.digest());
+        // атрибуты сняты до чтения: если файл менялся во время хеширования, следующий вызов посчитает заново
+        DIGESTS.put(key, new Digest(attrs.size(), attrs.lastModifiedTime(), sha));
+        return sha;
+    }
+
+    private static String sha256(byte[] data) {
+        return HexFormat.of().formatHex(sha256().digest(data));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package guru.qa.ui.drivers.apk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Ключевые поля {@code AndroidManifest.xml} из APK — без {@code aapt}: бинарный AXML разбирается прямо из zip.
+ *
+ * <p>Разбираются только нужные чанки: пул строк, карта ресурсов (для обфусцированных имён атрибутов)
+ * и начало/конец элементов. Launcher-активность — первая {@code activity}/{@code activity-alias}
+ * с {@code intent-filter} {@code MAIN} + {@code LAUNCHER}.</p>
+ *
+ * @param packageName      {@code manifest@package}
+ * @param versionCode      {@code manifest@android:versionCode}
+ * @param launcherActivity полное имя launcher-активности или {@code null}, если не найдена
+ */
+public record ApkManifest(String packageName, long versionCode, String launcherActivity) {
+
+    private static final int CHUNK_STRING_POOL = 0x0001;
+    private static final int CHUNK_XML = 0x0003;
+    private static final int CHUNK_RESOURCE_MAP = 0x0180;
+    private static final int CHUNK_START_ELEMENT = 0x0102;
+    private static final int CHUNK_END_ELEMENT = 0x0103;
+
+    private static final int ATTR_NAME = 0x01010003;
+    private static final int ATTR_VERSION_CODE = 0x0101021b;
+
+    private static final int TYPE_STRING = 0x03;
+    private static final int TYPE_INT_DEC = 0x10;
+    private static final int TYPE_INT_HEX = 0x11;
+    private static final int NO_INDEX = 0xFFFFFFFF;
+
+    /**
+     * Прочитать манифест APK.
+     *
+     * @param apk путь к APK
+     * @return пакет, versionCode и launcher-активность
+     * @throws IllegalStateException если APK не читается или манифест не похож на бинарный AXML
+     */
+    public static ApkManifest read(Path apk) {
+        try (ZipFile zip = new ZipFile(apk.toFile())) {
+            ZipEntry entry = zip.getEntry("AndroidManifest.xml");
+            if (entry == null) throw new IllegalStateException("AndroidManifest.xml not found in " + apk);
+            try (InputStream in = zip.getInputStream(entry)) {
+                return parse(ByteBuffer.wrap(in.readAllBytes()).order(ByteOrder.LITTLE_ENDIAN));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read APK manifest: " + apk, e);
+        }
+    }
+
+    /* ============================ AXML ============================ */
+
+    private static ApkManifest parse(ByteBuffer b) {
+        if ((b.getShort(0) & 0xFFFF) != CHUNK_XML) throw new IllegalStateException("Not a binary AndroidManifest.xml");
+
+        String[] strings = new String[0];
+        int[] resourceIds = new int[0];
+        String pkg = null;
+        long versionCode = -1;
+        String launcher = null;
+
+        String activity = null;
+        boolean inFilter = false;
+        boolean hasMain = false;
+        boolean hasLauncher = false;
+
+        int pos = b.getShort(2) & 0xFFFF;
+        while (pos + 8 <= b.limit()) {
+            int type = b.getShort(pos) & 0xFFFF;
+            int headerSize = b.getShort(pos + 2) & 0xFFFF;
+            int size = b.getInt(pos + 4);
+            if (size <= 0) break;
+
+            switch (type) {
+                case CHUNK_STRING_POOL -> strings = readStringPool(b, pos);
+                case CHUNK_RESOURCE_MAP -> {
+                    resourceIds = new int[(size - headerSize) / 4];
+                    for (int i = 0; i < resourceIds.length; i++) resourceIds[i] = b.getInt(pos + headerSize + i * 4);
+                }
+                case CHUNK_START_ELEMENT -> {
+                    int ext = pos + headerSize;
+                    String tag = str(strings, b.getInt(ext + 4));
+                    int attrStart = b.getShort(ext + 8) & 0xFFFF;
+                    int attrSize = b.getShort(ext + 10) & 0xFFFF;
+                    int attrCount = b.getShort(ext + 12) & 0xFFFF;
+
+                    String nameAttr = null;
+                    for (int i = 0; i < attrCount; i++) {
+                        int a = ext + attrStart + i * attrSize;
+                        int nameIdx = b.getInt(a + 4);
+                        String attrName = str(strings, nameIdx);
+                        int resId = nameIdx >= 0 && nameIdx < resourceIds.length ? resourceIds[nameIdx] : 0;
+                        String value = value(b, a, strings);
+
+                        if ("manifest".equals(tag) && "package".equals(attrName)) pkg = value;
+                        if ("manifest".equals(tag) && (resId == ATTR_VERSION_CODE || "versionCode".equals(attrName))) {
+                            versionCode = Long.parseLong(value);
+                        }
+                        if (resId == ATTR_NAME || "name".equals(attrName)) nameAttr = value;
+                    }
+
+                    switch (tag) {
+                        case "activity", "activity-alias" -> activity = nameAttr;
+                        case "intent-filter" -> {
+                            inFilter = true;
+                            hasMain = false;
+                            hasLauncher = false;
+                        }
+                        case "action" -> hasMain |= inFilter && "android.intent.action.MAIN".equals(nameAttr);
+                        case "category" -> hasLauncher |= inFilter && "android.intent.category.LAUNCHER".equals(nameAttr);
+                        default -> { }
+                    }
+                }
+                case CHUNK_END_ELEMENT -> {
+                    String tag = str(strings, b.getInt(pos + headerSize + 4));
+                    if ("intent-filter".equals(tag)) {
+                        if (hasMain && hasLauncher && activity != null && launcher == null) launcher = activity;
+                        inFilter = false;
+                    } else if ("activity".equals(tag) || "activity-alias".equals(tag)) {
+                        activity = null;
+                    }
+                }
+                default -> { }
+            }
+            pos += size;
+        }
+
+        if (pkg == null) throw new IllegalStateException("Package name not found in AndroidManifest.xml");
+        if (launcher != null && launcher.startsWith(".")) launcher = pkg + launcher;
+        else if (launcher != null && !launcher.contains(".")) launcher = pkg + "." + launcher;
+        return new ApkManifest(pkg, versionCode, launcher);
+    }
+
+    /** Значение атрибута: сырая строка или типизированное значение (строка/целое). */
+    private static String value(ByteBuffer b, int attr, String[] strings) {
+        int raw = b.getInt(attr + 8);
+        if (raw != NO_INDEX) return str(strings, raw);
+        int dataType = b.get(attr + 15) & 0xFF;
+        int data = b.getInt(attr + 16);
+        return switch (dataType) {
+            case TYPE_STRING -> str(strings, data);
+            case TYPE_INT_DEC, TYPE_INT_HEX -> Long.toString(data & 0xFFFFFFFFL);
+            default -> Integer.toString(data);
+        };
+    }
+
+    private static String[] readStringPool(ByteBuffer b, int chunk) {
+        int count = b.getInt(chunk + 8);
+        boolean utf8 = (b.getInt(chunk + 16) & 0x100) != 0;
+        int stringsStart = chunk + b.getInt(chunk + 20);
+        String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            int p = stringsStart + b.getInt(chunk + 28 + i * 4);
+            result[i] = utf8 ? utf8At(b, p) : utf16At(b, p);
+        }
+        return result;
+    }
+
+    private static String utf8At(ByteBuffer b, int p) {
+        p += (b.get(p) & 0x80) != 0 ? 2 : 1; // длина в символах — не нужна
+        int len = b.get(p) & 0xFF;
+        if ((len & 0x80) != 0) {
+            len = ((len & 0x7F) << 8) | (b.get(p + 1) & 0xFF);
+            p += 2;
+        } else {
+            p += 1;
+        }
+        byte[] bytes = new byte[len];
+        b.get(p, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String utf16At(ByteBuffer b, int p) {
+        int len = b.getShort(p) & 0xFFFF;
+        if ((len & 0x8000) != 0) {
+            len = ((len & 0x7FFF) << 16) | (b.getShort(p + 2) & 0xFFFF);
+            p += 4;
+        } else {
+            p += 2;
+        }
+        char[] chars = new char[len];
+        for (int i = 0; i < len; i++) chars[i] = (char) b.getShort(p + i * 2);
+        return new String(chars);
+    }
+
+    private static String str(String[] strings, int idx) {
+        return idx >= 0 && idx < strings.length ? strings[idx] : null;
+    }
+}
@@ -0,0 +1,192 @@
+package guru.qa.ui.drivers.apk;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Разбор бинарного {@code AndroidManifest.xml} в {@link ApkManifest} (без {@code aapt} и устройства).
+ *
+ * <p>AXML собирается в тесте: пул строк UTF-16, карта ресурсов, начало/конец элементов.</p>
+ */
+@Tag("unit")
+@DisplayName("ApkManifest: разбор бинарного манифеста")
+class ApkManifestTest {
+
+    /* Индексы пула строк; первые два — имена атрибутов из карты ресурсов. */
+    private static final int VERSION_CODE = 0;
+    private static final int NAME = 1;
+    private static final int MANIFEST = 2;
+    private static final int PACKAGE = 3;
+    private static final int PKG = 4;
+    private static final int APPLICATION = 5;
+    private static final int ACTIVITY = 6;
+    private static final int SETTINGS = 7;
+    private static final int MAIN = 8;
+    private static final int FILTER = 9;
+    private static final int ACTION = 10;
+    private static final int ACTION_MAIN = 11;
+    private static final int CATEGORY = 12;
+    private static final int CATEGORY_LAUNCHER = 13;
+
+    private static final int TYPE_STRING = 0x03;
+    private static final int TYPE_INT_DEC = 0x10;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Пакет, versionCode и первая активность с MAIN + LAUNCHER")
+    void readsPackageVersionAndLauncher() throws IOException {
+        Path apk = apk(manifest(strings("versionCode", "name")));
+
+        assertThat(ApkManifest.read(apk)).isEqualTo(new ApkManifest("org.example.app", 42, "org.example.app.Main"));
+    }
+
+    @Test
+    @DisplayName("Обфусцированные имена атрибутов распознаются по карте ресурсов")
+    void resolvesObfuscatedAttributesByResourceId() throws IOException {
+        Path apk = apk(manifest(strings("", "")));
+
+        assertThat(ApkManifest.read(apk)).isEqualTo(new ApkManifest("org.example.app", 42, "org.example.app.Main"));
+    }
+
+    @Test
+    @DisplayName("Текстовый манифест или APK без манифеста — IllegalStateException")
+    void rejectsNonBinaryOrMissingManifest() throws IOException {
+        Path text = apk("<manifest package=\"org.example.app\"/>".getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> ApkManifest.read(text)).isInstanceOf(IllegalStateException.class);
+
+        Path empty = dir.resolve("empty.apk");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(empty))) {
+            zip.putNextEntry(new ZipEntry("classes.dex"));
+            zip.closeEntry();
+        }
+        assertThatThrownBy(() -> ApkManifest.read(empty))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("AndroidManifest.xml not found");
+    }
+
+    /* ============================ AXML ============================ */
+
+    private static String[] strings(String versionCodeAttr, String nameAttr) {
+        return new String[]{
+                versionCodeAttr, nameAttr, "manifest", "package", "org.example.app", "application", "activity",
+                ".Settings", ".Main", "intent-filter", "action", "android.intent.action.MAIN",
+                "category", "android.intent.category.LAUNCHER"
+        };
+    }
+
+    /** {@code .Settings} — только MAIN (не launcher), {@code .Main} — MAIN + LAUNCHER. */
+    private static byte[] manifest(String[] strings) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(stringPool(strings));
+        body.write(resourceMap(0x0101021b, 0x01010003));
+        body.write(start(MANIFEST, attr(PACKAGE, TYPE_STRING, PKG), attr(VERSION_CODE, TYPE_INT_DEC, 42)));
+        body.write(start(APPLICATION));
+
+        body.write(start(ACTIVITY, attr(NAME, TYPE_STRING, SETTINGS)));
+        body.write(start(FILTER));
+        body.write(start(ACTION, attr(NAME, TYPE_STRING, ACTION_MAIN)));
+        body.write(end(ACTION));
+        body.write(end(FILTER));
+        body.write(end(ACTIVITY));
+
+        body.write(start(ACTIVITY, attr(NAME, TYPE_STRING, MAIN)));
+        body.write(start(FILTER));
+        body.write(start(ACTION, attr(NAME, TYPE_STRING, ACTION_MAIN)));
+        body.write(end(ACTION));
+        body.write(start(CATEGORY, attr(NAME, TYPE_STRING, CATEGORY_LAUNCHER)));
+        body.write(end(CATEGORY));
+        body.write(end(FILTER));
+        body.write(end(ACTIVITY));
+
+        body.write(end(APPLICATION));
+        body.write(end(MANIFEST));
+
+        ByteBuffer file = chunk(0x0003, 8, 8 + body.size());
+        file.put(body.toByteArray());
+        return file.array();
+    }
+
+    private static byte[] stringPool(String[] strings) {
+        int stringsStart = 28 + 4 * strings.length;
+        int data = 0;
+        for (String s : strings) data += 2 + 2 * s.length() + 2;
+        int size = stringsStart + (data + 3) / 4 * 4;
+
+        ByteBuffer b = chunk(0x0001, 28, size);
+        b.putInt(strings.length).putInt(0).putInt(0).putInt(stringsStart).putInt(0);
+        int offset = 0;
+        for (String s : strings) {
+            b.putInt(offset);
+            offset += 2 + 2 * s.length() + 2;
+        }
+        for (String s : strings) {
+            b.putShort((short) s.length());
+            for (char c : s.toCharArray()) b.putChar(c);
+            b.putShort((short) 0);
+        }
+        return b.array();
+    }
+
+    private static byte[] resourceMap(int... ids) {
+        ByteBuffer b = chunk(0x0180, 8, 8 + 4 * ids.length);
+        for (int id : ids) b.putInt(id);
+        return b.array();
+    }
+
+    /** Атрибут без пространства имён: {@code rawValue} — строка из пула либо {@code -1} для целых. */
+    private static int[] attr(int name, int dataType, int data) {
+        int raw = dataType == TYPE_STRING ? data : -1;
+        return new int[]{-1, name, raw, 8 | dataType << 24, data};
+    }
+
+    private static byte[] start(int tag, int[]... attrs) {
+        ByteBuffer b = chunk(0x0102, 16, 16 + 20 + 20 * attrs.length);
+        b.putInt(0).putInt(-1);                         // lineNumber, comment
+        b.putInt(-1).putInt(tag);                       // ns, name
+        b.putShort((short) 20).putShort((short) 20).putShort((short) attrs.length);
+        b.putShort((short) 0).putShort((short) 0).putShort((short) 0);
+        for (int[] a : attrs) {
+            for (int v : a) b.putInt(v);
+        }
+        return b.array();
+    }
+
+    private static byte[] end(int tag) {
+        ByteBuffer b = chunk(0x0103, 16, 24);
+        b.putInt(0).putInt(-1).putInt(-1).putInt(tag);
+        return b.array();
+    }
+
+    private static ByteBuffer chunk(int type, int headerSize, int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN)
+                .putShort((short) type).putShort((short) headerSize).putInt(size);
+    }
+
+    private Path apk(byte[] manifest) throws IOException {
+        Path apk = Files.createTempFile(dir, "app", ".apk");
+        try (OutputStream out = Files.newOutputStream(apk); ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("AndroidManifest.xml"));
+            zip.write(manifest);
+            zip.closeEntry();
+        }
+        return apk;
+    }
+}
@@ -0,0 +1,317 @@
+package guru.qa.ui.drivers.apk;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Потоковая докачиваемая загрузка файлов по HTTP(S).
+ *
+ * <p><b>Как это работает:</b>
+ * <ul>
+ *   <li>{@code HEAD} → размер, {@code Accept-Ranges}, {@code ETag}/{@code Last-Modified};</li>
+ *   <li>файл делится на сегменты (1 сегмент — для маленьких файлов или серверов без {@code Range});
+ *       каждый сегмент пишется потоком прямо на диск ({@code <part>.seg<i>}) — куча JVM не растёт;</li>
+ *   <li>обрыв соединения → повтор с {@code Range: bytes=<сколько уже есть>-<конец>} (до {@link #ATTEMPTS} попыток);
+ *       недокачанные сегменты переживают и перезапуск JVM, пока версия на сервере ({@code ETag}) та же; докачка
+ *       идёт с {@code If-Range}. Без валидатора ({@code HEAD} не удался, нет ни сильного {@code ETag}, ни
+ *       {@code Last-Modified}) версию не сверить — сегменты не докачиваются, а качаются заново; так же и на сервере
+ *       без {@code Range};</li>
+ *   <li>сегменты склеиваются в итоговый файл, в лог пишется пропускная способность.</li>
+ * </ul>
+ */
+@Slf4j
+public final class ResumableDownloader {
+
+    /** User-Agent HTTP-запросов загрузки и ревалидации APK ({@link ApkCache}). */
+    static final String USER_AGENT = "wikipedia-mobile-tests/1.0";
+    private static final int ATTEMPTS = 5;
+    private static final int BUFFER = 64 * 1024;
+
+    private final HttpClient http;
+    private final int connections;
+    private final long parallelMinBytes;
+
+    /** Итог загрузки: файл и валидаторы версии с сервера. */
+    public record Result(Path file, long bytes, String etag, String lastModified) {
+    }
+
+    /** Сервер вернул полный ответ на запрос диапазона — докачка невозможна. */
+    private static final class RangeIgnoredException extends IOException {
+        RangeIgnoredException(String url) {
+            super("Server ignored Range request: " + url);
+        }
+    }
+
+    /**
+     * @param connections      число параллельных соединений для больших файлов (не меньше 1)
+     * @param parallelMinBytes с какого размера файла включать параллельную загрузку
+     */
+    public ResumableDownloader(int connections, long parallelMinBytes) {
+        this.connections = Math.max(1, connections);
+        this.parallelMinBytes = parallelMinBytes;
+        this.http = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(20))
+                .build();
+    }
+
+    /**
+     * Скачать {@code url} в {@code target} (атомарно: сегменты → {@code target}).
+     *
+     * @param url    источник
+     * @param target итоговый файл; рядом живут {@code .seg*} и {@code .meta} недокачанной версии
+     * @return размер и валидаторы скачанной версии
+     * @throws IOException при ошибке сети/диска после всех попыток
+     */
+    public Result download(String url, Path target) throws IOException {
+        long started = System.nanoTime();
+        Probe probe = probe(url);
+
+        Path meta = sibling(target, ".meta");
+        String version = probe.etag() + "|" + probe.lastModified() + "|" + probe.length();
+        if (Files.exists(meta) && !Files.readString(meta, StandardCharsets.UTF_8).equals(version)) {
+            log.info("[Download] Версия на сервере изменилась — недокачанные сегменты сброшены");
+            deleteSegments(target);
+        }
+        if (probe.validator() == null && deleteSegments(target) > 0) {
+            log.info("[Download] Сервер не отдал валидатор версии — недокачанные сегменты сброшены");
+        }
+        Files.writeString(meta, version, StandardCharsets.UTF_8);
+
+        int parts = probe.rangeable() && probe.length() >= parallelMinBytes ? connections : 1;
+        List<long[]> ranges = split(probe.length(), parts);
+
+        long resumed;
+        try {
+            resumed = fetchAll(url, target, ranges, probe);
+        } catch (RangeIgnoredException e) {
+            log.warn("[Download] Сервер не поддерживает Range — качаем одним потоком с начала");
+            deleteSegments(target);
+            ranges = split(probe.length(), 1);
+            resumed = fetchAll(url, target, ranges, new Probe(probe.length(), false, probe.etag(), probe.lastModified()));
+        }
+
+        long total = concat(target, ranges.size());
+        Files.deleteIfExists(meta);
+
+        double sec = Math.max(1e-3, (System.nanoTime() - started) / 1e9);
+        log.info("[Download] {} bytes за {} с ({} МБ/с, соединений: {}, докачано с диска: {} bytes)",
+                total, String.format(Locale.ROOT, "%.1f", sec),
+                String.format(Locale.ROOT, "%.2f", (total - resumed) / sec / (1024 * 1024)),
+                ranges.size(), resumed);
+        return new Result(target, total, probe.etag(), probe.lastModified());
+    }
+
+    /* ============================ internals ============================ */
+
+    /** Что известно о файле до загрузки. {@code length < 0} — размер неизвестен. */
+    private record Probe(long length, boolean rangeable, String etag, String lastModified) {
+
+        /** Валидатор для {@code If-Range}: сильный {@code ETag}, иначе {@code Last-Modified}; {@code null} — нет. */
+        String validator() {
+            if (etag != null && !etag.startsWith("W/")) return etag;
+            return lastModified;
+        }
+    }
+
+    private Probe probe(String url) {
+        try {
+            HttpRequest req = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(Duration.ofSeconds(20))
+                    .header("User-Agent", USER_AGENT)
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .build();
+            HttpResponse<Void> resp = http.send(req, HttpResponse.BodyHandlers.discarding());
+            if (resp.statusCode() / 100 != 2) return new Probe(-1, false, null, null);
+            HttpHeaders h = resp.headers();
+            long length = h.firstValueAsLong("Content-Length").orElse(-1L);
+            boolean ranges = h.firstValue("Accept-Ranges").map(v -> v.toLowerCase(Locale.ROOT).contains("bytes")).orElse(false);
+            return new Probe(length, ranges && length > 0, h.firstValue("ETag").orElse(null),
+                    h.firstValue("Last-Modified").orElse(null));
+        } catch (IOException e) {
+            return new Probe(-1, false, null, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Probe(-1, false, null, null);
+        }
+    }
+
+    /** Диапазоны [from, to] включительно; для неизвестного размера — один открытый диапазон. */
+    static List<long[]> split(long length, int parts) {
+        List<long[]> ranges = new ArrayList<>();
+        if (length <= 0 || parts <= 1) {
+            ranges.add(new long[]{0, length - 1});
+            return ranges;
+        }
+        long chunk = (length + parts - 1) / parts;
+        for (long from = 0; from < length; from += chunk) {
+            ranges.add(new long[]{from, Math.min(length, from + chunk) - 1});
+        }
+        return ranges;
+    }
+
+    /** Скачать все сегменты (параллельно, если их больше одного). Возвращает байты, уже лежавшие на диске. */
+    private long fetchAll(String url, Path target, List<long[]> ranges, Probe probe) throws IOException {
+        long onDisk = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            Path seg = segment(target, i);
+            if (Files.exists(seg)) onDisk += Files.size(seg);
+        }
+        if (ranges.size() == 1) {
+            fetchSegment(url, segment(target, 0), ranges.get(0), probe);
+            return onDisk;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(ranges.size(), r -> {
+            Thread t = new Thread(r, "apk-download");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < ranges.size(); i++) {
+                Path seg = segment(target, i);
+                long[] range = ranges.get(i);
+                futures.add(pool.submit(() -> {
+                    fetchSegment(url, seg, range, probe);
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+            return onDisk;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Segment download failed: " + e.getCause(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while downloading " + url, e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Докачать сегмент до конца диапазона с повторами. */
+    private void fetchSegment(String url, Path seg, long[] range, Probe probe) throws IOException {
+        long expected = range[1] >= 0 ? range[1] - range[0] + 1 : -1;
+        // сегмент — часть файла: без Range сервер пришлёт файл целиком (в том числе в сегмент 0)
+        boolean partial = range[0] > 0 || range[1] >= 0 && range[1] < probe.length() - 1;
+        IOException last = null;
+        for (int attempt = 1; attempt <= ATTEMPTS; attempt++) {
+            long have = Files.exists(seg) ? Files.size(seg) : 0;
+            if (expected >= 0 && have == expected) return;
+            // без валидатора версии докачка могла бы склеить файл из двух сборок;
+            // без Range на сервере — докачивать нечем, только заново
+            if (have > 0 && (probe.validator() == null || !probe.rangeable()) || expected >= 0 && have > expected) {
+                Files.delete(seg);
+                have = 0;
+            }
+            try {
+                streamRange(url, seg, range[0] + have, range[1], have > 0 || partial, probe);
+                if (expected < 0 || Files.size(seg) == expected) return;
+                last = new IOException("Short read: " + Files.size(seg) + " of " + expected + " bytes");
+            } catch (RangeIgnoredException e) {
+                throw e;
+            } catch (IOException e) {
+                last = e;
+            }
+            log.warn("[Download] Обрыв сегмента {} (попытка {}/{}): {} — докачиваем", seg.getFileName(), attempt, ATTEMPTS, last.toString());
+            sleep(Duration.ofSeconds(attempt));
+        }
+        throw last;
+    }
+
+    /** Один HTTP-запрос: поток тела дописывается в конец файла сегмента. */
+    private void streamRange(String url, Path seg, long from, long to, boolean ranged, Probe probe) throws IOException {
+        HttpRequest.Builder req = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMinutes(2))
+                .header("User-Agent", USER_AGENT)
+                .GET();
+        if (ranged) {
+            req.header("Range", "bytes=" + from + "-" + (to >= 0 ? to : ""));
+            if (probe.validator() != null) req.header("If-Range", probe.validator());
+        }
+        HttpResponse<InputStream> resp;
+        try {
+            resp = http.send(req.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while downloading " + url, e);
+        }
+
+        int code = resp.statusCode();
+        try (InputStream in = resp.body()) {
+            if (ranged && code == 200) throw new RangeIgnoredException(url);
+            if (code / 100 != 2) throw new IOException("HTTP " + code + " while downloading " + url);
+            try (OutputStream out = Files.newOutputStream(seg, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, ranged ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+                byte[] buf = new byte[BUFFER];
+                for (int n; (n = in.read(buf)) >= 0; ) out.write(buf, 0, n);
+            }
+        }
+    }
+
+    /** Склеить сегменты в {@code target} через {@code .part} и атомарный move. */
+    private static long concat(Path target, int parts) throws IOException {
+        Path tmp = sibling(target, ".part");
+        if (parts == 1) {
+            Files.move(segment(target, 0), tmp, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                for (int i = 0; i < parts; i++) Files.copy(segment(target, i), out);
+            }
+            deleteSegments(target);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(target);
+    }
+
+    /** Удалить сегменты {@code target}; возвращает, сколько их было. */
+    private static int deleteSegments(Path target) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        String prefix = target.getFileName() + ".seg";
+        int deleted = 0;
+        try (var files = Files.list(dir)) {
+            for (Path p : files.filter(p -> p.getFileName().toString().startsWith(prefix)).toList()) {
+                if (Files.deleteIfExists(p)) deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private static Path segment(Path target, int i) {
+        return sibling(target, ".seg" + i);
+    }
+
+    private static Path sibling(Path target, String suffix) {
+        return target.resolveSibling(target.getFileName() + suffix);
+    }
+
+    private static void sleep(Duration d) {
+        try {
+            Thread.sleep(d.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package guru.qa.ui.drivers.apk;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Разбиение файла на сегменты и загрузка {@link ResumableDownloader} с локального HTTP-сервера (без внешней сети).
+ */
+@Tag("unit")
+@DisplayName("ResumableDownloader: сегменты, Range и докачка")
+class ResumableDownloaderTest {
+
+    private static final byte[] APK = new byte[100_000];
+
+    static {
+        new Random(42).nextBytes(APK);
+    }
+
+    @TempDir
+    Path dir;
+
+    private FileServer server;
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) server.stop();
+    }
+
+    @Test
+    @DisplayName("Размер делится с остатком: последний сегмент короче")
+    void splitsWithRemainder() {
+        List<long[]> ranges = ResumableDownloader.split(10, 3);
+
+        assertThat(ranges).containsExactly(new long[]{0, 3}, new long[]{4, 7}, new long[]{8, 9});
+    }
+
+    @Test
+    @DisplayName("Неизвестный размер или одно соединение — один диапазон с начала")
+    void singleRange() {
+        assertThat(ResumableDownloader.split(-1, 4)).hasSize(1);
+        assertThat(ResumableDownloader.split(-1, 4).get(0)[0]).isZero();
+        assertThat(ResumableDownloader.split(1000, 1)).containsExactly(new long[]{0, 999});
+    }
+
+    @ParameterizedTest(name = "{0} байт на {1} соединений")
+    @CsvSource({"10,3", "7,8", "1,4", "1000,4", "1048577,4", "52428800,6"})
+    @DisplayName("Сегменты подряд, без пересечений и покрывают весь файл")
+    void coversWholeFile(long length, int parts) {
+        List<long[]> ranges = ResumableDownloader.split(length, parts);
+
+        assertThat(ranges).hasSizeBetween(1, parts);
+        long next = 0;
+        for (long[] r : ranges) {
+            assertThat(r[0]).isEqualTo(next);
+            assertThat(r[1]).isGreaterThanOrEqualTo(r[0]);
+            next = r[1] + 1;
+        }
+        assertThat(next).isEqualTo(length);
+    }
+
+    @Test
+    @DisplayName("Параллельная загрузка: каждый сегмент, включая первый, запрашивается своим Range")
+    void parallelSegmentsUseRange() throws IOException {
+        server = new FileServer(false, -1);
+        Path target = dir.resolve("app.apk");
+
+        ResumableDownloader.Result result = new ResumableDownloader(4, 1).download(server.url(), target);
+
+        assertThat(Files.readAllBytes(target)).isEqualTo(APK);
+        assertThat(result.bytes()).isEqualTo(APK.length);
+        assertThat(result.etag()).isEqualTo(FileServer.ETAG);
+        assertThat(server.ranges).containsExactlyInAnyOrder(
+                "bytes=0-24999", "bytes=25000-49999", "bytes=50000-74999", "bytes=75000-99999");
+        assertThat(dir).isDirectoryNotContaining("glob:**.seg*").isDirectoryNotContaining("glob:**.meta");
+    }
+
+    @Test
+    @DisplayName("Обрыв сегмента — докачка с места обрыва с If-Range")
+    void resumesCutSegment() throws IOException {
+        server = new FileServer(false, 35_000);
+        Path target = dir.resolve("app.apk");
+
+        new ResumableDownloader(4, 1).download(server.url(), target);
+
+        assertThat(Files.readAllBytes(target)).isEqualTo(APK);
+        assertThat(server.ranges).contains("bytes=25000-49999", "bytes=35000-49999");
+        assertThat(server.ifRange).containsOnly(FileServer.ETAG);
+    }
+
+    @Test
+    @DisplayName("Сервер объявил Range, но отдаёт файл целиком — один поток с начала")
+    void serverIgnoringRangeFallsBackToSingleStream() throws IOException {
+        server = new FileServer(true, -1);
+        Path target = dir.resolve("app.apk");
+
+        ResumableDownloader.Result result = new ResumableDownloader(4, 1).download(server.url(), target);
+
+        assertThat(Files.readAllBytes(target)).isEqualTo(APK);
+        assertThat(result.bytes()).isEqualTo(APK.length);
+        assertThat(server.ranges).last().isEqualTo("");
+    }
+
+    /**
+     * Отдаёт {@link #APK}: {@code HEAD} с {@code Accept-Ranges}/{@code ETag}, {@code GET} с {@code Range} → 206.
+     * {@code ignoreRange} — на любой {@code GET} 200 и файл целиком; {@code cutAt} — первый ответ, покрывающий
+     * этот байт, обрывается на нём.
+     */
+    private static final class FileServer {
+
+        static final String ETAG = "\"v1\"";
+        private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+        /** Заголовки {@code Range} запросов {@code GET} по порядку ({@code ""} — без Range). */
+        final List<String> ranges = new CopyOnWriteArrayList<>();
+        final List<String> ifRange = new CopyOnWriteArrayList<>();
+
+        private final HttpServer http;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        private final AtomicBoolean cut = new AtomicBoolean();
+
+        FileServer(boolean ignoreRange, int cutAt) throws IOException {
+            http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            http.createContext("/app.apk", ex -> {
+                try (ex) {
+                    serve(ex, ignoreRange, cutAt);
+                }
+            });
+            http.setExecutor(executor);
+            http.start();
+        }
+
+        String url() {
+            return "http://" + http.getAddress().getHostString() + ":" + http.getAddress().getPort() + "/app.apk";
+        }
+
+        void stop() {
+            http.stop(0);
+            executor.shutdownNow();
+        }
+
+        private void serve(HttpExchange ex, boolean ignoreRange, int cutAt) throws IOException {
+            ex.getResponseHeaders().set("Accept-Ranges", "bytes");
+            ex.getResponseHeaders().set("ETag", ETAG);
+            if ("HEAD".equals(ex.getRequestMethod())) {
+                ex.getResponseHeaders().set("Content-Length", Integer.toString(APK.length));
+                ex.sendResponseHeaders(200, -1);
+                return;
+            }
+            String range = ex.getRequestHeaders().getFirst("Range");
+            ranges.add(range == null ? "" : range);
+            String validator = ex.getRequestHeaders().getFirst("If-Range");
+            if (validator != null) ifRange.add(validator);
+
+            int from = 0;
+            int to = APK.length - 1;
+            Matcher m = range == null || ignoreRange ? null : RANGE.matcher(range);
+            if (m != null && m.matches()) {
+                from = Integer.parseInt(m.group(1));
+                if (!m.group(2).isEmpty()) to = Integer.parseInt(m.group(2));
+                ex.getResponseHeaders().set("Content-Range", "bytes " + from + "-" + to + "/" + APK.length);
+                ex.sendResponseHeaders(206, to - from + 1);
+            } else {
+                ex.sendResponseHeaders(200, APK.length);
+            }
+
+            OutputStream out = ex.getResponseBody();
+            if (from <= cutAt && cutAt <= to && cut.compareAndSet(false, true)) {
+                out.write(APK, from, cutAt - from);
+                out.flush();
+                throw new IOException("обрыв на байте " + cutAt);   // соединение закрывается недописанным
+            }
+            out.write(APK, from, to - from + 1);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package guru.qa.ui.drivers.appium;
+
+import guru.qa.ui.config.LocalConfig;
+import guru.qa.ui.drivers.device.DeviceLease;
+import io.appium.java_client.service.local.AppiumDriverLocalService;
+import io.appium.java_client.service.local.AppiumServiceBuilder;
+import io.appium.java_client.service.local.flags.GeneralServerFlag;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appium-серверы для локального запуска: внешний (по {@code appium.server.url}) или управляемый пул.
+ *
+ * <p><b>Внешний сервер</b> (по умолчанию): доступность по {@code /status} проверяется один раз и дальше
+ * обновляется фоновым потоком раз в {@link #REFRESH_INTERVAL}; создание драйвера читает закешированное
+ * состояние без HTTP-запроса (повторная синхронная проверка — только если кеш говорит «недоступен»).</p>
+ *
+ * <p><b>Управляемый пул</b> ({@code -Dappium.managed=true}): на каждое арендованное устройство
+ * ({@link DeviceLease}) поднимается свой процесс Appium на свободном порту; процессы живут между тестами,
+ * упавший — перезапускается фоновой проверкой или при следующем запросе; все останавливаются на выходе JVM.
+ * Здоровье процесса ({@code isRunning()} — HTTP-запрос) кешируется с меткой времени и обновляется фоновым потоком;
+ * старт и перезапуск блокируют только свой ключ, а не создание драйверов для остальных устройств.
+ * Логи — {@code build/appium/appium-<udid>.log}.</p>
+ */
+@Slf4j
+public final class AppiumServerPool {
+
+    private static final Duration REFRESH_INTERVAL = Duration.ofSeconds(5);
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+
+    private static final HttpClient HTTP = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(3))
+            .build();
+
+    /** Сколько считать закешированное «живой» управляемого сервера без новой проверки. */
+    private static final Duration MANAGED_HEALTH_TTL = REFRESH_INTERVAL.multipliedBy(2);
+
+    private static final Map<String, Managed> SERVICES = new ConcurrentHashMap<>();
+    private static final Map<String, Health> HEALTH = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService REFRESHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "appium-health");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        REFRESHER.scheduleWithFixedDelay(AppiumServerPool::refresh,
+                REFRESH_INTERVAL.toMillis(), REFRESH_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(AppiumServerPool::stopAll, "appium-pool-stop"));
+    }
+
+    /** Последнее известное состояние внешнего сервера. */
+    private record Health(boolean up, String error) {
+    }
+
+    /** Управляемый сервер ключа: процесс, закешированное здоровье и собственный монитор старта/перезапуска. */
+    private static final class Managed {
+        private final String key;
+        private volatile AppiumDriverLocalService service;
+        private volatile long checkedAtNanos;
+
+        private Managed(String key) {
+            this.key = key;
+        }
+
+        /** Процесс проверен недавно и был жив. */
+        private boolean healthy() {
+            return service != null && checkedAtNanos != 0
+                    && System.nanoTime() - checkedAtNanos <= MANAGED_HEALTH_TTL.toNanos();
+        }
+    }
+
+    private AppiumServerPool() {
+    }
+
+    /**
+     * Адрес Appium-сервера для устройства.
+     *
+     * @param cfg   локальная конфигурация
+     * @param lease аренда устройства (ключ управляемого сервера)
+     * @return адрес живого сервера
+     * @throws IllegalStateException если внешний сервер недоступен или управляемый не стартовал
+     */
+    public static URL serverFor(LocalConfig cfg, DeviceLease lease) {
+        if (cfg.isAppiumManaged()) {
+            return managed(lease.pooled() ? lease.udid() : "default").getUrl();
+        }
+
+        URL url = toUrl(cfg.getAppiumServerUrl());
+        // ключ — строка: URL.equals() резолвит хост через DNS
+        Health h = HEALTH.get(url.toString());
+        if (h == null || !h.up()) {
+            h = probe(url.toString());
+            HEALTH.put(url.toString(), h);
+        }
+        if (!h.up()) {
+            throw new IllegalStateException(
+                    "Appium is not reachable at " + url + " (" + h.error() + ")\n" +
+                            "Start it locally:\n" +
+                            "  • если в URL есть '/wd/hub':  appium --base-path /wd/hub\n" +
+                            "  • иначе (base-path '/'):       appium\n" +
+                            "Либо переопредели URL: -Dappium.server.url=http://127.0.0.1:4723/\n" +
+                            "Либо дай тестам поднять Appium самим: -Dappium.managed=true\n");
+        }
+        return url;
+    }
+
+    /* ============================ internals ============================ */
+
+    /** Управляемый сервер для ключа: из кеша здоровья, иначе проверка и (пере)запуск под монитором ключа. */
+    private static AppiumDriverLocalService managed(String key) {
+        Managed m = SERVICES.computeIfAbsent(key, Managed::new);
+        AppiumDriverLocalService service = m.service;
+        if (m.healthy()) return service;
+        return ensureRunning(m);
+    }
+
+    /** Проверить процесс ключа и перезапустить упавший; ждут только вызовы того же ключа. */
+    private static AppiumDriverLocalService ensureRunning(Managed m) {
+        synchronized (m) {
+            AppiumDriverLocalService service = m.service;
+            if (service != null && service.isRunning()) {
+                m.checkedAtNanos = System.nanoTime();
+                return service;
+            }
+            if (service != null) {
+                log.warn("[Appium] Сервер для '{}' ({}) не отвечает — перезапуск", m.key, service.getUrl());
+                m.checkedAtNanos = 0;
+                stopQuietly(service);
+            }
+            service = start(m.key);
+            m.service = service;
+            m.checkedAtNanos = System.nanoTime();
+            return service;
+        }
+    }
+
+    private static AppiumDriverLocalService start(String key) {
+        Path logFile = Path.of("build", "appium", "appium-" + key.replaceAll("[^A-Za-z0-9._-]", "_") + ".log");
+        try {
+            Files.createDirectories(logFile.getParent());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create Appium log dir: " + logFile.getParent().toAbsolutePath(), e);
+        }
+        AppiumDriverLocalService service = AppiumDriverLocalService.buildService(new AppiumServiceBuilder()
+                .withIPAddress("127.0.0.1")
+                .usingAnyFreePort()
+                .withTimeout(STARTUP_TIMEOUT)
+                .withLogFile(new File(logFile.toString()))
+                .withArgument(GeneralServerFlag.LOG_LEVEL, "info"));
+        long started = System.nanoTime();
+        service.start();
+        log.info("[Appium] Запущен сервер для '{}': {} за {} мс (лог: {})", key, service.getUrl(),
+                (System.nanoTime() - started) / 1_000_000, logFile.toAbsolutePath());
+        return service;
+    }
+
+    /** Фоновое обновление: пробы внешних серверов и перезапуск упавших управляемых. */
+    private static void refresh() {
+        try {
+            for (String url : HEALTH.keySet()) {
+                Health h = probe(url);
+                Health prev = HEALTH.put(url, h);
+                if (prev != null && prev.up() != h.up()) {
+                    log.info("[Appium] {} теперь {}", url, h.up() ? "доступен" : "недоступен (" + h.error() + ")");
+                }
+            }
+            for (Managed m : SERVICES.values()) {
+                if (m.service != null) ensureRunning(m);
+            }
+        } catch (RuntimeException e) {
+            log.debug("[Appium] Фоновая проверка упала: {}", e.toString());
+        }
+    }
+
+    /** {@code /status} с учётом возможного {@code /wd/hub} base-path. */
+    private static Health probe(String serverUrl) {
+        String base = serverUrl.replaceAll("/+$", "");
+        String error = "no response";
+        for (String s : new String[]{base + "/status", base.replace("/wd/hub", "") + "/status"}) {
+            try {
+                HttpRequest req = HttpRequest.newBuilder(URI.create(s))
+                        .timeout(Duration.ofSeconds(3))
+                        .GET()
+                        .build();
+                HttpResponse<Void> resp = HTTP.send(req, HttpResponse.BodyHandlers.discarding());
+                if (resp.statusCode() / 100 == 2 || resp.statusCode() == 404) return new Health(true, null);
+                error = "HTTP " + resp.statusCode();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new Health(false, "interrupted");
+            } catch (Exception e) {
+                error = e.toString();
+            }
+        }
+        return new Health(false, error);
+    }
+
+    private static void stopAll() {
+        REFRESHER.shutdownNow();
+        SERVICES.values().stream().map(m -> m.service).filter(Objects::nonNull)
+                .forEach(AppiumServerPool::stopQuietly);
+        SERVICES.clear();
+    }
+
+    private static void stopQuietly(AppiumDriverLocalService service) {
+        try {
+            service.stop();
+        } catch (RuntimeException e) {
+            log.debug("[Appium] stop() упал: {}", e.toString());
+        }
+    }
+
+    private static URL toUrl(String raw) {
+        try {
+            return URI.create(raw).toURL();
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Bad appium.server.url: " + raw, e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package guru.qa.ui.drivers.device;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Минимальная обёртка над {@code adb} для инфраструктуры локального запуска.
+ *
+ * <p><b>Поиск бинаря:</b> {@code $ANDROID_HOME/platform-tools/adb} → {@code $ANDROID_SDK_ROOT/platform-tools/adb}
+ * → {@code adb} из {@code PATH}.</p>
+ *
+ * <p>Все вызовы синхронные, с таймаутом; stdout возвращается строкой (UTF-8).
+ * Ошибки запуска/ненулевой код выхода → {@link IllegalStateException}.</p>
+ */
+@Slf4j
+public final class Adb {
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(20);
+    private static final Pattern VERSION_CODE = Pattern.compile("versionCode=(\\d+)");
+
+    private Adb() {
+    }
+
+    /**
+     * Путь к исполняемому файлу {@code adb}.
+     *
+     * @return абсолютный путь из Android SDK или просто {@code adb} (поиск по {@code PATH})
+     */
+    public static String executable() {
+        String exe = System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("win") ? "adb.exe" : "adb";
+        for (String env : new String[]{"ANDROID_HOME", "ANDROID_SDK_ROOT"}) {
+            String home = System.getenv(env);
+            if (home == null || home.isBlank()) continue;
+            Path candidate = Path.of(home, "platform-tools", exe);
+            if (Files.isExecutable(candidate)) return candidate.toAbsolutePath().toString();
+        }
+        return exe;
+    }
+
+    /**
+     * Серийные номера (udid) устройств в состоянии {@code device} (офлайн/unauthorized пропускаются).
+     *
+     * @return список udid в порядке вывода {@code adb devices}
+     * @throws IllegalStateException если {@code adb} недоступен
+     */
+    public static List<String> onlineDevices() {
+        String out = run(DEFAULT_TIMEOUT, "devices");
+        List<String> result = new ArrayList<>();
+        for (String line : out.split("\\R")) {
+            String[] parts = line.trim().split("\\s+");
+            if (parts.length >= 2 && "device".equals(parts[1]) && !line.startsWith("List of devices")) {
+                result.add(parts[0]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Выполнить {@code adb -s <udid> shell <command...>}.
+     *
+     * @param udid    серийный номер устройства; {@code null} — единственное подключённое устройство
+     * @param command команда и аргументы shell
+     * @return stdout команды
+     */
+    public static String shell(String udid, String... command) {
+        List<String> args = new ArrayList<>(command.length + 3);
+        if (udid != null) {
+            args.add("-s");
+            args.add(udid);
+        }
+        args.add("shell");
+        args.addAll(List.of(command));
+        return run(DEFAULT_TIMEOUT, args.toArray(String[]::new));
+    }
+
+    /**
+     * {@code versionCode} установленного пакета по {@code dumpsys package}.
+     *
+     * @param udid        серийный номер устройства; {@code null} — единственное подключённое устройство
+     * @param packageName applicationId
+     * @return versionCode или пусто, если пакет не установлен
+     * @throws IllegalStateException если {@code adb} недоступен
+     */
+    public static OptionalLong installedVersionCode(String udid, String packageName) {
+        Matcher m = VERSION_CODE.matcher(shell(udid, "dumpsys", "package", packageName));
+        return m.find() ? OptionalLong.of(Long.parseLong(m.group(1))) : OptionalLong.empty();
+    }
+
+    /**
+     * Выполнить {@code adb <args...>} с таймаутом.
+     *
+     * @param timeout максимальное время выполнения
+     * @param args    аргументы adb
+     * @return stdout процесса
+     * @throws IllegalStateException при ошибке запуска, таймауте или ненулевом коде выхода
+     */
+    public static String run(Duration timeout, String... args) {
+        List<String> cmd = new ArrayList<>(args.length + 1);
+        cmd.add(executable());
+        cmd.addAll(List.of(args));
+        Path outFile = null;
+        try {
+            // stdout во временный файл: чтение пайпа блокировало бы поток мимо таймаута
+            outFile = Files.createTempFile("adb-", ".out");
+            Process p = new ProcessBuilder(cmd)
+                    .redirectErrorStream(true)
+                    .redirectOutput(outFile.toFile())
+                    .start();
+            if (!p.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                p.destroyForcibly();
+                throw new IllegalStateException("adb timeout (" + timeout.toSeconds() + " s): " + cmd);
+            }
+            byte[] out = Files.readAllBytes(outFile);
+            String text = new String(out, StandardCharsets.UTF_8);
+            if (p.exitValue() != 0) {
+                throw new IllegalStateException("adb exit code " + p.exitValue() + ": " + cmd + "\n" + text);
+            }
+            log.debug("adb {} → {} bytes", String.join(" ", args), out.length);
+            return text;
+        } catch (IOException e) {
+            throw new IllegalStateException("adb is not available: " + cmd.get(0) + " (" + e.getMessage() + ")", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("adb interrupted: " + cmd, e);
+        } finally {
+            if (outFile != null) {
+                try { Files.deleteIfExists(outFile); } catch (IOException ignored) {}
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package guru.qa.ui.drivers.device;
+
+/**
+ * Аренда локального устройства одним потоком JUnit / Gradle-форком.
+ *
+ * <p>Выдаётся {@link DeviceLeaseBroker}: у каждой аренды свой {@code udid} и свои порты
+ * UiAutomator2, поэтому параллельные сессии на разных эмуляторах не конфликтуют
+ * ни по устройству, ни по портам на хосте.</p>
+ *
+ * @param udid            серийный номер из {@code adb devices}; {@code null} — пул выключен или устройств нет
+ *                        (Appium выбирает устройство сам по {@code deviceName})
+ * @param slot            номер слота (0..N-1) — основа для вычисления портов
+ * @param systemPort      {@code appium:systemPort} (порт UiAutomator2-сервера на хосте)
+ * @param mjpegServerPort {@code appium:mjpegServerPort} (MJPEG-поток экрана на хосте)
+ */
+public record DeviceLease(String udid, int slot, int systemPort, int mjpegServerPort) {
+
+    /** Аренда привязана к конкретному устройству из пула. */
+    public boolean pooled() {
+        return udid != null;
+    }
+}
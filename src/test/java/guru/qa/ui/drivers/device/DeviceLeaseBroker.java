@@ -0,0 +1,205 @@
+package guru.qa.ui.drivers.device;
+
+import guru.qa.ui.config.LocalConfig;
+import guru.qa.ui.utils.FileLocks;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Брокер аренды локальных устройств: раздаёт эмуляторы/девайсы из {@code adb devices}
+ * потокам JUnit и Gradle-форкам (по одному устройству на поток).
+ *
+ * <p><b>Как это работает:</b>
+ * <ul>
+ *   <li>Кандидаты — online-устройства из {@code adb devices} (или явный список {@code device.udids});</li>
+ *   <li>Межпроцессная координация — файловые блокировки в {@code device.lease.dir}
+ *       ({@code device-<udid>.lock}); каталог общий для всех форков одного прогона;</li>
+ *   <li>Порты UiAutomator2 ({@code systemPort}/{@code mjpegServerPort}) считаются от номера слота,
+ *       слот тоже арендуется файловой блокировкой ({@code slot-<n>.lock}) — порты не пересекаются,
+ *       даже если состав устройств поменялся между форками;</li>
+ *   <li>Если свободного устройства нет — ждём до {@code device.lease.timeout} секунд, переопрашивая {@code adb}.</li>
+ * </ul>
+ *
+ * <p><b>Время жизни:</b> аренда живёт, пока жив поток (повторный {@link #acquire(LocalConfig)} возвращает
+ * ту же аренду): явного возврата нет — поток JUnit держит устройство до конца форка, и следующие тесты потока
+ * не ждут аренды и не переустанавливают APK на другом устройстве. Все блокировки снимаются на выходе JVM,
+ * а ОС освобождает их даже при аварийном завершении форка.</p>
+ *
+ * <p><b>Отключение:</b> {@code -Ddevice.pool=false} — поведение как раньше: одно устройство по {@code deviceName}.</p>
+ */
+@Slf4j
+public final class DeviceLeaseBroker {
+
+    private static final int MAX_SLOTS = 64;
+    private static final Duration RESCAN_INTERVAL = Duration.ofSeconds(2);
+
+    private static final ThreadLocal<Held> CURRENT = new ThreadLocal<>();
+    private static final Set<Held> ALL = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(DeviceLeaseBroker::releaseAll, "device-lease-release"));
+    }
+
+    /** Аренда вместе с удерживаемыми блокировками (устройство + слот портов). */
+    private record Held(DeviceLease lease, List<FileLock> locks) {
+    }
+
+    private DeviceLeaseBroker() {
+    }
+
+    /**
+     * Арендовать устройство для текущего потока (идемпотентно).
+     *
+     * @param cfg локальная конфигурация
+     * @return аренда; при выключенном пуле или отсутствии {@code adb} — аренда без {@code udid}
+     * @throws IllegalStateException если за {@code device.lease.timeout} не освободилось ни одно устройство
+     */
+    public static DeviceLease acquire(LocalConfig cfg) {
+        Held held = CURRENT.get();
+        if (held != null) return held.lease();
+
+        if (!cfg.isDevicePoolEnabled()) {
+            return unpooled("device.pool=false");
+        }
+
+        List<String> candidates;
+        try {
+            candidates = candidates(cfg);
+        } catch (IllegalStateException e) {
+            log.warn("[DeviceLease] adb недоступен ({}), работаем с deviceName='{}'", e.getMessage(), cfg.getDeviceName());
+            return unpooled("adb unavailable");
+        }
+        if (candidates.isEmpty()) {
+            log.warn("[DeviceLease] adb не видит online-устройств, работаем с deviceName='{}'", cfg.getDeviceName());
+            return unpooled("no online devices");
+        }
+
+        Path dir = Path.of(cfg.getDeviceLeaseDir());
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create device lease dir: " + dir.toAbsolutePath(), e);
+        }
+
+        Duration timeout = Duration.ofSeconds(cfg.getDeviceLeaseTimeoutSec());
+        Instant deadline = Instant.now().plus(timeout);
+        Instant waitStarted = Instant.now();
+        boolean announcedWait = false;
+
+        while (true) {
+            for (String udid : candidates) {
+                Held h = tryLease(dir, udid, cfg);
+                if (h != null) {
+                    CURRENT.set(h);
+                    ALL.add(h);
+                    log.info("[DeviceLease] {} → udid={}, slot={}, systemPort={}, mjpegServerPort={} (ожидание {} мс)",
+                            Thread.currentThread().getName(), udid, h.lease().slot(),
+                            h.lease().systemPort(), h.lease().mjpegServerPort(),
+                            Duration.between(waitStarted, Instant.now()).toMillis());
+                    return h.lease();
+                }
+            }
+
+            if (Instant.now().isAfter(deadline)) {
+                throw new IllegalStateException("No free device within " + timeout.toSeconds() + " s. Busy: " + candidates
+                        + " (lock dir: " + dir.toAbsolutePath() + ")");
+            }
+            if (!announcedWait) {
+                log.info("[DeviceLease] Все устройства заняты {}, ждём освобождения (до {} с)", candidates, timeout.toSeconds());
+                announcedWait = true;
+            }
+            FileLocks.sleep(RESCAN_INTERVAL, "a free device");
+            try {
+                candidates = candidates(cfg);
+            } catch (IllegalStateException e) {
+                log.debug("[DeviceLease] Повторный опрос adb не удался: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Текущая аренда потока.
+     *
+     * @return аренда или {@code null}, если поток ещё ничего не арендовал
+     */
+    public static DeviceLease current() {
+        Held held = CURRENT.get();
+        return held == null ? null : held.lease();
+    }
+
+    /* ============================ internals ============================ */
+
+    private static DeviceLease unpooled(String reason) {
+        log.debug("[DeviceLease] Без пула: {}", reason);
+        return new DeviceLease(null, 0, 0, 0);
+    }
+
+    /** Кандидаты: online-устройства, при наличии {@code device.udids} — только из этого списка. */
+    private static List<String> candidates(LocalConfig cfg) {
+        List<String> online = Adb.onlineDevices();
+        String only = cfg.getDeviceUdids();
+        if (only == null || only.isBlank()) return online;
+        List<String> allowed = Arrays.stream(only.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+        List<String> result = new ArrayList<>();
+        for (String udid : online) if (allowed.contains(udid)) result.add(udid);
+        return result;
+    }
+
+    /** Попытаться занять устройство и свободный слот портов. */
+    private static Held tryLease(Path dir, String udid, LocalConfig cfg) {
+        FileLock deviceLock = FileLocks.tryLock(dir.resolve("device-" + udid.replaceAll("[^A-Za-z0-9._-]", "_") + ".lock"));
+        if (deviceLock == null) return null;
+
+        for (int slot = 0; slot < MAX_SLOTS; slot++) {
+            FileLock slotLock = FileLocks.tryLock(dir.resolve("slot-" + slot + ".lock"));
+            if (slotLock == null) continue;
+            stamp(deviceLock, "udid=" + udid + " slot=" + slot);
+            stamp(slotLock, "udid=" + udid);
+            DeviceLease lease = new DeviceLease(udid, slot,
+                    cfg.getSystemPortBase() + slot,
+                    cfg.getMjpegServerPortBase() + slot);
+            return new Held(lease, List.of(deviceLock, slotLock));
+        }
+
+        log.warn("[DeviceLease] Нет свободных слотов портов (max {}), udid={} пропущен", MAX_SLOTS, udid);
+        unlock(new Held(null, List.of(deviceLock)));
+        return null;
+    }
+
+    /** Записать в lock-файл владельца (для диагностики «кто держит эмулятор»). */
+    private static void stamp(FileLock lock, String what) {
+        String text = what + " pid=" + ProcessHandle.current().pid()
+                + " thread=" + Thread.currentThread().getName() + " at=" + Instant.now() + "\n";
+        try {
+            lock.channel().truncate(0);
+            lock.channel().write(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)), 0);
+        } catch (IOException e) {
+            log.debug("[DeviceLease] Не удалось записать владельца в lock-файл: {}", e.getMessage());
+        }
+    }
+
+    private static void unlock(Held held) {
+        for (FileLock lock : held.locks()) FileLocks.release(lock);
+    }
+
+    private static void releaseAll() {
+        for (Held held : ALL) unlock(held);
+        ALL.clear();
+    }
+}
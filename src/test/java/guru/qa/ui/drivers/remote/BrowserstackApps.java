@@ -0,0 +1,277 @@
+package guru.qa.ui.drivers.remote;
+
+import guru.qa.ui.config.AuthConfig;
+import guru.qa.ui.drivers.apk.ApkCache;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Загрузка APK в BrowserStack App Automate без повторов: один upload на версию APK.
+ *
+ * <p><b>Как это работает:</b>
+ * <ul>
+ *   <li>ключ — SHA-256 APK; в BrowserStack он уходит как {@code custom_id} ({@code wiki-<sha>});</li>
+ *   <li>в JVM — память {@code sha → bs://}, проверенная один раз; между прогонами — файл
+ *       {@code bs.app.cacheFile} ({@code sha=bs://...});</li>
+ *   <li>закешированный id используется без запросов к API и проверяется лениво: если старт сессии упал с ошибкой
+ *       приложения (BrowserStack хранит загрузки 30 дней), {@link #forgetIfStale} выкидывает его из кеша, и следующий
+ *       {@link #resolve} ищет версию через {@code GET recent_apps/<custom_id>}, а не найдя — загружает заново;</li>
+ *   <li>временная ошибка {@code recent_apps} (сеть, 5xx, 429) — повтор, затем ошибка; повторной загрузки нет;</li>
+ *   <li>multipart-тело собирается потоком из файла ({@code BodyPublishers.ofFile}) — APK не читается в память;</li>
+ *   <li>файловая блокировка рядом с кешем: параллельные форки не грузят одну и ту же версию одновременно.</li>
+ * </ul>
+ */
+@Slf4j
+public final class BrowserstackApps {
+
+    private static final String API = "https://api-cloud.browserstack.com/app-automate";
+    private static final Pattern APP_URL = Pattern.compile("\"app_url\"\\s*:\\s*\"(bs://[^\"]+)\"");
+    private static final Pattern APP_ERROR = Pattern.compile(
+            "browserstack_invalid_app|browserstack_app_|app_url|invalid app|app (?:is )?(?:not found|expired|unavailable)");
+    private static final int LOOKUP_ATTEMPTS = 3;
+    private static final Map<String, String> VERIFIED = new ConcurrentHashMap<>();
+
+    /** {@code bs://} из файла кеша, ещё не подтверждённые стартом сессии → файл кеша. */
+    private static final Map<String, Path> FROM_CACHE = new ConcurrentHashMap<>();
+    private static final Object JVM_LOCK = new Object();
+
+    private BrowserstackApps() {
+    }
+
+    /**
+     * Вернуть {@code bs://} для локального APK, загрузив его только если такой версии ещё нет в BrowserStack.
+     *
+     * @param apk       путь к APK
+     * @param auth      учётные данные API
+     * @param cacheFile файл кеша {@code sha → bs://}
+     * @return {@code bs://<app-id>}
+     * @throws IllegalStateException при сетевых/IO-ошибках или неожиданном ответе API
+     */
+    public static String resolve(Path apk, AuthConfig auth, Path cacheFile) {
+        String sha;
+        try {
+            sha = ApkCache.sha256(apk);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot hash APK: " + apk, e);
+        }
+        String known = VERIFIED.get(sha);
+        if (known != null) return known;
+
+        synchronized (JVM_LOCK) {
+            known = VERIFIED.get(sha);
+            if (known != null) return known;
+            try {
+                Path parent = cacheFile.toAbsolutePath().getParent();
+                if (parent != null) Files.createDirectories(parent);
+                try (FileChannel ch = FileChannel.open(cacheFile.resolveSibling(cacheFile.getFileName() + ".lock"),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                     FileLock ignored = ch.lock()) {
+                    String appUrl = resolveLocked(apk, sha, auth, cacheFile);
+                    VERIFIED.put(sha, appUrl);
+                    return appUrl;
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to resolve BrowserStack app for " + apk + ": " + e, e);
+            }
+        }
+    }
+
+    /**
+     * Ленивая проверка закешированного {@code bs://}: если сессия не стартовала из-за приложения, а id взят из файла
+     * кеша без проверки — выкинуть его (из памяти и файла), чтобы следующий {@link #resolve} нашёл или загрузил APK.
+     *
+     * @param appUrl {@code bs://}, с которым стартовала сессия
+     * @param error  ошибка старта сессии
+     * @return {@code true} — id выкинут, имеет смысл заново вызвать {@link #resolve} и повторить старт
+     */
+    public static boolean forgetIfStale(String appUrl, Throwable error) {
+        Path cacheFile = FROM_CACHE.get(appUrl);
+        if (cacheFile == null || !isAppError(error)) return false;
+        synchronized (JVM_LOCK) {
+            FROM_CACHE.remove(appUrl);
+            VERIFIED.values().removeIf(appUrl::equals);
+            try (FileChannel ch = FileChannel.open(cacheFile.resolveSibling(cacheFile.getFileName() + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = ch.lock()) {
+                Properties cache = load(cacheFile);
+                if (cache.values().removeIf(appUrl::equals)) store(cache, cacheFile);
+            } catch (IOException e) {
+                log.warn("BrowserStack app cache {} not updated: {}", cacheFile, e.toString());
+            }
+        }
+        log.info("Cached BrowserStack app {} rejected by the session ({}) — resolving again", appUrl, error.toString());
+        return true;
+    }
+
+    /** Сессия отклонена из-за приложения (удалено/просрочено/неверный {@code app}). */
+    static boolean isAppError(Throwable t) {
+        StringBuilder sb = new StringBuilder();
+        for (Throwable c = t; c != null; c = c.getCause()) {
+            if (c.getMessage() != null) sb.append(c.getMessage()).append('\n');
+        }
+        return APP_ERROR.matcher(sb.toString().toLowerCase(Locale.ROOT)).find();
+    }
+
+    /* ============================ internals ============================ */
+
+    private static String resolveLocked(Path apk, String sha, AuthConfig auth, Path cacheFile) throws IOException {
+        String customId = "wiki-" + sha.substring(0, 32);
+        Properties cache = load(cacheFile);
+
+        String cached = cache.getProperty(sha);
+        if (cached != null) {
+            FROM_CACHE.put(cached, cacheFile);
+            log.info("APK {} taken from the BrowserStack app cache (custom_id={}): {}", apk.getFileName(), customId, cached);
+            return cached;
+        }
+
+        String alive = lookup(customId, auth);
+        if (alive != null) {
+            cache.setProperty(sha, alive);
+            store(cache, cacheFile);
+            log.info("APK {} already on BrowserStack (custom_id={}): {}", apk.getFileName(), customId, alive);
+            return alive;
+        }
+
+        String uploaded = upload(apk, customId, auth);
+        cache.setProperty(sha, uploaded);
+        store(cache, cacheFile);
+        return uploaded;
+    }
+
+    /**
+     * Дешёвая проверка: есть ли в BrowserStack приложение с таким {@code custom_id}.
+     *
+     * @return самый свежий {@code bs://} или {@code null} — такого приложения нет
+     * @throws IOException API не ответил (сеть, 5xx, 429) за {@link #LOOKUP_ATTEMPTS} попыток — есть ли приложение,
+     *                     неизвестно, загружать заново нельзя
+     */
+    private static String lookup(String customId, AuthConfig auth) throws IOException {
+        HttpRequest req = HttpRequest.newBuilder(URI.create(API + "/recent_apps/" + customId))
+                .timeout(Duration.ofSeconds(20))
+                .header("Authorization", basic(auth))
+                .GET()
+                .build();
+        IOException last = null;
+        for (int attempt = 1; attempt <= LOOKUP_ATTEMPTS; attempt++) {
+            try {
+                HttpResponse<String> resp = HttpClient.newHttpClient().send(req, HttpResponse.BodyHandlers.ofString());
+                int code = resp.statusCode();
+                if (code / 100 == 2 || code == 404) {
+                    Matcher m = APP_URL.matcher(resp.body());
+                    return m.find() ? m.group(1) : null;
+                }
+                last = new IOException("HTTP " + code + ": " + resp.body());
+                if (code / 100 == 4 && code != 429) throw last;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while looking up " + customId, e);
+            } catch (IOException e) {
+                if (e == last) throw e;
+                last = e;
+            }
+            log.warn("BrowserStack recent_apps lookup failed (attempt {}/{}): {}", attempt, LOOKUP_ATTEMPTS, last.toString());
+            if (attempt < LOOKUP_ATTEMPTS) sleep(Duration.ofSeconds(2L * attempt));
+        }
+        throw last;
+    }
+
+    /** Потоковая multipart-загрузка: заголовок части → файл → закрывающий boundary. */
+    private static String upload(Path apk, String customId, AuthConfig auth) throws IOException {
+        log.info("Uploading APK to BrowserStack: {} ({} bytes, custom_id={})", apk, Files.size(apk), customId);
+        String boundary = "----BSFormBoundary" + UUID.randomUUID();
+
+        String head = "--" + boundary + "\r\n" +
+                "Content-Disposition: form-data; name=\"custom_id\"\r\n\r\n" +
+                customId + "\r\n" +
+                "--" + boundary + "\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"" + apk.getFileName() + "\"\r\n" +
+                "Content-Type: application/octet-stream\r\n\r\n";
+        String tail = "\r\n--" + boundary + "--\r\n";
+
+        HttpRequest req = HttpRequest.newBuilder(URI.create(API + "/upload"))
+                .timeout(Duration.ofMinutes(5))
+                .header("Authorization", basic(auth))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.concat(
+                        HttpRequest.BodyPublishers.ofByteArray(head.getBytes(StandardCharsets.UTF_8)),
+                        HttpRequest.BodyPublishers.ofFile(apk),
+                        HttpRequest.BodyPublishers.ofByteArray(tail.getBytes(StandardCharsets.UTF_8))))
+                .build();
+
+        long started = System.nanoTime();
+        HttpResponse<String> resp;
+        try {
+            resp = HttpClient.newHttpClient().send(req, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while uploading " + apk, e);
+        }
+        if (resp.statusCode() / 100 != 2) {
+            throw new IllegalStateException("BrowserStack upload failed. HTTP " + resp.statusCode() + " Body: " + resp.body());
+        }
+        Matcher m = APP_URL.matcher(resp.body());
+        if (!m.find()) {
+            throw new IllegalStateException("Upload ok but 'app_url' not found. Response: " + resp.body());
+        }
+        log.info("Uploaded to BrowserStack in {} ms: {}", (System.nanoTime() - started) / 1_000_000, m.group(1));
+        return m.group(1);
+    }
+
+    private static Properties load(Path file) {
+        Properties p = new Properties();
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                p.load(in);
+            } catch (IOException e) {
+                log.warn("BrowserStack app cache {} is unreadable: {}", file, e.toString());
+            }
+        }
+        return p;
+    }
+
+    private static void store(Properties p, Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".part");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            p.store(out, "APK sha256 -> BrowserStack app_url");
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void sleep(Duration d) throws IOException {
+        try {
+            Thread.sleep(d.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+
+    private static String basic(AuthConfig auth) {
+        return "Basic " + Base64.getEncoder().encodeToString(
+                (auth.getUserName() + ":" + auth.getKey()).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,17 @@
+package guru.qa.ui.drivers.remote;
+
+/**
+ * Снимок загрузки тарифа BrowserStack App Automate ({@code plan.json}).
+ *
+ * @param running          сколько параллельных сессий сейчас идёт (по всему аккаунту)
+ * @param maxAllowed       лимит параллельных сессий тарифа
+ * @param queued           сколько сессий стоит в очереди BrowserStack
+ * @param queuedMaxAllowed размер очереди тарифа
+ */
+public record PlanUsage(int running, int maxAllowed, int queued, int queuedMaxAllowed) {
+
+    /** Свободных параллельных слотов по данным тарифа (не меньше нуля). */
+    public int free() {
+        return Math.max(0, maxAllowed - running);
+    }
+}
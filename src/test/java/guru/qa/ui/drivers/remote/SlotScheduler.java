@@ -0,0 +1,269 @@
+package guru.qa.ui.drivers.remote;
+
+import guru.qa.ui.config.RemoteConfig;
+import guru.qa.ui.helpers.Browserstack;
+import guru.qa.ui.utils.FileLocks;
+import io.qameta.allure.Allure;
+import lombok.extern.slf4j.Slf4j;
+import org.aeonbits.owner.ConfigFactory;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WrapsDriver;
+
+import java.io.IOException;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Планировщик параллельных сессий BrowserStack: не открывает больше сессий, чем позволяет тариф.
+ *
+ * <p><b>Как это работает:</b>
+ * <ul>
+ *   <li>Слот — файловая блокировка {@code slot-<n>.lock} в {@code bs.slot.dir}: межпроцессный семафор
+ *       на все Gradle-форки прогона. Число слотов — {@code bs.parallel.max} или лимит тарифа из plan API;</li>
+ *   <li>Перед захватом слота сверяемся с тарифом ({@code bs.plan.source=api|stub}, кеш 5 с): если квоту выбрали
+ *       другие прогоны аккаунта — ждём, а не уходим в очередь BrowserStack;</li>
+ *   <li>Ошибки очереди ({@code BROWSERSTACK_QUEUE_SIZE_EXCEEDED} и т.п.) — AIMD: лимит форка делится пополам,
+ *       старт повторяется с экспоненциальной паузой; каждая успешная сессия возвращает лимиту +1. Лимит форка —
+ *       сколько слотов форк держит одновременно, а не диапазон номеров: свободный слот ищется среди всех слотов тарифа,
+ *       иначе форк с лимитом 1 ждал бы только {@code slot-0}, пока остальные свободны;</li>
+ *   <li>Слот освобождается в {@link SlottedRemoteWebDriver#quit()}; при падении форка блокировки снимает ОС.</li>
+ * </ul>
+ *
+ * <p>Время ожидания слота попадает в Allure-отчёт теста ({@link #reportWait(WebDriver)}).</p>
+ */
+@Slf4j
+public final class SlotScheduler {
+
+    private static final Duration PLAN_CACHE_TTL = Duration.ofSeconds(5);
+    private static final Duration POLL_MIN = Duration.ofSeconds(2);
+    private static final Duration POLL_MAX = Duration.ofSeconds(30);
+    private static final Duration QUEUE_BACKOFF_BASE = Duration.ofSeconds(5);
+    private static final Duration QUEUE_BACKOFF_MAX = Duration.ofMinutes(2);
+
+    private static final Object PLAN_LOCK = new Object();
+    private static PlanUsage cachedPlan;
+    private static long cachedPlanAtNanos;
+    private static boolean planEverRead;
+
+    /** Лимит форка после AIMD-коррекции; {@code -1} — ещё не было ни ошибок, ни сессий. */
+    private static final AtomicInteger EFFECTIVE_LIMIT = new AtomicInteger(-1);
+
+    /** Сколько слотов форк держит сейчас. */
+    private static final AtomicInteger HELD = new AtomicInteger();
+
+    /** Занятый слот параллельной сессии. Освобождение идемпотентно. */
+    public static final class Slot {
+        private final int index;
+        private final FileLock lock;
+        private final long waitMs;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Slot(int index, FileLock lock, long waitMs) {
+            this.index = index;
+            this.lock = lock;
+            this.waitMs = waitMs;
+        }
+
+        /** Номер слота (0..N-1). */
+        public int index() {
+            return index;
+        }
+
+        /** Сколько ждали этот слот, мс. */
+        public long waitMs() {
+            return waitMs;
+        }
+
+        /** Вернуть слот (без эффекта при повторном вызове). */
+        public void release() {
+            if (!released.compareAndSet(false, true)) return;
+            FileLocks.release(lock);
+            HELD.decrementAndGet();
+            log.debug("[BS slots] Слот {} освобождён", index);
+        }
+    }
+
+    private SlotScheduler() {
+    }
+
+    private static RemoteConfig cfg() {
+        return ConfigFactory.create(RemoteConfig.class, System.getProperties());
+    }
+
+    /**
+     * Занять слот параллельной сессии (блокирует до освобождения или {@code bs.slot.timeout}).
+     *
+     * @return занятый слот
+     * @throws IllegalStateException если слот не освободился за отведённое время
+     */
+    public static Slot acquire() {
+        RemoteConfig cfg = cfg();
+        Path dir = Path.of(cfg.getSlotDir());
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create BrowserStack slot dir: " + dir.toAbsolutePath(), e);
+        }
+
+        Duration timeout = Duration.ofSeconds(cfg.getSlotTimeoutSec());
+        long started = System.nanoTime();
+        long deadline = started + timeout.toNanos();
+        Duration poll = POLL_MIN;
+        boolean announced = false;
+
+        while (true) {
+            PlanUsage plan = plan(cfg);
+            int slots = slots(cfg, plan);
+            int limit = forkLimit(slots);
+            if ((plan == null || plan.free() > 0) && HELD.get() < limit) {
+                for (int i = 0; i < slots; i++) {
+                    FileLock lock = FileLocks.tryLock(dir.resolve("slot-" + i + ".lock"));
+                    if (lock == null) continue;
+                    HELD.incrementAndGet();
+                    long waitMs = (System.nanoTime() - started) / 1_000_000;
+                    log.info("[BS slots] Занят слот {}/{} (лимит форка {}, ожидание {} мс{})", i + 1, slots, limit, waitMs,
+                            plan == null ? "" : ", тариф: " + plan.running() + "/" + plan.maxAllowed());
+                    return new Slot(i, lock, waitMs);
+                }
+            }
+
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("No free BrowserStack slot within " + timeout.toSeconds() + " s"
+                        + " (slots=" + slots + ", fork limit=" + limit + ", held=" + HELD.get()
+                        + ", plan=" + plan + ", lock dir: " + dir.toAbsolutePath() + ")");
+            }
+            if (!announced) {
+                log.info("[BS slots] Свободного слота нет (слотов {}, лимит форка {}, занято форком {}, тариф: {}), ждём",
+                        slots, limit, HELD.get(), plan);
+                announced = true;
+            }
+            FileLocks.sleep(poll, "a BrowserStack slot");
+            poll = Duration.ofMillis(Math.min((long) (poll.toMillis() * 1.5), POLL_MAX.toMillis()));
+        }
+    }
+
+    /**
+     * Распознать ошибку очереди/лимита параллельных сессий BrowserStack.
+     *
+     * @param t исключение старта сессии
+     * @return {@code true}, если повтор после паузы имеет смысл
+     */
+    public static boolean isQueueError(Throwable t) {
+        StringBuilder sb = new StringBuilder();
+        for (Throwable c = t; c != null; c = c.getCause()) {
+            if (c.getMessage() != null) sb.append(c.getMessage()).append('\n');
+        }
+        String msg = sb.toString().toLowerCase(Locale.ROOT);
+        return msg.contains("browserstack_queue_size_exceeded")
+                || msg.contains("browserstack_all_parallels_in_use")
+                || msg.contains("all parallel tests are currently in use")
+                || msg.contains("queue size");
+    }
+
+    /** Сколько раз повторять старт сессии при ошибках очереди. */
+    public static int maxQueueRetries() {
+        return cfg().getQueueRetries();
+    }
+
+    /**
+     * Ошибка очереди: уменьшить лимит форка вдвое и выждать экспоненциальную паузу с джиттером.
+     *
+     * @param attempt номер повтора (1..N)
+     */
+    public static void onQueueError(int attempt) {
+        int slots = slots(cfg(), cachedPlan);
+        int reduced = EFFECTIVE_LIMIT.updateAndGet(cur -> decreased(cur, slots));
+        long base = Math.min(QUEUE_BACKOFF_BASE.toMillis() << Math.min(attempt - 1, 10), QUEUE_BACKOFF_MAX.toMillis());
+        long pause = base + ThreadLocalRandom.current().nextLong(base / 5 + 1);
+        log.warn("[BS slots] Очередь BrowserStack переполнена (попытка {}): лимит форка → {}, пауза {} мс",
+                attempt, reduced, pause);
+        invalidatePlan();
+        FileLocks.sleep(Duration.ofMillis(pause), "a BrowserStack slot");
+    }
+
+    /** Сессия стартовала: лимит форка растёт на 1 (до лимита тарифа/конфига). */
+    public static void onSessionStarted() {
+        EFFECTIVE_LIMIT.getAndUpdate(SlotScheduler::increased);
+    }
+
+    /**
+     * Записать время ожидания слота в текущий тест Allure (параметр + шаг).
+     *
+     * @param driver драйвер теста; для драйверов без слота — без эффекта
+     */
+    public static void reportWait(WebDriver driver) {
+        WebDriver raw = driver;
+        while (raw instanceof WrapsDriver wraps && !(raw instanceof SlottedRemoteWebDriver)) {
+            raw = wraps.getWrappedDriver();
+        }
+        if (!(raw instanceof SlottedRemoteWebDriver slotted)) return;
+        long ms = slotted.slotWaitMs();
+        Allure.parameter("BrowserStack: ожидание слота, мс", ms);
+        Allure.step("Ожидание слота BrowserStack: " + ms + " мс");
+    }
+
+    /* ============================ internals ============================ */
+
+    /** Число слотов (общее для всех форков): конфиг → тариф → 1. */
+    private static int slots(RemoteConfig cfg, PlanUsage plan) {
+        return cfg.getParallelMax() > 0 ? cfg.getParallelMax()
+                : plan != null && plan.maxAllowed() > 0 ? plan.maxAllowed()
+                : 1;
+    }
+
+    /** Сколько слотов форк может держать одновременно: AIMD-лимит, не больше числа слотов. */
+    private static int forkLimit(int slots) {
+        int effective = EFFECTIVE_LIMIT.get();
+        if (effective > slots) EFFECTIVE_LIMIT.compareAndSet(effective, slots);
+        return clamped(effective, slots);
+    }
+
+    /** AIMD, уменьшение: половина текущего лимита ({@code -1} — от числа слотов), не меньше 1. */
+    static int decreased(int current, int slots) {
+        return Math.max(1, (current < 0 ? slots : current) / 2);
+    }
+
+    /** AIMD, рост: +1 после успешной сессии (пока лимит не снижался — без изменений). */
+    static int increased(int current) {
+        return current < 0 ? current : current + 1;
+    }
+
+    /** Действующий лимит форка: AIMD-значение, ограниченное числом слотов ({@code -1} — все слоты). */
+    static int clamped(int effective, int slots) {
+        return effective < 0 ? slots : Math.min(effective, slots);
+    }
+
+    /** Загрузка тарифа с кешем {@link #PLAN_CACHE_TTL}; {@code null} — неизвестна (API недоступен). */
+    private static PlanUsage plan(RemoteConfig cfg) {
+        if ("stub".equalsIgnoreCase(cfg.getPlanSource().trim())) {
+            return new PlanUsage(0, cfg.getPlanStubMax(), 0, 0);
+        }
+        synchronized (PLAN_LOCK) {
+            if (planEverRead && System.nanoTime() - cachedPlanAtNanos < PLAN_CACHE_TTL.toNanos()) return cachedPlan;
+            try {
+                cachedPlan = Browserstack.planUsage();
+            } catch (Throwable e) {
+                if (!planEverRead || cachedPlan != null) {
+                    log.warn("[BS slots] plan API недоступен ({}), лимит — bs.parallel.max или 1", e.toString());
+                }
+                cachedPlan = null;
+            }
+            planEverRead = true;
+            cachedPlanAtNanos = System.nanoTime();
+            return cachedPlan;
+        }
+    }
+
+    private static void invalidatePlan() {
+        synchronized (PLAN_LOCK) {
+            cachedPlanAtNanos = 0L;
+            planEverRead = false;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package guru.qa.ui.drivers.remote;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * AIMD-лимит слотов форка {@link SlotScheduler} (без BrowserStack).
+ */
+@Tag("unit")
+@DisplayName("SlotScheduler: AIMD-лимит слотов форка")
+class SlotSchedulerTest {
+
+    @Test
+    @DisplayName("Уменьшение: половина лимита (без лимита — половина слотов), не меньше 1")
+    void decreaseHalvesLimit() {
+        assertThat(SlotScheduler.decreased(-1, 8)).isEqualTo(4);
+        assertThat(SlotScheduler.decreased(4, 8)).isEqualTo(2);
+        assertThat(SlotScheduler.decreased(3, 8)).isEqualTo(1);
+        assertThat(SlotScheduler.decreased(1, 8)).isEqualTo(1);
+        assertThat(SlotScheduler.decreased(-1, 1)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Рост: +1 после успешной сессии, пока лимит не снижался — без изменений")
+    void increaseAddsOne() {
+        assertThat(SlotScheduler.increased(-1)).isEqualTo(-1);
+        assertThat(SlotScheduler.increased(2)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Действующий лимит не больше числа слотов")
+    void clampedBySlots() {
+        assertThat(SlotScheduler.clamped(-1, 5)).isEqualTo(5);
+        assertThat(SlotScheduler.clamped(7, 5)).isEqualTo(5);
+        assertThat(SlotScheduler.clamped(2, 5)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Ошибка очереди, затем успешные сессии: лимит падает вдвое и растёт по одному до числа слотов")
+    void recoversAfterQueueError() {
+        int slots = 6;
+        int limit = SlotScheduler.decreased(-1, slots);
+        assertThat(SlotScheduler.clamped(limit, slots)).isEqualTo(3);
+
+        for (int i = 0; i < 5; i++) limit = SlotScheduler.increased(limit);
+        assertThat(SlotScheduler.clamped(limit, slots)).isEqualTo(slots);
+    }
+}
@@ -0,0 +1,42 @@
+package guru.qa.ui.drivers.remote;
+
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.net.URL;
+
+/**
+ * {@link RemoteWebDriver}, удерживающий слот {@link SlotScheduler} на время жизни сессии.
+ *
+ * <p>Слот освобождается в {@link #quit()} — даже если удалённая сторона уже закрыла сессию.</p>
+ */
+public class SlottedRemoteWebDriver extends RemoteWebDriver {
+
+    private final SlotScheduler.Slot slot;
+
+    /**
+     * Стартует сессию; вызывающий код отвечает за освобождение слота, если конструктор бросил исключение.
+     *
+     * @param hubUrl адрес хаба
+     * @param caps   капабилити сессии
+     * @param slot   занятый слот
+     */
+    public SlottedRemoteWebDriver(URL hubUrl, Capabilities caps, SlotScheduler.Slot slot) {
+        super(hubUrl, caps);
+        this.slot = slot;
+    }
+
+    /** Сколько сессия ждала свободный слот перед стартом, мс. */
+    public long slotWaitMs() {
+        return slot.waitMs();
+    }
+
+    @Override
+    public void quit() {
+        try {
+            super.quit();
+        } finally {
+            slot.release();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package guru.qa.ui.drivers.session;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Отказ тестового класса от «тёплой» сессии ({@code -Dsession.reuse=true}).
+ *
+ * <p>Классы с этой аннотацией получают новую Appium-сессию на каждый тест — как без
+ * {@code session.reuse}. Нужна там, где одного {@code clearApp} недостаточно
+ * (например, проверяется установка/первый запуск приложения).</p>
+ *
+ * <p><b>EN:</b> Opt-out of warm session reuse: every test in the class gets a fresh session.</p>
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ColdSession {
+}
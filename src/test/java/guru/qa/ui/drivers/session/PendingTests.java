@@ -0,0 +1,85 @@
+package guru.qa.ui.drivers.session;
+
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JUnit Platform listener: сколько тестов форка ещё не начато — {@link SessionPipeline} не заготавливает сессию
+ * после последнего теста (иначе она держала бы платный слот BrowserStack до shutdown-хука).
+ *
+ * <p>Тесты считаются по тест-плану; параметризованные / фабричные методы регистрируют вызовы по ходу выполнения,
+ * поэтому пока такой метод не завершён, число оставшихся тестов неизвестно ({@link #hasMore()} — {@code true}).</p>
+ *
+ * <p>Подключается через {@code META-INF/services/org.junit.platform.launcher.TestExecutionListener}.</p>
+ */
+public class PendingTests implements TestExecutionListener {
+
+    /** Тесты, которые ещё не начались. */
+    private static final Set<String> NOT_STARTED = ConcurrentHashMap.newKeySet();
+
+    /** Незавершённые методы-контейнеры (шаблоны/фабрики): их вызовы ещё могут появиться. */
+    private static final Set<String> OPEN_TEMPLATES = ConcurrentHashMap.newKeySet();
+
+    private static volatile boolean planKnown;
+
+    /**
+     * Есть ли в форке тесты, которые ещё не начались.
+     *
+     * @return {@code true}, если есть или неизвестно (план не получен, открыт параметризованный метод)
+     */
+    public static boolean hasMore() {
+        return !planKnown || !NOT_STARTED.isEmpty() || !OPEN_TEMPLATES.isEmpty();
+    }
+
+    @Override
+    public void testPlanExecutionStarted(TestPlan testPlan) {
+        NOT_STARTED.clear();
+        OPEN_TEMPLATES.clear();
+        for (TestIdentifier root : testPlan.getRoots()) {
+            for (TestIdentifier id : testPlan.getDescendants(root)) {
+                if (id.isTest()) {
+                    NOT_STARTED.add(id.getUniqueId());
+                } else if (id.getSource().filter(MethodSource.class::isInstance).isPresent()) {
+                    OPEN_TEMPLATES.add(id.getUniqueId());
+                }
+            }
+        }
+        planKnown = true;
+    }
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        NOT_STARTED.clear();
+        OPEN_TEMPLATES.clear();
+    }
+
+    @Override
+    public void executionStarted(TestIdentifier id) {
+        NOT_STARTED.remove(id.getUniqueId());
+    }
+
+    @Override
+    public void executionSkipped(TestIdentifier id, String reason) {
+        done(id);
+    }
+
+    @Override
+    public void executionFinished(TestIdentifier id, TestExecutionResult result) {
+        done(id);
+    }
+
+    /* ===== internals ===== */
+
+    /** Узел завершён или пропущен: вместе с ним — все его не начатые потомки. */
+    private static void done(TestIdentifier id) {
+        String uid = id.getUniqueId();
+        NOT_STARTED.removeIf(t -> t.startsWith(uid));
+        OPEN_TEMPLATES.removeIf(t -> t.startsWith(uid));
+    }
+}
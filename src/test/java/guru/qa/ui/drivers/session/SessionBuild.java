@@ -0,0 +1,50 @@
+package guru.qa.ui.drivers.session;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WrapsDriver;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Идентичность сборки приложения, с которой запущена сессия: {@code <package>:<versionCode>} локального APK
+ * или {@code bs://}-id на BrowserStack.
+ *
+ * <p>Провайдер драйвера привязывает её к созданному драйверу ({@link #bind(WebDriver, String)}), потребители
+ * (профили UI-индексов, {@code FeedIndex}) читают по драйверу текущего теста — у параллельных потоков и заготовленных
+ * в фоне сессий ({@link SessionPipeline}) сборки не смешиваются.</p>
+ */
+public final class SessionBuild {
+
+    private static final Map<WebDriver, String> BY_DRIVER = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private SessionBuild() {
+    }
+
+    /**
+     * Привязать сборку к драйверу.
+     *
+     * @param driver созданный драйвер
+     * @param build  идентичность сборки ({@code null}/пусто — неизвестна, ничего не привязывается)
+     * @return тот же драйвер (для {@code return SessionBuild.bind(...)})
+     */
+    public static <D extends WebDriver> D bind(D driver, String build) {
+        if (build != null && !build.isBlank()) BY_DRIVER.put(driver, build);
+        return driver;
+    }
+
+    /**
+     * Сборка, с которой запущен драйвер.
+     *
+     * @param driver драйвер (может быть обёрнут Selenide)
+     * @return идентичность сборки или пустая строка, если провайдер её не знает
+     */
+    public static String of(WebDriver driver) {
+        WebDriver raw = driver;
+        while (!BY_DRIVER.containsKey(raw) && raw instanceof WrapsDriver wraps) {
+            raw = wraps.getWrappedDriver();
+        }
+        return BY_DRIVER.getOrDefault(raw, "");
+    }
+}
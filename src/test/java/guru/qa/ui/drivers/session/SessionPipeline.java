@@ -0,0 +1,194 @@
+package guru.qa.ui.drivers.session;
+
+import com.codeborne.selenide.Configuration;
+import com.codeborne.selenide.WebDriverProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Конвейер сессий: пока идёт текущий тест, в фоне создаётся сессия для следующего.
+ *
+ * <p><b>Включение:</b> {@code -Dsession.prewarm=true} (только {@code deviceHost=remote}).
+ * Локально UiAutomator2 держит одну сессию на устройство — вторая «заготовка» убила бы текущую,
+ * поэтому для local флаг игнорируется (там время старта экономит {@link WarmSession}).</p>
+ *
+ * <p><b>Ограничения:</b>
+ * <ul>
+ *   <li>{@code session.prewarm.slots} (по умолчанию 1) — сколько заготовок одновременно держит JVM-форк;
+ *       заготовка занимает параллельный слот тарифа BrowserStack, пока её не заберёт тест;</li>
+ *   <li>{@code session.prewarm.maxIdleSec} (по умолчанию 80) — заготовка старше этого значения не используется
+ *       (BrowserStack закрывает простаивающие сессии по {@code idleTimeout}, 90 с по умолчанию);</li>
+ *   <li>после последнего теста форка заготовка не создаётся ({@link PendingTests}) — иначе она занимала бы слот
+ *       тарифа до конца JVM;</li>
+ *   <li>перед выдачей заготовка проходит health-check ({@code window().getSize()}), иначе — обычный {@code open()}.</li>
+ * </ul>
+ *
+ * <p><b>EN:</b> Background pre-warming of the next driver session with a per-fork concurrency limit.</p>
+ */
+@Slf4j
+public final class SessionPipeline {
+
+    private static final Duration TAKE_TIMEOUT = Duration.ofMinutes(5);
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "session-prewarm-" + THREADS.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+    private static final Semaphore SLOTS = new Semaphore(intProp("session.prewarm.slots", 1));
+
+    private static final ThreadLocal<Future<Prewarmed>> NEXT = new ThreadLocal<>();
+    private static final Set<Future<Prewarmed>> PENDING = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SessionPipeline::discardAll, "session-prewarm-cleanup"));
+    }
+
+    /** Готовая заготовка и момент её готовности (для контроля простоя). */
+    private record Prewarmed(WebDriver driver, long readyAtNanos) {
+    }
+
+    private SessionPipeline() {
+    }
+
+    /**
+     * Включён ли конвейер: {@code session.prewarm=true} и удалённый запуск.
+     *
+     * @return {@code true}, если заготовки создаются
+     */
+    public static boolean isEnabled() {
+        if (!Boolean.parseBoolean(System.getProperty("session.prewarm", "false"))) return false;
+        return "remote".equalsIgnoreCase(System.getProperty("deviceHost", "local"));
+    }
+
+    /**
+     * Запустить в фоне создание сессии для следующего теста текущего потока.
+     * Без эффекта, если конвейер выключен, заготовка уже есть, тестов впереди нет или все слоты заняты.
+     */
+    public static void prewarmNext() {
+        if (!isEnabled() || NEXT.get() != null) return;
+        if (!PendingTests.hasMore()) {
+            log.debug("[Prewarm] Последний тест форка — заготовка не нужна");
+            return;
+        }
+        if (!SLOTS.tryAcquire()) {
+            log.debug("[Prewarm] Все слоты заняты — следующая сессия создастся обычным путём");
+            return;
+        }
+        String providerClass = Configuration.browser;
+        Future<Prewarmed> future = EXECUTOR.submit(() -> {
+            long started = System.nanoTime();
+            try {
+                WebDriver driver = newProvider(providerClass).createDriver(null);
+                log.info("[Prewarm] Сессия готова за {} мс", (System.nanoTime() - started) / 1_000_000);
+                return new Prewarmed(driver, System.nanoTime());
+            } catch (RuntimeException e) {
+                SLOTS.release();
+                log.warn("[Prewarm] Не удалось создать сессию: {}", e.toString());
+                throw e;
+            }
+        });
+        NEXT.set(future);
+        PENDING.add(future);
+    }
+
+    /**
+     * Забрать заготовленную сессию текущего потока (ждёт, если она ещё создаётся).
+     *
+     * @return рабочий драйвер или {@code null}, если заготовки нет / она устарела / не прошла health-check
+     */
+    public static WebDriver takePrewarmed() {
+        Future<Prewarmed> future = NEXT.get();
+        if (future == null) return null;
+        NEXT.remove();
+        PENDING.remove(future);
+
+        long waitStarted = System.nanoTime();
+        Prewarmed p;
+        try {
+            p = future.get(TAKE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            return null; // слот уже освобождён задачей, причина залогирована
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("[Prewarm] Заготовка не успела за {} с — создаём сессию обычным путём", TAKE_TIMEOUT.toSeconds());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        SLOTS.release();
+        long idleSec = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - p.readyAtNanos());
+        if (idleSec > intProp("session.prewarm.maxIdleSec", 80)) {
+            log.info("[Prewarm] Заготовка простаивала {} с — закрываем", idleSec);
+            quitQuietly(p.driver());
+            return null;
+        }
+        try {
+            Dimension size = p.driver().manage().window().getSize();
+            log.info("[Prewarm] Взята заготовка: ожидание {} мс, простой {} с, экран {}x{}",
+                    (System.nanoTime() - waitStarted) / 1_000_000, idleSec, size.getWidth(), size.getHeight());
+            return p.driver();
+        } catch (RuntimeException e) {
+            log.warn("[Prewarm] Заготовка не прошла health-check: {}", e.toString());
+            quitQuietly(p.driver());
+            return null;
+        }
+    }
+
+    /* ============================ internals ============================ */
+
+    private static WebDriverProvider newProvider(String className) {
+        try {
+            return (WebDriverProvider) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalStateException("Cannot instantiate WebDriverProvider: " + className, e);
+        }
+    }
+
+    /** Закрыть все невостребованные заготовки (конец форка). */
+    private static void discardAll() {
+        for (Future<Prewarmed> future : PENDING) {
+            if (!future.isDone()) {
+                future.cancel(true);
+                continue;
+            }
+            try {
+                quitQuietly(future.get().driver());
+            } catch (Exception ignored) {
+            }
+        }
+        PENDING.clear();
+    }
+
+    private static void quitQuietly(WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (RuntimeException e) {
+            log.debug("[Prewarm] quit() упал: {}", e.toString());
+        }
+    }
+
+    private static int intProp(String key, int def) {
+        try {
+            return Integer.parseInt(System.getProperty(key, String.valueOf(def)).trim());
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+}
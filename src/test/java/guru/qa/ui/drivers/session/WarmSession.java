@@ -0,0 +1,125 @@
+package guru.qa.ui.drivers.session;
+
+import com.codeborne.selenide.WebDriverRunner;
+import guru.qa.ui.config.LocalConfig;
+import io.appium.java_client.android.AndroidDriver;
+import io.appium.java_client.appmanagement.ApplicationState;
+import lombok.extern.slf4j.Slf4j;
+import org.aeonbits.owner.ConfigFactory;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * «Тёплая» сессия: один Appium-драйвер на класс/форк, изоляция тестов — сбросом данных приложения.
+ *
+ * <p><b>Включение:</b> {@code -Dsession.reuse=true} (только {@code deviceHost=local}); область —
+ * {@code -Dsession.reuse.scope=class|fork}. Класс может отказаться аннотацией {@link ColdSession}.</p>
+ *
+ * <p><b>Сброс между тестами:</b> {@code terminateApp} → {@code mobile: clearApp} → {@code activateApp},
+ * затем health-check: приложение должно выйти в {@link ApplicationState#RUNNING_IN_FOREGROUND}.
+ * Если сброс не удался — вызывающий код пересоздаёт сессию целиком.</p>
+ *
+ * <p><b>EN:</b> Keeps the driver alive across tests and isolates them via app data reset with health check.</p>
+ */
+@Slf4j
+public final class WarmSession {
+
+    /** Область жизни тёплой сессии. */
+    public enum Scope {
+        /** Сессия закрывается после последнего теста класса. */
+        CLASS,
+        /** Сессия живёт до конца JVM-форка. */
+        FORK
+    }
+
+    private static final Duration HEALTH_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration HEALTH_POLL = Duration.ofMillis(250);
+
+    private WarmSession() {
+    }
+
+    private static LocalConfig cfg() {
+        return ConfigFactory.create(LocalConfig.class, System.getProperties());
+    }
+
+    /**
+     * Включён ли режим тёплой сессии для тестового класса.
+     *
+     * @param testClass класс теста (может быть {@code null})
+     * @return {@code true} — local, {@code session.reuse=true} и класс без {@link ColdSession}
+     */
+    public static boolean isEnabledFor(Class<?> testClass) {
+        if (!"local".equalsIgnoreCase(System.getProperty("deviceHost", "local"))) return false;
+        if (!cfg().isSessionReuse()) return false;
+        return testClass == null || !testClass.isAnnotationPresent(ColdSession.class);
+    }
+
+    /**
+     * Текущая область жизни тёплой сессии.
+     *
+     * @return {@link Scope#CLASS} (по умолчанию) или {@link Scope#FORK}
+     */
+    public static Scope scope() {
+        String raw = cfg().getSessionReuseScope();
+        return "fork".equals(raw == null ? "" : raw.trim().toLowerCase(Locale.ROOT)) ? Scope.FORK : Scope.CLASS;
+    }
+
+    /**
+     * Сбросить приложение в активной сессии и проверить, что оно снова на переднем плане.
+     *
+     * @return {@code true} — сессия пригодна для следующего теста; {@code false} — нужна новая сессия
+     */
+    public static boolean reset() {
+        WebDriver webDriver = WebDriverRunner.getWebDriver();
+        if (!(webDriver instanceof AndroidDriver driver)) {
+            log.warn("[WarmSession] Драйвер {} не AndroidDriver — сброс невозможен",
+                    webDriver == null ? null : webDriver.getClass().getSimpleName());
+            return false;
+        }
+        // пакет из капабилити сессии: он мог быть выведен из манифеста APK, а не задан в конфиге
+        Object fromCaps = driver.getCapabilities().getCapability("appium:appPackage");
+        if (fromCaps == null) fromCaps = driver.getCapabilities().getCapability("appPackage");
+        String appId = fromCaps != null ? fromCaps.toString() : cfg().getAppPackage();
+        long started = System.nanoTime();
+        try {
+            driver.terminateApp(appId);
+            driver.executeScript("mobile: clearApp", Map.of("appId", appId));
+            driver.activateApp(appId);
+        } catch (RuntimeException e) {
+            log.warn("[WarmSession] Сброс '{}' не удался: {}", appId, e.toString());
+            return false;
+        }
+
+        boolean healthy = awaitForeground(driver, appId);
+        long ms = (System.nanoTime() - started) / 1_000_000;
+        if (healthy) {
+            log.info("[WarmSession] Приложение '{}' сброшено за {} мс", appId, ms);
+        } else {
+            log.warn("[WarmSession] '{}' не вышло на передний план за {} мс — нужна новая сессия", appId, ms);
+        }
+        return healthy;
+    }
+
+    /** Health-check: ждём {@link ApplicationState#RUNNING_IN_FOREGROUND} до {@link #HEALTH_TIMEOUT}. */
+    private static boolean awaitForeground(AndroidDriver driver, String appId) {
+        long deadline = System.nanoTime() + HEALTH_TIMEOUT.toNanos();
+        while (true) {
+            try {
+                if (driver.queryAppState(appId) == ApplicationState.RUNNING_IN_FOREGROUND) return true;
+            } catch (RuntimeException e) {
+                log.debug("[WarmSession] queryAppState упал: {}", e.toString());
+                return false;
+            }
+            if (System.nanoTime() > deadline) return false;
+            try {
+                Thread.sleep(HEALTH_POLL.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
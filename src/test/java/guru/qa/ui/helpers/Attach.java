@@ -1,10 +1,13 @@
 package guru.qa.ui.helpers;
 
+import io.qameta.allure.Allure;
 import io.qameta.allure.Attachment;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 
+import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 
 import static com.codeborne.selenide.WebDriverRunner.getWebDriver;
 
@@ -25,14 +28,21 @@ import static com.codeborne.selenide.WebDriverRunner.getWebDriver;
 public class Attach {
 
     /**
-     * Добавляет PNG-скриншот активного экрана в Allure.
+     * Добавляет скриншот активного экрана в Allure: кадр MJPEG-потока ({@link MjpegScreen}, JPEG, миллисекунды),
+     * если поток доступен, иначе — стандартный PNG-скриншот драйвера.
      *
      * @param attachName имя вложения в отчёте
-     * @return байты PNG-изображения
+     * @return байты изображения (JPEG или PNG)
      */
-    @Attachment(value = "{attachName}", type = "image/png")
     public static byte[] screenshotAs(String attachName) {
-        return ((TakesScreenshot) getWebDriver()).getScreenshotAs(OutputType.BYTES);
+        Optional<byte[]> frame = MjpegScreen.frame();
+        if (frame.isPresent()) {
+            Allure.addAttachment(attachName, "image/jpeg", new ByteArrayInputStream(frame.get()), ".jpg");
+            return frame.get();
+        }
+        byte[] png = ((TakesScreenshot) getWebDriver()).getScreenshotAs(OutputType.BYTES);
+        Allure.addAttachment(attachName, "image/png", new ByteArrayInputStream(png), ".png");
+        return png;
     }
 
     /**
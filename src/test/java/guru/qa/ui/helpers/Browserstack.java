@@ -1,6 +1,8 @@
 package guru.qa.ui.helpers;
 
 import guru.qa.ui.config.AuthConfig;
+import guru.qa.ui.drivers.remote.PlanUsage;
+import io.restassured.path.json.JsonPath;
 import org.aeonbits.owner.ConfigFactory;
 
 import static io.restassured.RestAssured.given;
@@ -9,7 +11,7 @@ import static java.lang.String.format;
 /**
  * Вспомогательный доступ к BrowserStack App Automate API.
  *
- * <p>Получает ссылку на видео сессии по её {@code sessionId}.
+ * <p>Получает ссылку на видео сессии по её {@code sessionId} и текущую загрузку тарифа (plan API).
  * Аутентификация — basic auth с учётными данными из {@link AuthConfig}.</p>
  */
 public class Browserstack {
@@ -34,4 +36,28 @@ public class Browserstack {
                 .statusCode(200)
                 .extract().path("automation_session.video_url");
     }
+
+    /**
+     * Текущая загрузка тарифа App Automate: сколько параллельных сессий идёт и сколько разрешено.
+     *
+     * @return снимок {@code plan.json}
+     * @throws AssertionError если HTTP-код ответа не 200
+     */
+    public static PlanUsage planUsage() {
+        AuthConfig auth = ConfigFactory.create(AuthConfig.class, System.getProperties());
+
+        JsonPath json = given()
+                .auth().basic(auth.getUserName(), auth.getKey())
+                .when()
+                .get("https://api-cloud.browserstack.com/app-automate/plan.json")
+                .then()
+                .statusCode(200)
+                .extract().jsonPath();
+
+        return new PlanUsage(
+                json.getInt("parallel_sessions_running"),
+                json.getInt("parallel_sessions_max_allowed"),
+                json.getInt("queued_sessions"),
+                json.getInt("queued_sessions_max_allowed"));
+    }
 }
@@ -0,0 +1,259 @@
+package guru.qa.ui.helpers;
+
+import com.codeborne.selenide.WebDriverRunner;
+import com.codeborne.selenide.logevents.LogEvent;
+import com.codeborne.selenide.logevents.LogEventListener;
+import io.appium.java_client.HasSettings;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Быстрые скриншоты из MJPEG-потока UiAutomator2 ({@code appium:mjpegServerPort}).
+ *
+ * <p><b>Зачем:</b> стандартный скриншот — полноразмерный PNG через команду драйвера (медленно, мегабайты на кадр).
+ * UiAutomator2 отдаёт экран MJPEG-потоком; фоновый поток читает его и держит последний кадр в памяти —
+ * взять кадр стоит миллисекунды.</p>
+ *
+ * <p><b>Настройки:</b> {@code ui.mjpeg.scale} — масштаб кадра в процентах (по умолчанию 50),
+ * {@code ui.mjpeg.quality} — качество JPEG (по умолчанию 50); применяются на устройстве через настройки
+ * UiAutomator2 ({@code mjpegScalingFactor}, {@code mjpegServerScreenshotQuality}), так что уменьшенный кадр
+ * не гоняется по сети. {@code -Dui.mjpeg=false} — всегда PNG.</p>
+ *
+ * <p><b>Когда недоступно:</b> сессия без {@code mjpegServerPort}, удалённый хост (BrowserStack) или Appium не на этой
+ * машине (порт пробрасывается {@code adb forward} только на localhost Appium-хоста) — {@link #frame()} пуст,
+ * {@link Attach#screenshotAs(String)} делает обычный PNG.</p>
+ */
+@Slf4j
+public final class MjpegScreen {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("ui.mjpeg", "true"));
+    private static final int SCALE = Integer.getInteger("ui.mjpeg.scale", 50);
+    private static final int QUALITY = Integer.getInteger("ui.mjpeg.quality", 50);
+
+    /** Кадр старше — не годится как «текущий экран», мс. */
+    private static final long MAX_FRAME_AGE_MS = 1000;
+
+    /** Ожидание первого кадра после подключения, мс. */
+    private static final long FIRST_FRAME_MS = 1500;
+
+    /** Поток без обращений дольше — закрывается, мс. */
+    private static final long IDLE_MS = 60_000;
+
+    private static final long RECONNECT_MS = 500;
+
+    private static final Map<String, Reader> READERS = new ConcurrentHashMap<>();
+    private static final Set<WebDriver> CONFIGURED = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private MjpegScreen() {
+    }
+
+    /**
+     * Можно ли брать кадры из потока для хоста запуска (локальный — да; {@code remote} — нет).
+     *
+     * @param deviceHost {@code local} / {@code remote}
+     * @return {@code true}, если MJPEG включён и хост локальный
+     */
+    public static boolean availableFor(String deviceHost) {
+        return ENABLED && !"remote".equalsIgnoreCase(deviceHost);
+    }
+
+    /**
+     * Текущий кадр экрана (JPEG) из MJPEG-потока текущей сессии.
+     *
+     * @return JPEG-байты; пусто, если поток недоступен или кадр устарел
+     */
+    public static Optional<byte[]> frame() {
+        if (!ENABLED || !WebDriverRunner.hasWebDriverStarted()) return Optional.empty();
+        WebDriver driver = WebDriverRunner.getWebDriver();
+        Optional<String> url = streamUrl(driver);
+        if (url.isEmpty()) return Optional.empty();
+        configure(driver);
+        Reader reader = READERS.compute(url.get(), (u, r) -> r == null || !r.isAlive() ? Reader.start(u) : r);
+        return reader.latest();
+    }
+
+    /**
+     * Приложить скриншот при падении шага Selenide (замена {@code AllureSelenide.screenshots(true)}):
+     * кадр из потока, без потока — обычный PNG.
+     */
+    public static final class FailureScreenshots implements LogEventListener {
+
+        @Override
+        public void afterEvent(LogEvent event) {
+            if (event.getStatus() != LogEvent.EventStatus.FAIL || !WebDriverRunner.hasWebDriverStarted()) return;
+            try {
+                Attach.screenshotAs("Screenshot");
+            } catch (RuntimeException e) {
+                log.debug("[Mjpeg] скриншот при падении не снят: {}", e.toString());
+            }
+        }
+
+        @Override
+        public void beforeEvent(LogEvent event) {
+        }
+    }
+
+    /* ===== internals ===== */
+
+    /** {@code http://127.0.0.1:<mjpegServerPort>/}, если сессия его объявила и Appium на этой машине. */
+    private static Optional<String> streamUrl(WebDriver driver) {
+        if (!(driver instanceof HasCapabilities hc)) return Optional.empty();
+        Capabilities caps = hc.getCapabilities();
+        Object port = caps.getCapability("appium:mjpegServerPort");
+        if (port == null) port = caps.getCapability("mjpegServerPort");
+        if (port == null) return Optional.empty();
+        if (!(driver instanceof RemoteWebDriver rwd) || !(rwd.getCommandExecutor() instanceof HttpCommandExecutor http)) {
+            return Optional.empty();
+        }
+        try {
+            if (!InetAddress.getByName(http.getAddressOfRemoteServer().getHost()).isLoopbackAddress()) return Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+        return Optional.of("http://127.0.0.1:" + port + "/");
+    }
+
+    /** Масштаб и качество кадров — настройками UiAutomator2, один раз на сессию. */
+    private static void configure(WebDriver driver) {
+        if (!CONFIGURED.add(driver) || !(driver instanceof HasSettings settings)) return;
+        try {
+            settings.setSetting("mjpegScalingFactor", SCALE);
+            settings.setSetting("mjpegServerScreenshotQuality", QUALITY);
+        } catch (RuntimeException e) {
+            log.debug("[Mjpeg] настройки потока не применены: {}", e.toString());
+        }
+    }
+
+    /** Фоновое чтение одного MJPEG-потока: держит последний кадр, переподключается, закрывается при простое. */
+    private static final class Reader implements Runnable {
+        private final String url;
+        private final Thread thread;
+        private volatile byte[] frame;
+        private volatile long frameAtNanos;
+        private volatile long usedAtNanos = System.nanoTime();
+
+        private Reader(String url) {
+            this.url = url;
+            this.thread = new Thread(this, "mjpeg-" + url.replaceAll("\\D+", ""));
+            this.thread.setDaemon(true);
+        }
+
+        static Reader start(String url) {
+            Reader r = new Reader(url);
+            r.thread.start();
+            log.debug("[Mjpeg] чтение потока {}", url);
+            return r;
+        }
+
+        boolean isAlive() {
+            return thread.isAlive();
+        }
+
+        Optional<byte[]> latest() {
+            usedAtNanos = System.nanoTime();
+            long deadline = usedAtNanos + FIRST_FRAME_MS * 1_000_000;
+            while (frame == null && System.nanoTime() < deadline && thread.isAlive()) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return Optional.empty();
+                }
+            }
+            byte[] f = frame;
+            if (f == null || (System.nanoTime() - frameAtNanos) / 1_000_000 > MAX_FRAME_AGE_MS) return Optional.empty();
+            return Optional.of(f);
+        }
+
+        @Override
+        public void run() {
+            while ((System.nanoTime() - usedAtNanos) / 1_000_000 < IDLE_MS) {
+                HttpURLConnection c = null;
+                try {
+                    c = (HttpURLConnection) new URL(url).openConnection();
+                    c.setConnectTimeout(2000);
+                    c.setReadTimeout(5000);
+                    try (InputStream in = new BufferedInputStream(c.getInputStream())) {
+                        readFrames(in);
+                    }
+                } catch (IOException e) {
+                    log.trace("[Mjpeg] {}: {}", url, e.toString());
+                } finally {
+                    if (c != null) c.disconnect();
+                }
+                frame = null;
+                try {
+                    Thread.sleep(RECONNECT_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            log.debug("[Mjpeg] поток {} закрыт (простой)", url);
+        }
+
+        /** multipart/x-mixed-replace: заголовки части → Content-Length байт JPEG (без длины — по маркерам SOI/EOI). */
+        private void readFrames(InputStream in) throws IOException {
+            while ((System.nanoTime() - usedAtNanos) / 1_000_000 < IDLE_MS) {
+                int length = -1;
+                String line;
+                boolean headers = false;
+                while ((line = readLine(in)) != null) {
+                    if (line.isEmpty()) {
+                        if (headers) break;
+                        continue;
+                    }
+                    headers = true;
+                    String lower = line.toLowerCase(Locale.ROOT);
+                    if (lower.startsWith("content-length:")) length = Integer.parseInt(line.substring(15).trim());
+                }
+                if (line == null) return;
+                byte[] jpeg = length > 0 ? in.readNBytes(length) : readJpeg(in);
+                if (jpeg.length == 0) return;
+                frame = jpeg;
+                frameAtNanos = System.nanoTime();
+            }
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n') return out.toString(StandardCharsets.US_ASCII).trim();
+                out.write(b);
+            }
+            return out.size() == 0 ? null : out.toString(StandardCharsets.US_ASCII).trim();
+        }
+
+        private static byte[] readJpeg(InputStream in) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+            int prev = -1;
+            int b;
+            while ((b = in.read()) != -1) {
+                out.write(b);
+                if (prev == 0xFF && b == 0xD9) break;
+                prev = b;
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package guru.qa.ui.reporting;
+
+import com.codeborne.selenide.WebDriverRunner;
+import io.qameta.allure.Allure;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Латентность жестов: гистограммы по типу жеста ({@code clickGesture}, {@code scrollGesture}, {@code w3cActions}, …),
+ * устройству и хосту ({@code local} / {@code remote@<хаб>} — регион BrowserStack виден по адресу хаба).
+ *
+ * <p><b>Поток данных:</b> обёртки жестов замеряют вызов драйвера через {@link #time(String, Supplier)}.
+ * Весь прогон — в {@code build/reports/run/<run.id>/gesture-latency-<pid>.json} (p50/p95/p99, корзины);
+ * {@code TestBase} после каждого теста вызывает {@link #report(String)} — вложение Allure «Gesture latency»
+ * с гистограммами жестов этого теста.</p>
+ *
+ * <p><b>Не жесты</b> — ожидания и составные UI-операции ({@code settle}, {@code search:*}) — пишутся
+ * {@link #recordUi(String, long)} отдельной категорией: {@code ui-latency-<pid>.json} и вложение «UI latency»,
+ * чтобы не смешиваться с латентностью жестов драйвера.</p>
+ */
+@Slf4j
+public final class GestureTelemetry {
+
+    /** Верхние границы корзин гистограммы, мс (последняя корзина — всё, что дольше). */
+    private static final long[] BUCKETS_MS = {25, 50, 100, 200, 300, 500, 750, 1000, 1500, 2000, 3000, 5000, 10_000};
+
+    private static final String GESTURE = "gesture";
+    private static final String UI = "ui";
+
+    private static final Map<String, Histogram> RUN = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Map<String, Histogram>> TEST = ThreadLocal.withInitial(LinkedHashMap::new);
+
+    static {
+        RunReports.register("gesture-latency", () -> summarize(RUN, GESTURE));
+        RunReports.register("ui-latency", () -> summarize(RUN, UI));
+    }
+
+    /** Замеры одного ключа (категория | тип жеста | устройство | хост). */
+    private static final class Histogram {
+        private final String category;
+        private final String gesture;
+        private final String device;
+        private final String host;
+        private long[] samples = new long[64];
+        private int count;
+
+        private Histogram(String category, String gesture, String device, String host) {
+            this.category = category;
+            this.gesture = gesture;
+            this.device = device;
+            this.host = host;
+        }
+
+        private synchronized void add(long ms) {
+            if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+            samples[count++] = ms;
+        }
+
+        private synchronized Map<String, Object> summary() {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            Map<String, Long> buckets = new LinkedHashMap<>();
+            int i = 0;
+            for (long bound : BUCKETS_MS) {
+                long n = 0;
+                while (i < sorted.length && sorted[i] <= bound) {
+                    i++;
+                    n++;
+                }
+                buckets.put("<=" + bound, n);
+            }
+            buckets.put(">" + BUCKETS_MS[BUCKETS_MS.length - 1], (long) (sorted.length - i));
+
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("gesture", gesture);
+            out.put("device", device);
+            out.put("host", host);
+            out.put("count", count);
+            out.put("minMs", sorted[0]);
+            out.put("p50Ms", percentile(sorted, 50));
+            out.put("p95Ms", percentile(sorted, 95));
+            out.put("p99Ms", percentile(sorted, 99));
+            out.put("maxMs", sorted[sorted.length - 1]);
+            out.put("buckets", buckets);
+            return out;
+        }
+    }
+
+    private GestureTelemetry() {
+    }
+
+    /**
+     * Выполнить вызов жеста и записать его длительность (и при ошибке).
+     *
+     * @param gesture тип жеста (ключ гистограммы), например {@code scrollGesture}
+     * @param action  вызов драйвера
+     * @return результат вызова
+     */
+    public static <T> T time(String gesture, Supplier<T> action) {
+        long started = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(gesture, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    /**
+     * Записать длительность жеста текущей сессии.
+     *
+     * @param gesture тип жеста
+     * @param ms      длительность, мс
+     */
+    public static void record(String gesture, long ms) {
+        record(GESTURE, gesture, ms);
+    }
+
+    /**
+     * Записать длительность UI-операции, которая не является жестом (ожидание стабилизации, поиск и т.п.).
+     *
+     * @param operation имя операции, например {@code settle}
+     * @param ms        длительность, мс
+     */
+    public static void recordUi(String operation, long ms) {
+        record(UI, operation, ms);
+    }
+
+    /**
+     * Приложить к текущему Allure-тесту гистограммы жестов, выполненных в этом потоке с прошлого вызова, и сбросить их.
+     *
+     * @param test имя теста (для лога)
+     */
+    public static void report(String test) {
+        Map<String, Histogram> perTest = TEST.get();
+        if (perTest.isEmpty()) return;
+        List<Map<String, Object>> gestures = summarize(perTest, GESTURE);
+        List<Map<String, Object>> ui = summarize(perTest, UI);
+        perTest.clear();
+        if (!gestures.isEmpty()) {
+            Allure.addAttachment("Gesture latency", "application/json", RunReports.toJson(gestures), ".json");
+        }
+        if (!ui.isEmpty()) {
+            Allure.addAttachment("UI latency", "application/json", RunReports.toJson(ui), ".json");
+        }
+        gestures.forEach(s -> log.debug("[Gestures] {}: {} × {} — p50={} p95={} мс ({}, {})",
+                test, s.get("gesture"), s.get("count"), s.get("p50Ms"), s.get("p95Ms"), s.get("device"), s.get("host")));
+        ui.forEach(s -> log.debug("[Gestures] {}: UI {} × {} — p50={} p95={} мс ({}, {})",
+                test, s.get("gesture"), s.get("count"), s.get("p50Ms"), s.get("p95Ms"), s.get("device"), s.get("host")));
+    }
+
+    /* ===== internals ===== */
+
+    private static void record(String category, String gesture, long ms) {
+        WebDriver driver = WebDriverRunner.hasWebDriverStarted() ? WebDriverRunner.getWebDriver() : null;
+        String device = device(driver);
+        String host = host(driver);
+        String key = category + "|" + gesture + "|" + device + "|" + host;
+        RUN.computeIfAbsent(key, k -> new Histogram(category, gesture, device, host)).add(ms);
+        TEST.get().computeIfAbsent(key, k -> new Histogram(category, gesture, device, host)).add(ms);
+    }
+
+    private static List<Map<String, Object>> summarize(Map<String, Histogram> histograms, String category) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        new TreeMap<>(histograms).values().stream()
+                .filter(h -> h.category.equals(category))
+                .forEach(h -> out.add(h.summary()));
+        return out;
+    }
+
+    /** Ближайший ранг (nearest-rank) по отсортированным замерам. */
+    private static long percentile(long[] sorted, int p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    /** Устройство: модель/имя + версия Android (+ udid локального устройства). */
+    private static String device(WebDriver driver) {
+        if (!(driver instanceof HasCapabilities hc)) return "?";
+        Capabilities caps = hc.getCapabilities();
+        String name = capability(caps, "deviceName", "deviceModel");
+        String version = capability(caps, "platformVersion");
+        String udid = capability(caps, "udid");
+        StringBuilder sb = new StringBuilder(name.isEmpty() ? "device" : name);
+        if (!version.isEmpty()) sb.append(" / Android ").append(version);
+        if (!udid.isEmpty() && !udid.equals(name)) sb.append(" [").append(udid).append(']');
+        return sb.toString();
+    }
+
+    /** Хост: {@code local} или {@code remote@<хост хаба>}. */
+    private static String host(WebDriver driver) {
+        String deviceHost = System.getProperty("deviceHost", "local").trim().toLowerCase();
+        if (!"remote".equals(deviceHost)) return "local";
+        if (driver instanceof RemoteWebDriver rwd && rwd.getCommandExecutor() instanceof HttpCommandExecutor http) {
+            return "remote@" + http.getAddressOfRemoteServer().getHost();
+        }
+        return "remote";
+    }
+
+    private static String capability(Capabilities caps, String... names) {
+        for (String name : names) {
+            for (String key : new String[]{"appium:" + name, name}) {
+                Object v = caps.getCapability(key);
+                if (v != null && !v.toString().isBlank()) return v.toString();
+            }
+        }
+        return "";
+    }
+}
@@ -0,0 +1,87 @@
+package guru.qa.ui.reporting;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Машиночитаемые отчёты прогона: JSON-файлы в {@code build/reports/run/<run.id>/}.
+ *
+ * <p>Компоненты регистрируют снимок ({@link #register(String, Supplier)}), а {@link RunReportsListener}
+ * в конце тест-плана пишет каждый в {@code <name>-<pid>.json} (у каждого Gradle-форка свой файл,
+ * {@code run.id} общий — его задаёт {@code build.gradle}).</p>
+ */
+@Slf4j
+public final class RunReports {
+
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final String RUN_ID = resolveRunId();
+    private static final Map<String, Supplier<Object>> REPORTS = new ConcurrentHashMap<>();
+
+    private RunReports() {
+    }
+
+    /** Идентификатор прогона ({@code -Drun.id}; без него — время старта JVM). */
+    public static String runId() {
+        return RUN_ID;
+    }
+
+    /** Каталог отчётов текущего прогона. */
+    public static Path dir() {
+        return Path.of("build", "reports", "run", RUN_ID);
+    }
+
+    /**
+     * Зарегистрировать отчёт, который будет записан в конце прогона.
+     *
+     * @param name     имя файла без расширения
+     * @param snapshot снимок данных (сериализуется Jackson)
+     */
+    public static void register(String name, Supplier<Object> snapshot) {
+        REPORTS.put(name, snapshot);
+    }
+
+    /**
+     * Сериализовать объект в JSON-строку (для Allure-вложений).
+     *
+     * @param value данные
+     * @return форматированный JSON
+     */
+    public static String toJson(Object value) {
+        try {
+            return JSON.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot serialize report: " + e, e);
+        }
+    }
+
+    /** Записать все зарегистрированные отчёты (вызывается {@link RunReportsListener}). */
+    static void flush() {
+        long pid = ProcessHandle.current().pid();
+        REPORTS.forEach((name, snapshot) -> {
+            Path file = dir().resolve(name + "-" + pid + ".json");
+            try {
+                Files.createDirectories(file.getParent());
+                JSON.writeValue(file.toFile(), snapshot.get());
+                log.info("[Reports] {} → {}", name, file.toAbsolutePath());
+            } catch (IOException | RuntimeException e) {
+                log.warn("[Reports] Не удалось записать {}: {}", file, e.toString());
+            }
+        });
+    }
+
+    private static String resolveRunId() {
+        String fromSys = System.getProperty("run.id");
+        if (fromSys != null && !fromSys.isBlank()) return fromSys.trim();
+        return LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+    }
+}
@@ -0,0 +1,17 @@
+package guru.qa.ui.reporting;
+
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestPlan;
+
+/**
+ * JUnit Platform listener: в конце тест-плана записывает отчёты {@link RunReports}.
+ *
+ * <p>Подключается через {@code META-INF/services/org.junit.platform.launcher.TestExecutionListener}.</p>
+ */
+public class RunReportsListener implements TestExecutionListener {
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        RunReports.flush();
+    }
+}
@@ -0,0 +1,166 @@
+package guru.qa.ui.reporting;
+
+import io.qameta.allure.Allure;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WrapsDriver;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Разбивка времени старта сессии по фазам: конфиг, APK, Appium, new-session, первый экран и т.д.
+ *
+ * <p><b>Поток данных:</b> провайдер драйвера открывает разбивку ({@link #begin(String)}), оборачивает фазы
+ * в {@link #phase(String, Supplier)} и привязывает результат к драйверу ({@link #finish(WebDriver)}) —
+ * так разбивка не теряется, даже если драйвер создан в фоне ({@code SessionPipeline}).
+ * {@code TestBase} добавляет фазу «первый экран» и вызывает {@link #report(WebDriver, String, long)}:
+ * JSON уходит вложением в Allure-тест и в {@code build/reports/run/<run.id>/session-timings-<pid>.json}.</p>
+ */
+@Slf4j
+public final class SessionTimings {
+
+    private static final ThreadLocal<Breakdown> BUILDING = new ThreadLocal<>();
+    private static final Map<WebDriver, Breakdown> BY_DRIVER = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final List<Map<String, Object>> RECORDS = Collections.synchronizedList(new ArrayList<>());
+
+    static {
+        RunReports.register("session-timings", () -> {
+            synchronized (RECORDS) {
+                return new ArrayList<>(RECORDS);
+            }
+        });
+    }
+
+    /**
+     * Разбивка старта одной сессии. Фазы с одинаковым именем суммируются; вложенная фаза пишется как
+     * {@code внешняя/вложенная} и в итог не входит (её время уже учтено во внешней).
+     */
+    public static final class Breakdown {
+        private final String provider;
+        private final Instant startedAt = Instant.now();
+        private final Map<String, Long> phases = Collections.synchronizedMap(new LinkedHashMap<>());
+        /** Открытая сейчас фаза (полное имя) — для вложенных. */
+        private String open;
+
+        private Breakdown(String provider) {
+            this.provider = provider;
+        }
+
+        private void add(String phase, long ms) {
+            phases.merge(phase, ms, Long::sum);
+        }
+    }
+
+    private SessionTimings() {
+    }
+
+    /**
+     * Начать разбивку старта сессии в текущем потоке.
+     *
+     * @param provider имя провайдера драйвера ({@code local}/{@code browserstack})
+     */
+    public static void begin(String provider) {
+        BUILDING.set(new Breakdown(provider));
+    }
+
+    /**
+     * Выполнить фазу и записать её длительность в текущую разбивку (без разбивки — просто выполнить).
+     * Фаза внутри другой фазы пишется как {@code внешняя/вложенная}.
+     *
+     * @param phase  имя фазы (ключ в JSON)
+     * @param action действие
+     * @return результат действия
+     */
+    public static <T> T phase(String phase, Supplier<T> action) {
+        Breakdown b = BUILDING.get();
+        String outer = b == null ? null : b.open;
+        String name = outer == null ? phase : outer + "/" + phase;
+        if (b != null) b.open = name;
+        long started = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            if (b != null) {
+                b.open = outer;
+                b.add(name, (System.nanoTime() - started) / 1_000_000);
+            }
+        }
+    }
+
+    /**
+     * Вариант {@link #phase(String, Supplier)} без результата.
+     *
+     * @param phase  имя фазы
+     * @param action действие
+     */
+    public static void phase(String phase, Runnable action) {
+        phase(phase, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Привязать разбивку текущего потока к созданному драйверу и закрыть её.
+     *
+     * @param driver созданный драйвер
+     * @return тот же драйвер (для {@code return SessionTimings.finish(...)})
+     */
+    public static <D extends WebDriver> D finish(D driver) {
+        Breakdown b = BUILDING.get();
+        BUILDING.remove();
+        if (b != null) BY_DRIVER.put(driver, b);
+        return driver;
+    }
+
+    /** Сбросить незавершённую разбивку (старт сессии упал). */
+    public static void abort() {
+        BUILDING.remove();
+    }
+
+    /**
+     * Дописать фазу «первый экран», отправить разбивку в Allure и в отчёт прогона.
+     *
+     * @param driver        драйвер теста (может быть обёрнут Selenide)
+     * @param test          имя теста
+     * @param firstScreenMs время от {@code open()} до первого видимого экрана, мс
+     */
+    public static void report(WebDriver driver, String test, long firstScreenMs) {
+        Breakdown b = BY_DRIVER.remove(unwrap(driver));
+
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("test", test);
+        record.put("provider", b == null ? "reused" : b.provider);
+        record.put("startedAt", (b == null ? Instant.now() : b.startedAt).toString());
+        Map<String, Long> phases = new LinkedHashMap<>();
+        if (b != null) {
+            synchronized (b.phases) {
+                phases.putAll(b.phases);
+            }
+        }
+        phases.put("first_screen", firstScreenMs);
+        record.put("phases", phases);
+        record.put("totalMs", phases.entrySet().stream()
+                .filter(e -> !e.getKey().contains("/"))
+                .mapToLong(Map.Entry::getValue).sum());
+
+        RECORDS.add(record);
+        log.info("[Timings] {}: {} (всего {} мс)", test, phases, record.get("totalMs"));
+        Allure.addAttachment("Session start timings", "application/json", RunReports.toJson(record), ".json");
+    }
+
+    private static WebDriver unwrap(WebDriver driver) {
+        WebDriver raw = driver;
+        while (raw instanceof WrapsDriver wraps && !BY_DRIVER.containsKey(raw)) {
+            raw = wraps.getWrappedDriver();
+        }
+        return raw;
+    }
+}
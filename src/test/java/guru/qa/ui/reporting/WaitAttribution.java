@@ -0,0 +1,182 @@
+package guru.qa.ui.reporting;
+
+import com.codeborne.selenide.Configuration;
+import com.codeborne.selenide.ex.UIAssertionError;
+import com.codeborne.selenide.logevents.LogEvent;
+import com.codeborne.selenide.logevents.LogEventListener;
+import io.qameta.allure.Allure;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.TimeoutException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Куда уходит время ожиданий: сводка по локатору и условию (поиски, итерации опроса, время, таймауты).
+ *
+ * <p><b>Источники:</b> события {@code SelenideLogger} (слушатель регистрируется в {@code TestBase}, как
+ * {@code PrettySelenideRuListener}) — элемент события и его subject ({@code should be(visible)}, {@code click()}, …);
+ * собственные ожидания проекта по снимкам иерархии ({@code Clickability.tap}, {@code ScreenSnapshot.verify},
+ * {@code UiSettle}) пишут замеры напрямую через {@link #record}.</p>
+ *
+ * <p><b>Итерации опроса:</b> {@code LocalBy} сообщает о каждом вычислении ({@link #lookup()}) — для таких локаторов
+ * число точное; для остальных оценивается как {@code 1 + время / Configuration.pollingInterval}.</p>
+ *
+ * <p><b>Отчёты:</b> после каждого теста — вложение Allure «Wait attribution» (топ ожиданий теста таблицей);
+ * весь прогон — {@code build/reports/run/<run.id>/wait-attribution-<pid>.json}, отсортирован по времени ожидания.
+ * Размер топа — {@code ui.waits.top} (по умолчанию 20).</p>
+ */
+@Slf4j
+public final class WaitAttribution implements LogEventListener {
+
+    private static final int TOP = Integer.getInteger("ui.waits.top", 20);
+
+    /** Ширина колонки локатора в таблице вложения. */
+    private static final int LOCATOR_WIDTH = 90;
+
+    private static final Map<String, Stat> RUN = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Map<String, Stat>> TEST = ThreadLocal.withInitial(LinkedHashMap::new);
+
+    /** Вычисления локаторов в текущем потоке (счётчик) и значения на входе в открытые события. */
+    private static final ThreadLocal<long[]> LOOKUPS = ThreadLocal.withInitial(() -> new long[1]);
+    private static final ThreadLocal<Deque<Long>> OPEN = ThreadLocal.withInitial(ArrayDeque::new);
+
+    static {
+        RunReports.register("wait-attribution", () -> top(RUN, TOP));
+    }
+
+    /** Накопленные замеры одного ключа (локатор | условие). */
+    private static final class Stat {
+        private final String locator;
+        private final String condition;
+        private long lookups;
+        private long polls;
+        private long waitedMs;
+        private long maxMs;
+        private long timeouts;
+
+        private Stat(String locator, String condition) {
+            this.locator = locator;
+            this.condition = condition;
+        }
+
+        private synchronized void add(long ms, long polls, boolean timedOut) {
+            this.lookups++;
+            this.polls += polls;
+            this.waitedMs += ms;
+            this.maxMs = Math.max(maxMs, ms);
+            if (timedOut) this.timeouts++;
+        }
+
+        private synchronized Map<String, Object> summary() {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("locator", locator);
+            out.put("condition", condition);
+            out.put("lookups", lookups);
+            out.put("polls", polls);
+            out.put("waitedMs", waitedMs);
+            out.put("avgMs", lookups == 0 ? 0 : waitedMs / lookups);
+            out.put("maxMs", maxMs);
+            out.put("timeouts", timeouts);
+            return out;
+        }
+    }
+
+    /**
+     * Записать ожидание, выполненное в обход {@code SelenideLogger}.
+     *
+     * @param locator   что искали (критерий локатора или имя проверки)
+     * @param condition чего ждали
+     * @param ms        сколько ждали
+     * @param polls     итераций опроса
+     * @param timedOut  ожидание закончилось таймаутом
+     */
+    public static void record(String locator, String condition, long ms, long polls, boolean timedOut) {
+        String key = locator + " | " + condition;
+        RUN.computeIfAbsent(key, k -> new Stat(locator, condition)).add(ms, polls, timedOut);
+        TEST.get().computeIfAbsent(key, k -> new Stat(locator, condition)).add(ms, polls, timedOut);
+    }
+
+    /** Отметить одно вычисление локатора (итерацию опроса) в текущем потоке. */
+    public static void lookup() {
+        LOOKUPS.get()[0]++;
+    }
+
+    /**
+     * Приложить к текущему Allure-тесту топ ожиданий этого теста и сбросить накопленное.
+     *
+     * @param test имя теста (для лога)
+     */
+    public static void report(String test) {
+        Map<String, Stat> perTest = TEST.get();
+        OPEN.get().clear();
+        if (perTest.isEmpty()) return;
+        List<Map<String, Object>> top = top(perTest, TOP);
+        perTest.clear();
+        Allure.addAttachment("Wait attribution", "text/plain", table(top), ".txt");
+        Map<String, Object> first = top.get(0);
+        log.debug("[Waits] {}: дольше всего — {} / {}: {} мс за {} поиск(ов)",
+                test, first.get("locator"), first.get("condition"), first.get("waitedMs"), first.get("lookups"));
+    }
+
+    @Override
+    public void beforeEvent(LogEvent event) {
+        OPEN.get().push(LOOKUPS.get()[0]);
+    }
+
+    @Override
+    public void afterEvent(LogEvent event) {
+        Deque<Long> open = OPEN.get();
+        long lookupsBefore = open.isEmpty() ? LOOKUPS.get()[0] : open.pop();
+        String locator = event.getElement() == null ? "" : event.getElement().trim();
+        if (locator.isEmpty()) return;
+
+        String condition = String.valueOf(event.getSubject()).trim();
+        long ms = event.getDuration();
+        long measured = LOOKUPS.get()[0] - lookupsBefore;
+        long polls = measured > 0 ? measured : estimatePolls(condition, ms);
+        boolean timedOut = event.getStatus() == LogEvent.EventStatus.FAIL
+                && (event.getError() instanceof UIAssertionError || event.getError() instanceof TimeoutException);
+        record(locator, condition, ms, polls, timedOut);
+    }
+
+    /* ===== internals ===== */
+
+    /** Ожидания ({@code should…}/{@code wait…}) опрашивают с {@code pollingInterval}; остальные команды — один поиск. */
+    private static long estimatePolls(String condition, long ms) {
+        String c = condition.toLowerCase(Locale.ROOT);
+        if (!c.startsWith("should") && !c.startsWith("wait")) return 1;
+        return 1 + ms / Math.max(1, Configuration.pollingInterval);
+    }
+
+    private static List<Map<String, Object>> top(Map<String, Stat> stats, int n) {
+        List<Map<String, Object>> all = new ArrayList<>();
+        stats.values().forEach(s -> all.add(s.summary()));
+        all.sort(Comparator.comparingLong((Map<String, Object> s) -> (Long) s.get("waitedMs")).reversed());
+        return all.size() > n ? new ArrayList<>(all.subList(0, n)) : all;
+    }
+
+    /** Таблица для вложения: ранг, время, поиски, опросы, таймауты, условие, локатор. */
+    private static String table(List<Map<String, Object>> top) {
+        StringBuilder sb = new StringBuilder(String.format("%-4s %9s %7s %7s %8s  %-32s %s%n",
+                "#", "waitedMs", "lookups", "polls", "timeouts", "condition", "locator"));
+        int rank = 1;
+        for (Map<String, Object> s : top) {
+            sb.append(String.format("%-4d %9d %7d %7d %8d  %-32s %s%n", rank++,
+                    (Long) s.get("waitedMs"), (Long) s.get("lookups"), (Long) s.get("polls"), (Long) s.get("timeouts"),
+                    cut(String.valueOf(s.get("condition")), 32), cut(String.valueOf(s.get("locator")), LOCATOR_WIDTH)));
+        }
+        return sb.toString();
+    }
+
+    private static String cut(String s, int max) {
+        return s.length() > max ? s.substring(0, max - 1) + "…" : s;
+    }
+}
@@ -4,6 +4,7 @@ import com.codeborne.selenide.CollectionCondition;
 import com.codeborne.selenide.Condition;
 import com.codeborne.selenide.appium.SelenideAppiumCollection;
 import com.codeborne.selenide.appium.SelenideAppiumElement;
+import guru.qa.ui.utils.hierarchy.Locators;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -37,9 +38,16 @@ public class AddLanguageScreen {
     static final String ROW_EN_NAME_REL =
             ".//android.widget.TextView[normalize-space(@text)!=''][position()=last()]";
 
+    /** Секция «All languages / Все языки» (родитель заголовка). */
+    static final String ALL_LANGUAGES =
+            "//*[child::*[contains(normalize-space(@text),'All languages') or contains(normalize-space(@text),'Все языки')]]";
+
+    /** Кликабельная строка под секцией «All languages», у которой есть дочерний узел по условию {@code %s}. */
+    static final String ROW_UNDER_ALL_LANGUAGES = ALL_LANGUAGES + "//android.view.View[@clickable='true'][child::*[%s]]";
+
     /** Кнопка «Назад» (EN/RU) по content-desc. */
     SelenideAppiumElement backButton = $(
-            xpath(
+            Locators.xpath(
                     "//*[child::*[(contains(normalize-space(@content-desc),'Go back') or contains(normalize-space(@content-desc),'Назад'))]" +
                             " and child::*[contains(@class,'Button')]]"
             )
@@ -47,10 +55,7 @@ public class AddLanguageScreen {
 
     /** Кликабельные строки под секцией “All languages/Все языки”. */
     SelenideAppiumCollection languageRows = $$(
-            xpath(
-                    "//*[child::*[contains(normalize-space(@text),'All languages') or contains(normalize-space(@text),'Все языки')]]" +
-                            "//android.view.View[@clickable='true']"
-            )
+            Locators.xpath(ALL_LANGUAGES + "//android.view.View[@clickable='true']")
     );
 
     //endregion
@@ -64,11 +69,17 @@ public class AddLanguageScreen {
 
     //region Helpers
 
-    /** Безопасная подстановка строки в XPath. */
-    private static String xq(String s) {
-        if (s == null) return "''";
-        if (!s.contains("'")) return "'" + s + "'";
-        return "concat('" + s.replace("'", "',\"'\",'") + "')";
+    /** Условие «любой из вариантов»: {@code predicate} с {@code %s} под каждый вариант, через {@code or}. */
+    private static String anyOf(String predicate, String... variants) {
+        if (variants == null || variants.length == 0) {
+            throw new IllegalArgumentException("Нужно передать хотя бы один вариант текста");
+        }
+        StringBuilder or = new StringBuilder();
+        for (int i = 0; i < variants.length; i++) {
+            if (i > 0) or.append(" or ");
+            or.append(String.format(predicate, Locators.literal(variants[i])));
+        }
+        return or.toString();
     }
 
     //endregion
@@ -198,31 +209,13 @@ public class AddLanguageScreen {
 
     /** Найти строку по одному видимому тексту под секцией «All languages». */
     private SelenideAppiumElement languageRowUnderAllLanguagesByText(String languageText) {
-        String header = "//*[child::*[contains(normalize-space(@text),'All languages') or contains(normalize-space(@text),'Все языки')]]";
-        String xp = header
-                + "//android.view.View[@clickable='true']"
-                + "[child::*[contains(normalize-space(@text), " + xq(languageText) + ")]]";
-        return $(xpath(xp));
+        return $(Locators.xpath(ROW_UNDER_ALL_LANGUAGES,
+                "contains(normalize-space(@text), " + Locators.literal(languageText) + ")"));
     }
 
     /** Найти строку по любому из вариантов текста под секцией «All languages». */
     private SelenideAppiumElement languageRowUnderAllLanguagesByAnyText(String... variants) {
-        if (variants == null || variants.length == 0) {
-            throw new IllegalArgumentException("Нужно передать хотя бы один вариант текста");
-        }
-        String header = "//*[child::*[contains(normalize-space(@text),'All languages') or contains(normalize-space(@text),'Все языки')]]";
-
-        StringBuilder or = new StringBuilder();
-        for (int i = 0; i < variants.length; i++) {
-            if (i > 0) or.append(" or ");
-            or.append("contains(normalize-space(@text), ").append(xq(variants[i])).append(")");
-        }
-
-        String xp = header
-                + "//android.view.View[@clickable='true']"
-                + "[child::*[" + or + "]]";
-
-        return $(xpath(xp));
+        return $(Locators.xpath(ROW_UNDER_ALL_LANGUAGES, anyOf("contains(normalize-space(@text), %s)", variants)));
     }
 
     /** Безопасно вычитать текст дочернего узла внутри строки по относительному XPath. */
@@ -3,6 +3,7 @@ package guru.qa.ui.screens;
 import com.codeborne.selenide.Condition;
 import com.codeborne.selenide.appium.SelenideAppiumElement;
 import guru.qa.ui.screens.components.ArticleOverflowMenu;
+import guru.qa.ui.screens.components.OverlayGuard;
 import io.appium.java_client.AppiumBy;
 import lombok.extern.slf4j.Slf4j;
 
@@ -50,12 +51,12 @@ public class ArticleScreen {
      */
     public ArticleScreen tapSave() {
         return step("Нажать «Сохранить» на экране статьи", () -> {
-            saveButton
+            OverlayGuard.retryIfObscured("Сохранить", () -> saveButton
                     .shouldBe(Condition.visible.because("Кнопка «Сохранить» должна быть видима"))
                     .shouldBe(Condition.enabled.because("Кнопка «Сохранить» должна быть доступна"))
                     .shouldHave(Condition.attribute("clickable", "true")
                             .because("Кнопка «Сохранить» должна быть кликабельна"))
-                    .tap();
+                    .tap());
             return this;
         });
     }
@@ -67,12 +68,12 @@ public class ArticleScreen {
      */
     public ArticleScreen openOverflow() {
         return step("Открыть оверфлоу-меню (⋮)", () -> {
-            overflowTopButton
+            OverlayGuard.retryIfObscured("Больше настроек", () -> overflowTopButton
                     .shouldBe(Condition.visible.because("Кнопка «Больше настроек» должна быть видима"))
                     .shouldBe(Condition.enabled.because("Кнопка «Больше настроек» должна быть доступна"))
                     .shouldHave(Condition.attribute("clickable", "true")
                             .because("Кнопка «Больше настроек» должна быть кликабельна"))
-                    .tap();
+                    .tap());
             overflow.shouldBeOpen();
             return this;
         });
@@ -3,12 +3,22 @@ package guru.qa.ui.screens;
 import com.codeborne.selenide.Condition;
 import com.codeborne.selenide.appium.SelenideAppiumElement;
 import guru.qa.ui.app.App;
+import guru.qa.ui.screens.components.OverlayGuard;
+import guru.qa.ui.utils.gestures.FeedIndex;
 import guru.qa.ui.utils.gestures.ScrollIntoView;
+import guru.qa.ui.utils.hierarchy.Clickability;
+import guru.qa.ui.utils.hierarchy.HierarchySnapshot;
+import guru.qa.ui.utils.hierarchy.Locators;
 import lombok.extern.slf4j.Slf4j;
 import org.openqa.selenium.By;
+import org.openqa.selenium.Rectangle;
+import org.w3c.dom.Document;
 
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static com.codeborne.selenide.appium.SelenideAppium.$;
 import static guru.qa.ui.allure.Steps.step;
@@ -49,6 +59,10 @@ import static io.appium.java_client.AppiumBy.id;
 public class ExploreScreen {
 
     private static final String CARD_HEADER_ID = "org.wikipedia.alpha:id/view_card_header_title";
+
+    /** Заголовок карточки ленты; {@code %s} — альтернативы заголовка ({@code lower-case(@text)=…}, через {@code or}). */
+    private static final String HEADER_XPATH =
+            "//android.widget.TextView[@resource-id='" + CARD_HEADER_ID + "' and (%s)]";
     private static final String FEATURED_CONTENT_ID =
             "org.wikipedia.alpha:id/view_featured_article_card_content_container";
 
@@ -64,18 +78,15 @@ public class ExploreScreen {
             $(id("org.wikipedia.alpha:id/feed_view"));
 
     /**
-     * Единый «кликер» по правилу кликабельности проекта.
+     * Единый «кликер» по правилу кликабельности проекта (проверка одним снимком иерархии, см. {@link Clickability});
+     * перекрыт оверлеем — закрыть и тапнуть ещё раз ({@link OverlayGuard#tap}).
      * <p><b>EN:</b> Unified click helper that enforces visibility/enabled/clickable.</p>
      *
      * @param el   элемент
      * @param name имя для сообщений ожиданий
      */
     private static void clickWhenReady(SelenideAppiumElement el, String name) {
-        el.shouldBe(Condition.visible.because(name + " должен(а) быть видим(а)"))
-                .shouldBe(Condition.enabled.because(name + " должен(а) быть доступен/доступна"))
-                .shouldHave(Condition.attribute("clickable", "true")
-                        .because(name + " должен(а) быть кликабельн(ым/ой)"))
-                .tap();
+        OverlayGuard.tap(el, name);
     }
 
     /**
@@ -112,29 +123,41 @@ public class ExploreScreen {
     }
 
     private By headerBy(String... titles) {
-        String alternation = String.join("|",
-                Arrays.stream(titles)
-                        .map(s -> s.toLowerCase().replace("'", "\\'"))
-                        .toArray(String[]::new)
-        );
-        return By.xpath(
-                "//android.widget.TextView[@resource-id='" + CARD_HEADER_ID + "' " +
-                        "and matches(lower-case(@text), '^(" + alternation + ")$')]"
-        );
+        String alternation = Arrays.stream(titles)
+                .map(s -> "lower-case(@text)=" + Locators.literal(s.toLowerCase(Locale.ROOT)))
+                .collect(Collectors.joining(" or "));
+        return Locators.xpath(HEADER_XPATH, alternation);
     }
 
     private SelenideAppiumElement headerEl(String... titles) {
         return $(headerBy(titles));
     }
 
+    /**
+     * Лента в самом верху: карточка поиска (первый элемент ленты) видна не обрезанной сверху.
+     * Только тогда смещения сопоставимы с {@link FeedIndex}.
+     */
+    private boolean feedAtTop() {
+        Document doc = HierarchySnapshot.document();
+        Optional<Rectangle> feed = Clickability.in(doc, feedView).map(Clickability::bounds);
+        Optional<Rectangle> search = Clickability.in(doc, searchContainer).map(Clickability::bounds);
+        return feed.isPresent() && search.isPresent() && search.get().getY() >= feed.get().getY();
+    }
+
     /**
      * Прокрутить ленту до карточки с любым из заголовков (RU/EN) и убедиться, что она видима.
-     * <p><b>EN:</b> Scroll to a card by any of the given section titles and ensure visibility.</p>
+     * Из верха ленты — прыжок к смещению из {@link FeedIndex} и короткий поиск на месте.
+     * <p><b>EN:</b> Scroll to a card by any of the given section titles and ensure visibility
+     * (jumps to the offset remembered by the feed index when scrolling from the top).</p>
      */
     public ExploreScreen scrollToCard(String... titles) {
         String joined = String.join(" / ", titles);
         return step("Прокрутить ленту до карточки «" + joined + "» и довести её в поле видимости", () -> {
-            ScrollIntoView.intoView(feedView, headerEl(titles), Duration.ofSeconds(60));
+            Duration timeout = Duration.ofSeconds(60);
+            if (!FeedIndex.scrollTo(feedView, headerEl(titles), CARD_HEADER_ID, feedAtTop(), timeout, titles)) {
+                // локаторы не поддержаны снимком иерархии — прежний поиск
+                ScrollIntoView.intoView(feedView, headerEl(titles), timeout);
+            }
             headerEl(titles).shouldBe(Condition.visible);
             return this;
         });
@@ -160,7 +183,7 @@ public class ExploreScreen {
         step("Открыть первый кликабельный элемент внутри карточки «Featured article»", () -> {
             scrollToCard("Featured article", "случайная статья");
             SelenideAppiumElement featuredRoot =
-                    $(By.xpath(
+                    $(Locators.xpath(
                             "//*[@resource-id='org.wikipedia.alpha:id/feed_view']" +
                                     "/android.widget.LinearLayout[" +
                                     "descendant::*[@resource-id='" + CARD_HEADER_ID + "' " +
@@ -170,12 +193,12 @@ public class ExploreScreen {
             SelenideAppiumElement firstClickable =
                     $(featuredRoot.$(id(FEATURED_CONTENT_ID)));
 
-            firstClickable
+            OverlayGuard.retryIfObscured("Featured article", () -> firstClickable
                     .shouldBe(Condition.visible.because("Контент 'Featured article' должен быть видим"))
                     .shouldBe(Condition.enabled.because("Контент 'Featured article' должен быть доступен"))
                     .shouldHave(Condition.attribute("clickable", "true")
                             .because("Контент 'Featured article' должен быть кликабельным"))
-                    .tap();
+                    .tap());
         });
     }
 }
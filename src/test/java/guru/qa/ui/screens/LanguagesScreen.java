@@ -1,19 +1,20 @@
 package guru.qa.ui.screens;
 
-import com.codeborne.selenide.CollectionCondition;
-import com.codeborne.selenide.Condition;
-import com.codeborne.selenide.appium.SelenideAppiumCollection;
 import com.codeborne.selenide.appium.SelenideAppiumElement;
+import guru.qa.ui.screens.components.OverlayGuard;
+import guru.qa.ui.utils.hierarchy.Clickability;
+import guru.qa.ui.utils.hierarchy.Locators;
+import guru.qa.ui.utils.hierarchy.ScreenSnapshot;
+import guru.qa.ui.utils.hierarchy.ScreenSnapshot.UiNode;
 import lombok.extern.slf4j.Slf4j;
+import org.w3c.dom.Document;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 import static com.codeborne.selenide.appium.SelenideAppium.$;
-import static com.codeborne.selenide.appium.SelenideAppium.$$;
 import static guru.qa.ui.allure.Steps.step;
-import static io.appium.java_client.AppiumBy.id;
-import static io.appium.java_client.AppiumBy.xpath;
 
 /**
  * Экран управления языками / <b>Languages screen</b> (RU/EN).
@@ -26,7 +27,8 @@ import static io.appium.java_client.AppiumBy.xpath;
  *   <li>Получение текущего списка языков (без пункта добавления).</li>
  * </ul>
  *
- * <p><b>Инварианты:</b> только стабильные локаторы id/XPath2; элементы — SelenideAppiumElement/Collection;
+ * <p><b>Инварианты:</b> только стабильные локаторы id/XPath2; состояние списка читается одним снимком иерархии
+ * ({@link YourLanguages}, {@link ScreenSnapshot#verify}) вместо {@code getText} на каждую строку;
  * клики выполняются при {@code displayed && enabled && attribute(clickable)="true"}.</p>
  *
  * <p><b>EN:</b> Manages “Your languages” list and opens “Add language”. Uses stable ids/XPath2 and
@@ -42,34 +44,55 @@ public class LanguagesScreen {
     public static final String ADD_LANGUAGE_RU = "Добавить язык";
 
     /** Заголовок секции «Your languages / Ваши языки». */
-    private final SelenideAppiumElement headerYourLanguages =
-            $(id("org.wikipedia.alpha:id/section_header_text"));
+    private static final String HEADER_ID = "org.wikipedia.alpha:id/section_header_text";
 
     /** Все элементы языков (кроме пункта «Add language / Добавить язык»). */
-    private final SelenideAppiumCollection titlesYourLanguages =
-            $$(xpath(
-                    "//*[@resource-id='org.wikipedia.alpha:id/wiki_language_title' " +
-                            "and not(normalize-space(@text)='Add language' or normalize-space(@text)='Добавить язык')]"
-            ));
+    private static final String TITLES_XPATH =
+            "//*[@resource-id='org.wikipedia.alpha:id/wiki_language_title' " +
+                    "and not(normalize-space(@text)='Add language' or normalize-space(@text)='Добавить язык')]";
+
+    /**
+     * Состояние секции «Your languages» из одного снимка иерархии.
+     *
+     * @param header заголовок секции
+     * @param titles названия языков по порядку (без пункта добавления)
+     */
+    public record YourLanguages(UiNode header, List<String> titles) {
+
+        /** Заголовок секции виден и равен «Ваши языки» / «Your languages». */
+        boolean headerShown() {
+            return header.visible() && (header.text().equals("Ваши языки") || header.text().equals("Your languages"));
+        }
+    }
 
     /** Карточка «Add language / Добавить язык» (кликабельный контейнер). */
-    private final SelenideAppiumElement addLanguageButton = $(xpath(
+    private final SelenideAppiumElement addLanguageButton = $(Locators.xpath(
             "//*[child::*[@resource-id='org.wikipedia.alpha:id/wiki_language_title' and " +
                     "(contains(normalize-space(@text),  '" + ADD_LANGUAGE_EN + "') or contains(normalize-space(@text),  '" + ADD_LANGUAGE_RU + "'))]]" +
                     "[@clickable='true']"));
 
+    /** Состояние секции из снимка иерархии. */
+    private static YourLanguages yourLanguages(Document doc) {
+        return new YourLanguages(
+                ScreenSnapshot.node(doc, HEADER_ID),
+                ScreenSnapshot.nodes(doc, TITLES_XPATH).stream().map(UiNode::text).toList());
+    }
+
+    private static void assertHeader(YourLanguages s) {
+        if (!s.headerShown()) {
+            throw new AssertionError("Заголовок «Ваши языки» / «Your languages» не виден: " + s.header());
+        }
+    }
+
     /**
-     * Единый кликер по правилу кликабельности проекта.
+     * Единый кликер по правилу кликабельности проекта (проверка одним снимком иерархии, см. {@link Clickability});
+     * перекрыт оверлеем — закрыть и тапнуть ещё раз ({@link OverlayGuard#tap}).
      *
      * @param el   элемент
      * @param name имя для сообщений ожиданий
      */
     private static void clickWhenReady(SelenideAppiumElement el, String name) {
-        el.shouldBe(Condition.visible.because(name + " должна быть видима"))
-                .shouldBe(Condition.enabled.because(name + " должна быть доступна"))
-                .shouldHave(Condition.attribute("clickable", "true")
-                        .because(name + " должна быть кликабельна"))
-                .tap();
+        OverlayGuard.tap(el, name);
     }
 
     /**
@@ -80,10 +103,7 @@ public class LanguagesScreen {
      */
     public LanguagesScreen checkYourLanguagesScreen() {
         return step("Языки: проверяем экран 'Ваши языки' / 'Your languages'", () -> {
-            headerYourLanguages.shouldBe(Condition.visible)
-                    .shouldHave(Condition.or("RU/EN header",
-                            Condition.exactText("Ваши языки"),
-                            Condition.exactText("Your languages")));
+            ScreenSnapshot.verify("Экран «Your languages»", LanguagesScreen::yourLanguages, LanguagesScreen::assertHeader);
             return this;
         });
     }
@@ -102,7 +122,8 @@ public class LanguagesScreen {
     }
 
     /**
-     * Убедиться, что список содержит искомые языки (точные тексты).
+     * Убедиться, что список содержит искомые языки: число строк совпадает, строка содержит ожидаемый текст
+     * без учёта регистра и повторных пробелов (как {@code CollectionCondition.texts}).
      *
      * <p><b>EN:</b> Assert that given language titles are present.</p>
      * @param names ожидаемые названия
@@ -111,11 +132,30 @@ public class LanguagesScreen {
     public LanguagesScreen assertLanguagePresent(List<String> names) {
         String stepName = "Языки: убедиться, что язык присутствует в списке — " + String.join(" / ", names);
         return step(stepName, () -> {
-            titlesYourLanguages.shouldHave(CollectionCondition.texts(names));
+            ScreenSnapshot.verify("Список «Your languages»", LanguagesScreen::yourLanguages, s -> {
+                List<String> titles = s.titles();
+                if (titles.size() != names.size()) {
+                    throw new AssertionError("Ожидали языки " + names + ", в списке: " + titles);
+                }
+                for (int i = 0; i < names.size(); i++) {
+                    if (!containsText(titles.get(i), names.get(i))) {
+                        throw new AssertionError("Строка " + (i + 1) + ": ожидали «" + names.get(i) + "», в списке: " + titles);
+                    }
+                }
+            });
             return this;
         });
     }
 
+    /** Подстрока без учёта регистра и повторных пробелов — семантика {@code CollectionCondition.texts}. */
+    private static boolean containsText(String actual, String expected) {
+        return reduceSpaces(actual).contains(reduceSpaces(expected));
+    }
+
+    private static String reduceSpaces(String s) {
+        return s.toLowerCase(Locale.ROOT).replaceAll("[\\s\u00a0]+", " ").trim();
+    }
+
     /**
      * Получить текущие языки из секции «Your languages» без пункта «Add language».
      *
@@ -124,14 +164,12 @@ public class LanguagesScreen {
      */
     public List<String> getCurrentLanguageTitles() {
         return step("Языки: получить текущие значения списка «Your languages»", () -> {
-            headerYourLanguages.shouldBe(Condition.visible)
-                    .shouldHave(Condition.or("RU/EN header",
-                            Condition.exactText("Ваши языки"),
-                            Condition.exactText("Your languages")));
-
-            titlesYourLanguages.shouldHave(com.codeborne.selenide.CollectionCondition.sizeGreaterThan(0));
+            YourLanguages state = ScreenSnapshot.verify("Список «Your languages»", LanguagesScreen::yourLanguages, s -> {
+                assertHeader(s);
+                if (s.titles().isEmpty()) throw new AssertionError("Список языков пуст");
+            });
 
-            List<String> values = titlesYourLanguages.texts().stream()
+            List<String> values = state.titles().stream()
                     .map(String::trim)
                     .filter(s -> !s.isBlank())
                     .filter(s -> !(s.equalsIgnoreCase("Add language") || s.equalsIgnoreCase("Добавить язык")))
@@ -1,21 +1,25 @@
 package guru.qa.ui.screens;
 
-import com.codeborne.selenide.CollectionCondition;
 import com.codeborne.selenide.Condition;
-import com.codeborne.selenide.ElementsCollection;
 import com.codeborne.selenide.appium.SelenideAppiumElement;
 import guru.qa.ui.app.App;
-import io.appium.java_client.AppiumBy;
+import guru.qa.ui.screens.components.OverlayGuard;
+import guru.qa.ui.utils.hierarchy.Clickability;
+import guru.qa.ui.utils.hierarchy.ScreenSnapshot;
+import guru.qa.ui.utils.hierarchy.ScreenSnapshot.UiNode;
+import guru.qa.ui.utils.hierarchy.UiSettle;
 import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.Rectangle;
+import org.w3c.dom.Document;
 
 import java.time.Duration;
 import java.util.Arrays;
-import java.util.regex.Pattern;
+import java.util.List;
+import java.util.function.Consumer;
 
 import static com.codeborne.selenide.appium.SelenideAppium.$;
 import static guru.qa.ui.allure.Steps.step;
 import static io.appium.java_client.AppiumBy.id;
-import static io.appium.java_client.AppiumBy.xpath;
 
 /**
  * Экран онбординга Wikipedia (Android).
@@ -25,7 +29,8 @@ import static io.appium.java_client.AppiumBy.xpath;
  * кнопок Skip/Continue/Get started и списка языков на первом слайде.</p>
  *
  * <p><b>Инварианты:</b> Appium 3 + UiAutomator2 (XPath 2.0), Selenide-Appium;
- * только устойчивые локаторы (id / XPath2); ожидания через {@code should*}.
+ * только устойчивые локаторы (id / XPath2). Проверки слайда идут по одному снимку иерархии ({@link Slide},
+ * {@link ScreenSnapshot#verify}) с повтором снимка до таймаута.
  * Правило клика: {@code visible=true && enabled=true && attribute(clickable)=true}.</p>
  *
  * <p><b>EN:</b> Onboarding screen Page Object for Wikipedia Android. Verifies and
@@ -49,48 +54,74 @@ public class OnboardingScreen {
     private static final String[] S4_TITLE = {"Данные и конфиденциальность", "Data & Privacy"};
     private static final String[] S4_SUB = {"не нужно предоставлять личную информацию", "not have to provide personal information"};
 
+    private static final String ID = "org.wikipedia.alpha:id/";
+    private static final String TITLE_ID = ID + "primaryTextView";
+    private static final String SUBTITLE_ID = ID + "secondaryTextView";
+    private static final String PAGE_INDICATOR_ID = ID + "view_onboarding_page_indicator";
+    private static final String IMAGE_ID = ID + "imageViewCentered";
+    private static final String ADD_LANGUAGE_ID = ID + "addLanguageButton";
+    private static final String LANGUAGES_LIST_ID = ID + "languagesList";
+    private static final String LANGUAGE_LABEL_ID = ID + "option_label";
+
+    private static final String DOTS_XPATH =
+            "//android.widget.HorizontalScrollView[@resource-id='" + PAGE_INDICATOR_ID + "']"
+                    + "/android.widget.LinearLayout/android.widget.LinearLayout";
+
+    /**
+     * Состояние слайда из одного снимка иерархии.
+     *
+     * @param title            заголовок
+     * @param subtitle         описание
+     * @param indicator        контейнер индикатора страниц (content-desc «Page N of 4»)
+     * @param dots             точки индикатора по порядку
+     * @param image            центральная картинка
+     * @param languagesList    список языков (слайд 1)
+     * @param languages        строк в списке языков
+     * @param addLanguage      кнопка «Add or edit languages»
+     * @param addLanguageLabel текст кнопки (свой или первого дочернего TextView)
+     */
+    public record Slide(UiNode title, UiNode subtitle, UiNode indicator, List<UiNode> dots, UiNode image,
+                        UiNode languagesList, int languages, UiNode addLanguage, String addLanguageLabel) {
+    }
+
     private final SelenideAppiumElement onboardingPager = $(id("org.wikipedia.alpha:id/fragment_onboarding_pager_container"));
-    private final SelenideAppiumElement title = $(id("org.wikipedia.alpha:id/primaryTextView"));
-    private final SelenideAppiumElement subtitle = $(id("org.wikipedia.alpha:id/secondaryTextView"));
+    private final SelenideAppiumElement title = $(id(TITLE_ID));
     private final SelenideAppiumElement skipBtn = $(id("org.wikipedia.alpha:id/fragment_onboarding_skip_button"));
     private final SelenideAppiumElement continueBtn = $(id("org.wikipedia.alpha:id/fragment_onboarding_forward_button"));
     private final SelenideAppiumElement getStartedBtn = $(id("org.wikipedia.alpha:id/fragment_onboarding_done_button"));
-    private final SelenideAppiumElement pageIndicator = $(id("org.wikipedia.alpha:id/view_onboarding_page_indicator"));
-    private final SelenideAppiumElement addOrEditLanguageBtn = $(id("org.wikipedia.alpha:id/addLanguageButton"));
-    private final SelenideAppiumElement centeredImage = $(id("org.wikipedia.alpha:id/imageViewCentered"));
-    private final SelenideAppiumElement languagesList = $(id("org.wikipedia.alpha:id/languagesList"));
+    private final SelenideAppiumElement addOrEditLanguageBtn = $(id(ADD_LANGUAGE_ID));
 
     private SelenideAppiumElement tabExplore() {
         return App.components().bottomTabBar.tabExplore;
     }
 
-    private static String dotXpath(int index) {
-        return "//android.widget.HorizontalScrollView[@resource-id='org.wikipedia.alpha:id/view_onboarding_page_indicator']"
-                + "/android.widget.LinearLayout/android.widget.LinearLayout[" + index + "]";
-    }
-
-    private static SelenideAppiumElement dot(int index) {
-        return $(xpath(dotXpath(index)));
+    private static void clickWhenReady(SelenideAppiumElement el, String name) {
+        step("Кликаем: " + name + " (visible+enabled+clickable)", () -> OverlayGuard.tap(el, name));
     }
 
-    private static void clickWhenReady(SelenideAppiumElement el, String name) {
-        step("Кликаем: " + name + " (visible+enabled+clickable)", () ->
-                el.shouldBe(Condition.visible.because(name + " должна быть видима"))
-                        .shouldBe(Condition.enabled.because(name + " должна быть доступна"))
-                        .shouldHave(Condition.attribute("clickable", "true").because(name + " должна быть кликабельна"))
-                        .tap()
-        );
+    /** Состояние текущего слайда из снимка иерархии. */
+    private static Slide slide(Document doc) {
+        UiNode addLanguage = ScreenSnapshot.node(doc, ADD_LANGUAGE_ID);
+        String label = addLanguage.text();
+        if (label.isBlank()) {
+            label = ScreenSnapshot.nodes(doc, "//*[@resource-id='" + ADD_LANGUAGE_ID + "']//android.widget.TextView")
+                    .stream().map(UiNode::text).findFirst().orElse("");
+        }
+        return new Slide(
+                ScreenSnapshot.node(doc, TITLE_ID),
+                ScreenSnapshot.node(doc, SUBTITLE_ID),
+                ScreenSnapshot.node(doc, PAGE_INDICATOR_ID),
+                ScreenSnapshot.nodes(doc, DOTS_XPATH),
+                ScreenSnapshot.node(doc, IMAGE_ID),
+                ScreenSnapshot.node(doc, LANGUAGES_LIST_ID),
+                ScreenSnapshot.nodes(doc, "//*[@resource-id='" + LANGUAGES_LIST_ID + "']//*[@resource-id='" + LANGUAGE_LABEL_ID + "']").size(),
+                addLanguage,
+                label);
     }
 
-    private static String readButtonLabel(SelenideAppiumElement btn) {
-        try {
-            String t = btn.getText();
-            if (!t.isBlank()) return t;
-        } catch (RuntimeException ignored) {}
-        try {
-            return btn.$(AppiumBy.xpath(".//android.widget.TextView")).getText();
-        } catch (RuntimeException ignored) {}
-        return "";
+    /** Проверить блок утверждений по одному снимку слайда (повтор снимка до таймаута). */
+    private static Slide verify(String name, Consumer<Slide> assertions) {
+        return ScreenSnapshot.verify(name, OnboardingScreen::slide, assertions);
     }
 
     private static String safeText(SelenideAppiumElement el) {
@@ -119,10 +150,6 @@ public class OnboardingScreen {
                 .replaceAll("\\s+", " ");
     }
 
-    private ElementsCollection languageItems() {
-        return languagesList.$$(id("org.wikipedia.alpha:id/option_label"));
-    }
-
     /**
      * Проверить, что контейнер онбординга существует (экран открыт).
      * <b>EN:</b> Returns whether onboarding container exists.
@@ -150,15 +177,8 @@ public class OnboardingScreen {
      * <b>EN:</b> Title should contain any of expected variants.
      */
     public OnboardingScreen shouldHaveTitle(String... variants) {
-        return step("Онбординг: заголовок содержит один из ожидаемых вариантов", () -> {
-            step("Читаем заголовок текущего слайда", () -> {
-                String act = normalizeLoose(safeText(title));
-                step("Сравниваем с эталонами: " + Arrays.toString(variants), () -> {
-                    if (!containsAny(act, variants)) {
-                        throw new AssertionError("Заголовок не совпал. Факт: '" + act + "'");
-                    }
-                });
-            });
+        return step("Онбординг: заголовок содержит один из ожидаемых вариантов " + Arrays.toString(variants), () -> {
+            verify("Заголовок слайда", s -> assertTitle(s, variants));
             return this;
         });
     }
@@ -168,15 +188,8 @@ public class OnboardingScreen {
      * <b>EN:</b> Subtitle should contain any of expected variants.
      */
     public OnboardingScreen shouldHaveSubtitle(String... variants) {
-        return step("Онбординг: описание содержит один из ожидаемых вариантов", () -> {
-            step("Читаем подзаголовок текущего слайда", () -> {
-                String act = normalizeLoose(safeText(subtitle));
-                step("Сравниваем с эталонами: " + Arrays.toString(variants), () -> {
-                    if (!containsAny(act, variants)) {
-                        throw new AssertionError("Описание не совпало. Факт: '" + act + "'");
-                    }
-                });
-            });
+        return step("Онбординг: описание содержит один из ожидаемых вариантов " + Arrays.toString(variants), () -> {
+            verify("Описание слайда", s -> assertSubtitle(s, variants));
             return this;
         });
     }
@@ -191,19 +204,8 @@ public class OnboardingScreen {
                 if (step < 1 || step > 4)
                     throw new IllegalArgumentException("step должен быть 1..4, получено: " + step);
             });
-            step("Проверяем content-desc контейнера индикатора (RU/EN)", () ->
-                    pageIndicator.should(Condition.or("content-desc RU/EN",
-                            Condition.attribute("content-desc", "Шаг " + step + " из 4"),
-                            Condition.attribute("content-desc", "Page " + step + " of 4")))
-            );
-            step("Активная точка №" + step + " имеет selected=true", () ->
-                    dot(step).shouldHave(Condition.attribute("selected", "true"))
-            );
-            step("Остальные точки имеют selected=false", () -> {
-                for (int i = 1; i <= 4; i++)
-                    if (i != step)
-                        dot(i).shouldHave(Condition.attribute("selected", "false"));
-            });
+            step("Проверяем content-desc индикатора (RU/EN) и selected-точки одним снимком", () ->
+                    verify("Индикатор шага " + step, s -> assertStep(s, step)));
             return this;
         });
     }
@@ -214,13 +216,7 @@ public class OnboardingScreen {
      */
     public OnboardingScreen shouldShowCenteredImage() {
         return step("Онбординг: центральная картинка отображается и не интерактивна", () -> {
-            step("Картинка видима и активна", () ->
-                    centeredImage.shouldBe(Condition.visible).shouldBe(Condition.enabled)
-            );
-            step("Атрибуты интерактивности выключены", () -> {
-                centeredImage.shouldHave(Condition.attribute("clickable", "false"));
-                centeredImage.shouldHave(Condition.attribute("focusable", "false"));
-            });
+            verify("Центральная картинка", OnboardingScreen::assertImage);
             return this;
         });
     }
@@ -231,15 +227,11 @@ public class OnboardingScreen {
      */
     public int[] getCenteredImageBounds() {
         return step("Онбординг: получить границы центральной картинки", () -> {
-            final int[][] bb = {null};
-            step("Читаем и парсим bounds", () -> {
-                String b = centeredImage.getAttribute("bounds");
-                var m = Pattern.compile("\\[(\\d+),(\\d+)]\\[(\\d+),(\\d+)]").matcher(b == null ? "" : b);
-                if (!m.find()) throw new IllegalStateException("Не удалось распарсить bounds: " + b);
-                bb[0] = new int[]{Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)),
-                        Integer.parseInt(m.group(3)), Integer.parseInt(m.group(4))};
+            Slide s = verify("Границы центральной картинки", slide -> {
+                if (!slide.image().present()) throw new AssertionError("Центральной картинки нет на экране");
             });
-            return bb[0];
+            Rectangle b = s.image().bounds();
+            return new int[]{b.getX(), b.getY(), b.getX() + b.getWidth(), b.getY() + b.getHeight()};
         });
     }
 
@@ -249,13 +241,7 @@ public class OnboardingScreen {
      */
     public OnboardingScreen imageLooksCenteredAndLarge() {
         return step("Онбординг: центральная картинка крупная и расположена по центру (эвристика)", () -> {
-            step("Проверяем эвристикой размеры картинки", () -> {
-                int[] b = getCenteredImageBounds();
-                int w = Math.max(0, b[2] - b[0]);
-                int h = Math.max(0, b[3] - b[1]);
-                if (w < 400 || h < 400)
-                    throw new AssertionError("Ожидалась крупная картинка, получили w=" + w + ", h=" + h);
-            });
+            verify("Размер центральной картинки", OnboardingScreen::assertImageLarge);
             return this;
         });
     }
@@ -317,7 +303,7 @@ public class OnboardingScreen {
      */
     public void skipIfVisible() {
         step("Онбординг: завершить сразу через «Пропустить», если доступно", () -> {
-            if (skipBtn.is(Condition.appear, Duration.ofSeconds(5))) {
+            if (skipAvailable()) {
                 step("Нажимаем Skip", this::skipAll);
                 step("Проверяем выход на главный экран", this::verifyExitedToExplore);
             } else {
@@ -332,12 +318,7 @@ public class OnboardingScreen {
      */
     public OnboardingScreen shouldHaveAddLanguageButton() {
         return step("Онбординг: кнопка добавления/редактирования языков доступна", () -> {
-            step("Проверяем visible + enabled + clickable", () ->
-                    addOrEditLanguageBtn
-                            .shouldBe(Condition.visible.because("Кнопка должна быть видима"))
-                            .shouldBe(Condition.enabled.because("Кнопка должна быть активна"))
-                            .shouldHave(Condition.attribute("clickable", "true").because("Кнопка должна быть кликабельна"))
-            );
+            verify("Кнопка языков", OnboardingScreen::assertAddLanguageButton);
             return this;
         });
     }
@@ -347,13 +328,8 @@ public class OnboardingScreen {
      * <b>EN:</b> Language button label equals any expected value.
      */
     public OnboardingScreen shouldHaveLabel(String... labels) {
-        return step("Онбординг: лейбл кнопки равен одному из ожидаемых", () -> {
-            step("Читаем текст кнопки", () -> {});
-            String label = readButtonLabel(addOrEditLanguageBtn);
-            step("Сравниваем с эталонами: " + Arrays.toString(labels), () -> {
-                for (String expected : labels) if (expected != null && expected.equals(label)) return;
-                throw new AssertionError("Ожидался один из " + Arrays.toString(labels) + ", фактически: '" + label + "'");
-            });
+        return step("Онбординг: лейбл кнопки равен одному из ожидаемых " + Arrays.toString(labels), () -> {
+            verify("Лейбл кнопки языков", s -> assertLabel(s, labels));
             return this;
         });
     }
@@ -364,10 +340,7 @@ public class OnboardingScreen {
      */
     public OnboardingScreen shouldHaveLanguagesList() {
         return step("Языки: список отображается и не пустой", () -> {
-            step("Проверяем наличие RecyclerView и элементов", () -> {
-                languagesList.shouldBe(Condition.visible).shouldBe(Condition.enabled);
-                languageItems().shouldHave(CollectionCondition.sizeGreaterThan(0));
-            });
+            verify("Список языков", OnboardingScreen::assertLanguagesList);
             return this;
         });
     }
@@ -413,86 +386,135 @@ public class OnboardingScreen {
     }
 
     /**
-     * Проверки слайда 1 (Languages).
+     * Проверки слайда 1 (Languages): индикатор, тексты, картинка и блок языков — одним снимком.
      * <b>EN:</b> Verify slide 1.
      */
     public OnboardingScreen verifySlide1() {
         return step("Онбординг: проверить слайд 1 (Языки)", () -> {
-            step("Проверяем индикатор и тексты", () -> {
-                shouldBeOnStep(1);
-                shouldHaveTitle(S1_TITLE);
-                shouldHaveSubtitle(S1_SUB);
-            });
-            step("Проверяем изображение", () -> {
-                shouldShowCenteredImage();
-                imageLooksCenteredAndLarge();
-            });
-            step("Проверяем блок языков", () -> {
-                shouldHaveLanguagesList();
-                shouldHaveAddLanguageButton();
-                shouldHaveLabel(BTN_ADD);
+            verify("Слайд 1", s -> {
+                assertSlide(s, 1, S1_TITLE, S1_SUB);
+                assertLanguagesList(s);
+                assertAddLanguageButton(s);
+                assertLabel(s, BTN_ADD);
             });
             return this;
         });
     }
 
     /**
-     * Проверки слайда 2 (Explore).
+     * Проверки слайда 2 (Explore) одним снимком.
      * <b>EN:</b> Verify slide 2.
      */
     public OnboardingScreen verifySlide2() {
         return step("Онбординг: проверить слайд 2 (Explore)", () -> {
-            step("Проверяем индикатор и тексты", () -> {
-                shouldBeOnStep(2);
-                shouldHaveTitle(S2_TITLE);
-                shouldHaveSubtitle(S2_SUB);
-            });
-            step("Проверяем изображение", () -> {
-                shouldShowCenteredImage();
-                imageLooksCenteredAndLarge();
-            });
+            verify("Слайд 2", s -> assertSlide(s, 2, S2_TITLE, S2_SUB));
             return this;
         });
     }
 
     /**
-     * Проверки слайда 3 (Reading lists).
+     * Проверки слайда 3 (Reading lists) одним снимком.
      * <b>EN:</b> Verify slide 3.
      */
     public OnboardingScreen verifySlide3() {
         return step("Онбординг: проверить слайд 3 (Reading lists)", () -> {
-            step("Проверяем индикатор и тексты", () -> {
-                shouldBeOnStep(3);
-                shouldHaveTitle(S3_TITLE);
-                shouldHaveSubtitle(S3_SUB);
-            });
-            step("Проверяем изображение", () -> {
-                shouldShowCenteredImage();
-                imageLooksCenteredAndLarge();
-            });
+            verify("Слайд 3", s -> assertSlide(s, 3, S3_TITLE, S3_SUB));
             return this;
         });
     }
 
     /**
-     * Проверки слайда 4 (Privacy).
+     * Проверки слайда 4 (Privacy) одним снимком.
      * <b>EN:</b> Verify slide 4.
      */
     public OnboardingScreen verifySlide4() {
         return step("Онбординг: проверить слайд 4 (Privacy)", () -> {
-            step("Проверяем индикатор и тексты", () -> {
-                shouldBeOnStep(4);
-                shouldHaveTitle(S4_TITLE);
-                shouldHaveSubtitle(S4_SUB);
-            });
-            step("Проверяем изображение", () -> {
-                shouldShowCenteredImage();
-                imageLooksCenteredAndLarge();
-            });
+            verify("Слайд 4", s -> assertSlide(s, 4, S4_TITLE, S4_SUB));
             return this;
         });
     }
 
+    /** Индикатор, тексты и картинка слайда. */
+    private static void assertSlide(Slide s, int step, String[] titles, String[] subtitles) {
+        assertStep(s, step);
+        assertTitle(s, titles);
+        assertSubtitle(s, subtitles);
+        assertImage(s);
+        assertImageLarge(s);
+    }
+
+    private static void assertTitle(Slide s, String... variants) {
+        String act = normalizeLoose(s.title().text());
+        if (!containsAny(act, variants)) throw new AssertionError("Заголовок не совпал. Факт: '" + act + "'");
+    }
+
+    private static void assertSubtitle(Slide s, String... variants) {
+        String act = normalizeLoose(s.subtitle().text());
+        if (!containsAny(act, variants)) throw new AssertionError("Описание не совпало. Факт: '" + act + "'");
+    }
+
+    private static void assertStep(Slide s, int step) {
+        String desc = s.indicator().contentDesc();
+        if (!desc.equals("Шаг " + step + " из 4") && !desc.equals("Page " + step + " of 4")) {
+            throw new AssertionError("content-desc индикатора: ожидали шаг " + step + " из 4, факт: '" + desc + "'");
+        }
+        if (s.dots().size() < 4) throw new AssertionError("Ожидали 4 точки индикатора, найдено: " + s.dots().size());
+        for (int i = 1; i <= 4; i++) {
+            boolean selected = s.dots().get(i - 1).selected();
+            if (selected != (i == step)) {
+                throw new AssertionError("Точка №" + i + ": selected=" + selected + " (активной должна быть №" + step + ")");
+            }
+        }
+    }
+
+    private static void assertImage(Slide s) {
+        UiNode image = s.image();
+        if (!image.visible() || !image.enabled()) {
+            throw new AssertionError("Центральная картинка должна быть видима и активна: " + image);
+        }
+        if (image.clickable() || image.focusable()) {
+            throw new AssertionError("Центральная картинка не должна быть интерактивной: " + image);
+        }
+    }
+
+    private static void assertImageLarge(Slide s) {
+        Rectangle b = s.image().bounds();
+        if (b.getWidth() < 400 || b.getHeight() < 400) {
+            throw new AssertionError("Ожидалась крупная картинка, получили w=" + b.getWidth() + ", h=" + b.getHeight());
+        }
+    }
+
+    private static void assertLanguagesList(Slide s) {
+        if (!s.languagesList().visible() || !s.languagesList().enabled()) {
+            throw new AssertionError("Список языков должен быть видим и активен: " + s.languagesList());
+        }
+        if (s.languages() == 0) throw new AssertionError("Список языков пуст");
+    }
+
+    private static void assertAddLanguageButton(Slide s) {
+        UiNode btn = s.addLanguage();
+        if (!btn.visible()) throw new AssertionError("Кнопка языков должна быть видима");
+        if (!btn.enabled()) throw new AssertionError("Кнопка языков должна быть активна");
+        if (!btn.clickable()) throw new AssertionError("Кнопка языков должна быть кликабельна");
+    }
+
+    private static void assertLabel(Slide s, String... labels) {
+        for (String expected : labels) if (expected != null && expected.equals(s.addLanguageLabel())) return;
+        throw new AssertionError("Ожидался один из " + Arrays.toString(labels) + ", фактически: '" + s.addLanguageLabel() + "'");
+    }
+
+    /**
+     * Skip на экране: если в устоявшемся снимке уже есть пейджер онбординга или таб «Лента», ответ даёт этот снимок;
+     * иначе (сплэш ещё на экране и тоже «устоялся») — ждём появления Skip до 5 с.
+     */
+    private boolean skipAvailable() {
+        Document doc = UiSettle.await().document();
+        if (Clickability.in(doc, onboardingPager).isPresent() || Clickability.in(doc, tabExplore()).isPresent()) {
+            return Clickability.in(doc, skipBtn).filter(Clickability::displayed).isPresent();
+        }
+        return skipBtn.is(Condition.appear, Duration.ofSeconds(5));
+    }
+
     private void verifyExitedToExplore() {
         step("Ждём вкладку Explore на нижней панели", () ->
                 tabExplore().shouldBe(Condition.visible.because("После онбординга должна появиться нижняя панель «Explore»"))
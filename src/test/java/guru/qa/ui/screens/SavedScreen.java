@@ -1,10 +1,16 @@
 package guru.qa.ui.screens;
 
 import com.codeborne.selenide.Condition;
+import com.codeborne.selenide.Configuration;
 import com.codeborne.selenide.appium.SelenideAppiumElement;
-import io.appium.java_client.AppiumBy;
+import guru.qa.ui.screens.components.OverlayGuard;
+import guru.qa.ui.utils.gestures.ListScanner;
+import guru.qa.ui.utils.hierarchy.Locators;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
+import java.util.Locale;
+
 import static com.codeborne.selenide.appium.SelenideAppium.$;
 import static guru.qa.ui.allure.Steps.step;
 import static io.appium.java_client.AppiumBy.id;
@@ -33,13 +39,10 @@ public class SavedScreen {
     private final SelenideAppiumElement overflowButton =
             $(id("org.wikipedia.alpha:id/menu_overflow_button"));
 
-    /** Промо-карточка «Weekly Reading List». */
-    private final SelenideAppiumElement onboardingCard =
-            $(id("org.wikipedia.alpha:id/onboarding_view"));
-
-    /** Кнопка «Нет, спасибо» в промо. */
-    private final SelenideAppiumElement promoDismissBtn =
-            $(id("org.wikipedia.alpha:id/negativeButton"));
+    /** Прокручиваемый список статей внутри списка чтения. */
+    private final SelenideAppiumElement articlesList = $(Locators.xpath(
+            "(//*[@resource-id='org.wikipedia.alpha:id/reading_list_recycler_view']"
+                    + " | //androidx.recyclerview.widget.RecyclerView[@scrollable='true'])[1]"));
 
     /**
      * Проверить, что экран «Сохранённые» открыт (видны ключевые элементы тулбара).
@@ -61,9 +64,8 @@ public class SavedScreen {
      */
     public void dismissWeeklyPromoIfShown() {
         step("Закрыть промо на вкладке «Сохранённые», если показано", () -> {
-            if (onboardingCard.exists()) {
-                promoDismissBtn.shouldBe(Condition.visible).click();
-            }
+            // промо — одна из известных перебивок стража: одно чтение иерархии вместо exists() + shouldBe
+            OverlayGuard.dismissAll();
         });
     }
 
@@ -73,10 +75,10 @@ public class SavedScreen {
      */
     public void openDefaultReadingListIfNeeded() {
         step("Открыть дефолтный список «Сохранённое», если требуется", () -> {
-            var defaultList = $(AppiumBy.xpath(
+            var defaultList = $(Locators.xpath(
                     "//*[matches(lower-case(@text),'^сохранённое$|^saved$')]"));
             if (defaultList.exists()) {
-                defaultList.click();
+                OverlayGuard.retryIfObscured("Список «Сохранённое»", defaultList::click);
             }
         });
     }
@@ -90,9 +92,13 @@ public class SavedScreen {
     public void shouldContainArticleTitled(guru.qa.ui.utils.DataExtractor data) {
         step("Статья из поиска присутствует в списке чтения", () -> {
             final String title = data.getArticleName();
-            $(AppiumBy.xpath(
-                    "//android.widget.TextView[matches(lower-case(@text),'^" + title.toLowerCase() + "$')]"
-            )).shouldBe(Condition.visible.because("Статья '" + title + "' должна быть в списке"));
+            SelenideAppiumElement article = $(Locators.xpath(
+                    "//android.widget.TextView[lower-case(@text)=%s]", Locators.literal(title.toLowerCase(Locale.ROOT))));
+            if (ListScanner.supports(articlesList, article)) {
+                // длинный список: докручиваем до статьи, у конца списка — сразу ошибка со списком увиденного
+                ListScanner.scrollTo(articlesList, article, Duration.ofMillis(Configuration.timeout));
+            }
+            article.shouldBe(Condition.visible.because("Статья '" + title + "' должна быть в списке"));
         });
     }
 }
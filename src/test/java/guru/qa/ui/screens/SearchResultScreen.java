@@ -1,11 +1,28 @@
 package guru.qa.ui.screens;
 
 import com.codeborne.selenide.Condition;
+import com.codeborne.selenide.Configuration;
+import com.codeborne.selenide.Selenide;
+import com.codeborne.selenide.WebDriverRunner;
 import com.codeborne.selenide.appium.SelenideAppiumCollection;
 import com.codeborne.selenide.appium.SelenideAppiumElement;
+import guru.qa.ui.reporting.GestureTelemetry;
+import guru.qa.ui.screens.components.OverlayGuard;
 import guru.qa.ui.utils.DataExtractor;
+import guru.qa.ui.utils.hierarchy.HierarchySnapshot;
+import guru.qa.ui.utils.hierarchy.UiSettle;
 import io.appium.java_client.AppiumBy;
+import io.appium.java_client.android.AndroidDriver;
 import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.remote.RemoteWebElement;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import static com.codeborne.selenide.CollectionCondition.sizeGreaterThan;
 import static com.codeborne.selenide.appium.SelenideAppium.$;
@@ -29,14 +46,23 @@ import static guru.qa.ui.allure.Steps.step;
 @Slf4j
 public class SearchResultScreen {
 
+    /** Режим ввода запроса: {@code keys} (clear + setValue) или {@code fast} (значение целиком). */
+    private static final boolean FAST_INPUT = "fast".equalsIgnoreCase(System.getProperty("ui.search.input", "keys"));
+
+    /** Сколько неизменная выдача должна простоять после ввода, чтобы считаться выдачей по запросу, мс. */
+    private static final long QUIET_MS = Long.getLong("ui.search.quietMs", 1500);
+
+    private static final String RESULT_TITLE_ID = "org.wikipedia.alpha:id/page_list_item_title";
+    private static final String SEARCH_INPUT_ID = "org.wikipedia.alpha:id/search_src_text";
+
     private final SelenideAppiumElement resultsList =
             $(AppiumBy.id("org.wikipedia.alpha:id/search_results_list"));
 
     private final SelenideAppiumCollection resultTitles =
-            $$(AppiumBy.id("org.wikipedia.alpha:id/page_list_item_title"));
+            $$(AppiumBy.id(RESULT_TITLE_ID));
 
     private final SelenideAppiumElement searchInput =
-            $(AppiumBy.id("org.wikipedia.alpha:id/search_src_text"));
+            $(AppiumBy.id(SEARCH_INPUT_ID));
 
     /**
      * Экран результатов открыт (список существует и видим).
@@ -79,13 +105,20 @@ public class SearchResultScreen {
             final String title = first.getText().trim();
             log.info("Первый результат: '{}'", title);
             extractor.setArticleName(title);
-            first.click();
+            OverlayGuard.retryIfObscured("Первый результат", first::click);
         });
     }
 
     /**
      * Ввести поисковый запрос в поле поиска.
-     * <br><b>EN:</b> Type query into the search input.
+     *
+     * <p>Режим — {@code ui.search.input}: {@code keys} (по умолчанию) — прежний путь без изменений: {@code clear()} +
+     * {@code setValue()} + список результатов существует; {@code fast} ({@code -Dui.search.input=fast}) — текст целиком
+     * одной командой ({@code mobile: replaceElementValue}), клавиатура скрыта, отправка синтетическим IME-действием
+     * {@code search}, затем ожидание обновления выдачи по снимкам иерархии ({@link #awaitResults(String, List)}).
+     * Время «ввод → выдача» пишется в лог ({@code [Search]}) и в UI-тайминги {@link GestureTelemetry}
+     * ({@code search:fast} / {@code search:keys}) для сравнения стратегий.</p>
+     * <br><b>EN:</b> Type query into the search input (fast bulk set or key-by-key, see {@code ui.search.input}).
      *
      * @param query строка запроса
      * @return текущий экран
@@ -93,10 +126,104 @@ public class SearchResultScreen {
     public SearchResultScreen typeQuery(String query) {
         return step("Ввести поисковый запрос: " + query, () -> {
             searchInput.shouldBe(Condition.visible
-                    .because("Поле поиска должно быть видно")).clear();
-            searchInput.setValue(query);
-            resultsList.should(Condition.exist.because("Должен появиться список результатов"));
+                    .because("Поле поиска должно быть видно"));
+            long started = System.nanoTime();
+            String first;
+            if (FAST_INPUT) {
+                List<String> before = results(HierarchySnapshot.document());
+                typeFast(query);
+                first = awaitResults(query, before);
+            } else {
+                searchInput.clear();
+                searchInput.setValue(query);
+                resultsList.should(Condition.exist.because("Должен появиться список результатов"));
+                first = null;
+            }
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            GestureTelemetry.recordUi("search:" + (FAST_INPUT ? "fast" : "keys"), millis);
+            log.info("[Search] «{}» → выдача за {} мс ({}{})", query, millis, FAST_INPUT ? "fast" : "keys",
+                    first == null ? "" : ", первый результат «" + first + "»");
             return this;
         });
     }
+
+    /* ===== internals ===== */
+
+    /** Быстрый ввод: значение целиком, клавиатура скрыта, IME-действие «поиск». */
+    private void typeFast(String query) {
+        AndroidDriver driver = (AndroidDriver) WebDriverRunner.getWebDriver();
+        String elementId = ((RemoteWebElement) searchInput.getWrappedElement()).getId();
+        driver.executeScript("mobile: replaceElementValue", Map.of("elementId", elementId, "text", query));
+        try {
+            if (driver.isKeyboardShown()) driver.hideKeyboard();
+        } catch (RuntimeException e) {
+            log.debug("[Search] клавиатура не скрыта: {}", e.toString());
+        }
+        try {
+            driver.executeScript("mobile: performEditorAction", Map.of("action", "search"));
+        } catch (RuntimeException e) {
+            // приложение фильтрует по изменению текста — без IME-действия результаты всё равно обновятся
+            log.debug("[Search] IME-действие search не выполнено: {}", e.toString());
+        }
+        HierarchySnapshot.invalidate();
+    }
+
+    /**
+     * Дождаться выдачи по запросу: в поле ровно {@code query}, индикатора загрузки нет, результаты есть и
+     * перерисовались (тексты или bounds отличаются от выдачи до ввода). Если выдача совпадает с прежней (уточнение
+     * запроса, другой регистр) — достаточно, чтобы она простояла без изменений {@code ui.search.quietMs}
+     * (по умолчанию 1500 мс) после того, как в поле оказался запрос.
+     *
+     * @param query  введённый запрос
+     * @param before выдача до ввода ({@link #results(Document)})
+     * @return заголовок первого результата
+     */
+    private String awaitResults(String query, List<String> before) {
+        long deadline = System.currentTimeMillis() + Configuration.timeout;
+        long quietSince = -1;
+        List<String> previous = null;
+        while (System.currentTimeMillis() < deadline) {
+            Document doc = HierarchySnapshot.refresh();
+            List<String> now = results(doc);
+            boolean ready = query.equals(visibleText(doc, SEARCH_INPUT_ID)) && !now.isEmpty() && !UiSettle.loading(doc);
+            if (ready && !now.equals(before)) return visibleText(doc, RESULT_TITLE_ID);
+            if (ready && now.equals(previous)) {
+                if (quietSince < 0) quietSince = System.currentTimeMillis();
+                if (System.currentTimeMillis() - quietSince >= QUIET_MS) return visibleText(doc, RESULT_TITLE_ID);
+            } else {
+                quietSince = -1;
+            }
+            previous = ready ? now : null;
+            Selenide.sleep(Configuration.pollingInterval);
+        }
+        // за таймаут сигнала нет — последняя проверка теми же условиями через Selenide (ошибка со скриншотом и отчётом)
+        searchInput.shouldHave(Condition.exactText(query).because("В поле поиска должен быть запрос"), Duration.ZERO);
+        resultTitles.shouldHave(sizeGreaterThan(0).because("Должны появиться результаты поиска"), Duration.ZERO);
+        return resultTitles.first().getText();
+    }
+
+    /** Выдача в снимке: текст и bounds каждого видимого заголовка результата (сигнатура перерисовки списка). */
+    private static List<String> results(Document doc) {
+        List<String> out = new ArrayList<>();
+        NodeList all = doc.getElementsByTagName("*");
+        for (int i = 0; i < all.getLength(); i++) {
+            Element e = (Element) all.item(i);
+            if (RESULT_TITLE_ID.equals(e.getAttribute("resource-id")) && HierarchySnapshot.bounds(e).getHeight() > 0) {
+                out.add(e.getAttribute("text") + "@" + e.getAttribute("bounds"));
+            }
+        }
+        return out;
+    }
+
+    /** Текст первого видимого узла с resource-id в снимке; {@code null}, если такого нет. */
+    private static String visibleText(Document doc, String resourceId) {
+        NodeList all = doc.getElementsByTagName("*");
+        for (int i = 0; i < all.getLength(); i++) {
+            Element e = (Element) all.item(i);
+            if (resourceId.equals(e.getAttribute("resource-id")) && HierarchySnapshot.bounds(e).getHeight() > 0) {
+                return e.getAttribute("text");
+            }
+        }
+        return null;
+    }
 }
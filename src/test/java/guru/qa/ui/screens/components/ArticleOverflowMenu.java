@@ -35,12 +35,12 @@ public class ArticleOverflowMenu {
      */
     public ArticleOverflowMenu goToExplore() {
         return step("В меню выбрать «Лента»", () -> {
-            exploreItem
+            OverlayGuard.retryIfObscured("Меню «Лента»", () -> exploreItem
                     .shouldBe(Condition.visible.because("Элемент меню «Лента» должен быть виден"))
                     .shouldBe(Condition.enabled.because("Элемент меню «Лента» должен быть доступен"))
                     .shouldHave(Condition.attribute("clickable", "true")
                             .because("Элемент меню «Лента» должен быть кликабелен"))
-                    .tap();
+                    .tap());
             return this;
         });
     }
@@ -61,7 +61,7 @@ public class BottomTabBar {
                     tab.shouldBe(enabled)
             );
 
-            step("Клик по табу", () -> tab.click());
+            step("Клик по табу", () -> OverlayGuard.retryIfObscured("Таб " + humanName, tab::click));
 
             step("Проверка: таб выбран (selected=true)", () -> {
                 tab.shouldHave(attribute("selected", "true"));
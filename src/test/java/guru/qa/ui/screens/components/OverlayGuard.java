@@ -0,0 +1,227 @@
+package guru.qa.ui.screens.components;
+
+import com.codeborne.selenide.WebDriverRunner;
+import com.codeborne.selenide.appium.SelenideAppiumElement;
+import com.codeborne.selenide.ex.ElementNotFound;
+import guru.qa.ui.utils.gestures.AndroidMobileGestures;
+import guru.qa.ui.utils.gestures.GestureArea;
+import guru.qa.ui.utils.gestures.GestureDirection;
+import guru.qa.ui.utils.hierarchy.Clickability;
+import guru.qa.ui.utils.hierarchy.HierarchySnapshot;
+import guru.qa.ui.utils.hierarchy.ScreenSnapshot;
+import guru.qa.ui.utils.hierarchy.ScreenSnapshot.UiNode;
+import guru.qa.ui.utils.hierarchy.UiSettle;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.ElementClickInterceptedException;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.Rectangle;
+import org.w3c.dom.Document;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Страж оверлеев: все известные «перебивки» (объявление ленты, WikiGames, «Понятно / Got it», промо Saved, snackbar)
+ * находятся одним чтением иерархии и закрываются за один проход.
+ *
+ * <p><b>Зачем:</b> {@code closeAllIfShown} ждал появления объявления до 5 с и проверял ещё два локатора — тест платил
+ * эти ожидания заранее, хотя оверлеев обычно нет. Теперь проверка стоит один (часто закешированный) снимок
+ * {@link HierarchySnapshot}; после закрытия экран дожидается {@link UiSettle}, и следующий проход ловит оверлей,
+ * открывшийся под закрытым.</p>
+ *
+ * <p><b>Повтор действия:</b> тапы и клики экранов идут через {@link #tap} / {@link #retryIfObscured}. Повторяется
+ * одно упавшее действие — не весь шаг: уже выполненные действия шага (ввод, переключатели вроде «Сохранить»)
+ * не повторяются. Повод — перекрытие: клик перехвачен / элемент не интерактивен
+ * ({@link ElementClickInterceptedException}, {@link ElementNotInteractableException}) или элемент не найден, пока
+ * в снимке виден модальный оверлей; во всех этих случаях действие не выполнилось. Проверки и условия Selenide
+ * не повторяются; если закрывать было нечего — ошибка пробрасывается как есть. {@code -Dui.overlayGuard=false} —
+ * без повторов.</p>
+ *
+ * <p>Новые перебивки регистрируются через {@link #register(Interrupter)}.</p>
+ */
+@Slf4j
+public final class OverlayGuard {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("ui.overlayGuard", "true"));
+
+    /** Проходов за вызов: оверлеи, открывшиеся под закрытыми. */
+    private static final int MAX_PASSES = 3;
+
+    private static final String ID = "org.wikipedia.alpha:id/";
+
+    /** Крестик диалога WikiGames: {@code closeButton} внутри контейнера с «game» в resource-id. */
+    private static final String GAMES_CLOSE = "//*[@resource-id='" + ID + "closeButton']"
+            + "[ancestor::*[contains(@resource-id,':id/') and contains(lower-case(@resource-id),'game')]]";
+
+    private static final List<Interrupter> KNOWN = new CopyOnWriteArrayList<>();
+
+    /** Страж уже работает в этом потоке (его жесты идут через шаги — без рекурсии). */
+    private static final ThreadLocal<Boolean> ACTIVE = ThreadLocal.withInitial(() -> false);
+
+    static {
+        register(new Interrupter("Announcement",
+                "//*[@resource-id='" + ID + "view_announcement_container']",
+                "//*[@resource-id='" + ID + "view_announcement_action_negative']", Dismiss.TAP, false));
+        // closeButton есть и на других экранах — перебивка только внутри контейнера игр (…:id/…game…)
+        register(new Interrupter("WikiGames",
+                GAMES_CLOSE,
+                GAMES_CLOSE, Dismiss.TAP, true));
+        register(new Interrupter("Got it",
+                "//*[matches(lower-case(@text),'^понятно$|^got it$')]",
+                "//*[matches(lower-case(@text),'^понятно$|^got it$')]", Dismiss.TAP, true));
+        register(new Interrupter("Saved weekly promo",
+                "//*[@resource-id='" + ID + "onboarding_view']",
+                "//*[@resource-id='" + ID + "negativeButton']", Dismiss.TAP, true));
+        register(new Interrupter("Snackbar",
+                "//*[@resource-id='com.google.android.material:id/snackbar_text']",
+                "//*[@resource-id='com.google.android.material:id/snackbar_text']/..", Dismiss.SWIPE_AWAY, false));
+    }
+
+    /** Как закрывается перебивка. */
+    public enum Dismiss {
+        /** Тап в центр узла {@code dismiss}. */
+        TAP,
+        /** Свайп узла {@code dismiss} вправо за край экрана (snackbar). */
+        SWIPE_AWAY
+    }
+
+    /**
+     * Известная перебивка.
+     *
+     * @param name    имя для логов
+     * @param detect  XPath узла, по которому перебивка видна
+     * @param dismiss XPath узла, которым она закрывается
+     * @param how     тап или свайп
+     * @param modal   перекрывает экран: элементы под ним пропадают из иерархии (не найден → повод закрыть и повторить)
+     */
+    public record Interrupter(String name, String detect, String dismiss, Dismiss how, boolean modal) {
+    }
+
+    private OverlayGuard() {
+    }
+
+    /**
+     * Добавить перебивку в реестр.
+     *
+     * @param interrupter описание
+     */
+    public static void register(Interrupter interrupter) {
+        KNOWN.add(interrupter);
+    }
+
+    /**
+     * Закрыть все известные перебивки, видимые сейчас: один снимок на проход, без ожидания появления.
+     *
+     * @return имена закрытых (пусто — ничего не мешало)
+     */
+    public static List<String> dismissAll() {
+        if (ACTIVE.get() || !WebDriverRunner.hasWebDriverStarted()) return List.of();
+        ACTIVE.set(true);
+        try {
+            long started = System.nanoTime();
+            List<String> dismissed = new ArrayList<>();
+            Set<String> done = new HashSet<>();
+            Document doc = HierarchySnapshot.document();
+            for (int pass = 0; pass < MAX_PASSES; pass++) {
+                List<String> now = dismissIn(doc, done);
+                if (now.isEmpty()) break;
+                dismissed.addAll(now);
+                doc = UiSettle.await().document();
+            }
+            long ms = (System.nanoTime() - started) / 1_000_000;
+            if (dismissed.isEmpty()) {
+                log.debug("[Overlays] перебивок нет ({} мс)", ms);
+            } else {
+                log.info("[Overlays] закрыто: {} ({} мс)", dismissed, ms);
+            }
+            return dismissed;
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+
+    /**
+     * Тап по правилу кликабельности ({@link Clickability#tap}); перекрыт оверлеем — закрыть и тапнуть ещё раз.
+     *
+     * @param el   элемент
+     * @param name имя для сообщений
+     */
+    public static void tap(SelenideAppiumElement el, String name) {
+        retryIfObscured(name, () -> Clickability.tap(el, name));
+    }
+
+    /**
+     * Выполнить одно действие UI; если оно упало из-за перекрытого элемента и страж что-то закрыл — повторить раз.
+     *
+     * <p>Только для одиночного действия (тап, клик с ожиданием готовности): повтор безопасен, потому что упавшее
+     * из-за перекрытия действие не выполнилось. Шаг из нескольких действий сюда не передаётся.</p>
+     *
+     * @param name   имя действия (для лога)
+     * @param action действие
+     */
+    public static void retryIfObscured(String name, Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException | AssertionError e) {
+            if (!ENABLED || ACTIVE.get() || !WebDriverRunner.hasWebDriverStarted()
+                    || !obscured(e, HierarchySnapshot::refresh)) {
+                throw e;
+            }
+            List<String> dismissed = dismissAll();
+            if (dismissed.isEmpty()) throw e;
+            log.warn("[Overlays] «{}» не выполнено ({}) — закрыты {}, повтор", name, e.getClass().getSimpleName(), dismissed);
+            action.run();
+        }
+    }
+
+    /* ===== internals ===== */
+
+    /** Закрыть перебивки, видимые в снимке (кроме уже закрытых этим вызовом). */
+    private static List<String> dismissIn(Document doc, Set<String> done) {
+        List<String> dismissed = new ArrayList<>();
+        for (Interrupter i : KNOWN) {
+            if (done.contains(i.name()) || firstVisible(doc, i.detect()).isEmpty()) continue;
+            Optional<UiNode> target = firstVisible(doc, i.dismiss());
+            if (target.isEmpty()) {
+                log.debug("[Overlays] {}: видно, но закрыть нечем ({})", i.name(), i.dismiss());
+                continue;
+            }
+            Rectangle b = target.get().bounds();
+            GestureArea area = new GestureArea(b.getX(), b.getY(), b.getWidth(), b.getHeight());
+            if (i.how() == Dismiss.TAP) {
+                AndroidMobileGestures.clickGesture(area);
+            } else {
+                AndroidMobileGestures.swipeIn(area, GestureDirection.RIGHT, 1.0, null);
+            }
+            done.add(i.name());
+            dismissed.add(i.name());
+        }
+        return dismissed;
+    }
+
+    private static Optional<UiNode> firstVisible(Document doc, String xpath) {
+        return ScreenSnapshot.nodes(doc, xpath).stream().filter(UiNode::visible).findFirst();
+    }
+
+    /**
+     * Ошибка — следствие перекрытия: клик перехвачен / элемент не интерактивен, либо элемент не найден, пока в снимке
+     * виден модальный оверлей. Проверки и условия ({@code ElementShould}, {@link AssertionError}, таймауты) — нет.
+     *
+     * @param e        ошибка действия
+     * @param snapshot свежий снимок экрана (снимается только для «не найден»)
+     * @return повтор после закрытия оверлеев имеет смысл
+     */
+    static boolean obscured(Throwable e, Supplier<Document> snapshot) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ElementClickInterceptedException || t instanceof ElementNotInteractableException) return true;
+        }
+        if (!(e instanceof ElementNotFound)) return false;
+        Document doc = snapshot.get();
+        return KNOWN.stream().anyMatch(i -> i.modal() && firstVisible(doc, i.detect()).isPresent());
+    }
+}
@@ -0,0 +1,48 @@
+package guru.qa.ui.screens.components;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.ElementClickInterceptedException;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.TimeoutException;
+import org.w3c.dom.Document;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Классификация падений действия {@link OverlayGuard#obscured} (без устройства).
+ *
+ * <p>Снимок экрана нужен только для «элемент не найден» — в остальных случаях он не снимается.</p>
+ */
+@Tag("unit")
+@DisplayName("OverlayGuard: перекрыт ли элемент оверлеем")
+class OverlayGuardTest {
+
+    private static final Supplier<Document> NO_SNAPSHOT = () -> fail("снимок экрана не должен сниматься");
+
+    @Test
+    @DisplayName("Перехваченный тап — повтор после закрытия оверлеев")
+    void clickInterceptedIsObscured() {
+        assertThat(OverlayGuard.obscured(new ElementClickInterceptedException("intercepted"), NO_SNAPSHOT)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Причина в цепочке — ElementNotInteractable: тоже перекрыт")
+    void notInteractableCauseIsObscured() {
+        Throwable e = new AssertionError("step failed", new ElementNotInteractableException("covered"));
+
+        assertThat(OverlayGuard.obscured(e, NO_SNAPSHOT)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Прочие падения — не оверлей, снимок не снимается")
+    void otherFailuresAreNotObscured() {
+        assertThat(OverlayGuard.obscured(new AssertionError("expected text"), NO_SNAPSHOT)).isFalse();
+        assertThat(OverlayGuard.obscured(new TimeoutException("timeout"), NO_SNAPSHOT)).isFalse();
+        assertThat(OverlayGuard.obscured(new IllegalStateException("boom"), NO_SNAPSHOT)).isFalse();
+    }
+}
@@ -2,6 +2,7 @@ package guru.qa.ui.screens.components;
 
 import com.codeborne.selenide.Condition;
 import com.codeborne.selenide.appium.SelenideAppiumElement;
+import guru.qa.ui.utils.hierarchy.Locators;
 import io.appium.java_client.AppiumBy;
 
 import static com.codeborne.selenide.appium.SelenideAppium.$;
@@ -23,7 +24,7 @@ public class WikiSnackbar {
             $(AppiumBy.id("com.google.android.material:id/snackbar_text"));
 
     private final SelenideAppiumElement textByXpath =
-            $(AppiumBy.xpath("//*[contains(lower-case(@text),'сохранено') or contains(lower-case(@text),'saved')]"));
+            $(Locators.xpath("//*[contains(lower-case(@text),'сохранено') or contains(lower-case(@text),'saved')]"));
 
     /**
      * Дождаться появления подтверждения сохранения в Snackbar.
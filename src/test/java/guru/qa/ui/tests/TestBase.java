@@ -2,19 +2,34 @@ package guru.qa.ui.tests;
 
 import com.codeborne.selenide.Configuration;
 import com.codeborne.selenide.Selenide;
+import com.codeborne.selenide.WebDriverRunner;
 import com.codeborne.selenide.logevents.SelenideLogger;
 import guru.qa.ui.app.App;
 import guru.qa.ui.drivers.BrowserstackDriver;
 import guru.qa.ui.drivers.LocalDriver;
+import guru.qa.ui.drivers.remote.SlotScheduler;
+import guru.qa.ui.drivers.session.ColdSession;
+import guru.qa.ui.drivers.session.SessionPipeline;
+import guru.qa.ui.drivers.session.WarmSession;
 import guru.qa.ui.helpers.Attach;
+import guru.qa.ui.helpers.MjpegScreen;
 import guru.qa.ui.logging.PrettySelenideRuListener;
+import guru.qa.ui.reporting.GestureTelemetry;
+import guru.qa.ui.reporting.SessionTimings;
+import guru.qa.ui.reporting.WaitAttribution;
+import guru.qa.ui.utils.hierarchy.HierarchySnapshot;
+import io.appium.java_client.AppiumBy;
 import io.qameta.allure.selenide.AllureSelenide;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.TestInfo;
+import org.openqa.selenium.WebDriver;
 import org.slf4j.MDC;
 
+import static com.codeborne.selenide.Condition.exist;
+import static com.codeborne.selenide.Selenide.$;
 import static com.codeborne.selenide.Selenide.closeWebDriver;
 import static com.codeborne.selenide.Selenide.open;
 import static com.codeborne.selenide.WebDriverRunner.hasWebDriverStarted;
@@ -29,6 +44,12 @@ import static com.codeborne.selenide.WebDriverRunner.hasWebDriverStarted;
  * <p><b>Правила:</b>
  * <ul>
  *   <li>Сессия создаётся <i>на каждый тест</i> ( {@code open()} в {@link #beforeEach(TestInfo)} ).</li>
+ *   <li>С {@code -Dsession.reuse=true} (local) сессия «тёплая»: живёт на класс/форк, между тестами —
+ *       {@link WarmSession#reset()}; при неудачном сбросе — новая сессия. Отказ — {@link ColdSession}.</li>
+ *   <li>С {@code -Dsession.prewarm=true} (remote) сессия следующего теста создаётся в фоне
+ *       ({@link SessionPipeline}), {@code beforeEach} берёт готовую.</li>
+ *   <li>Время старта сессии по фазам (+ «первый экран») — вложение Allure и {@code build/reports/run/}
+ *       ({@link SessionTimings}); латентность жестов теста — вложение «Gesture latency» ({@link GestureTelemetry}).</li>
  *   <li>Шаги — только через {@code Allure.step(...)} в тестах (без {@code @Step}).</li>
  *   <li>Завершение: для <i>remote</i> — pageSource → close → video; для <i>local</i> — screenshot → pageSource → close.</li>
  * </ul>
@@ -72,11 +93,22 @@ public class TestBase {
         if (!SelenideLogger.hasListener("pretty-ru")) {
             SelenideLogger.addListener("pretty-ru", new PrettySelenideRuListener());
         }
+        if (!SelenideLogger.hasListener("wait-attribution")) {
+            SelenideLogger.addListener("wait-attribution", new WaitAttribution());
+        }
+        if (!SelenideLogger.hasListener("hierarchy-snapshot")) {
+            SelenideLogger.addListener("hierarchy-snapshot", new HierarchySnapshot.Invalidator());
+        }
+        // локально скриншоты падений — кадры MJPEG-потока (PNG — запасной путь), на remote — стандартные AllureSelenide
+        boolean mjpeg = MjpegScreen.availableFor(deviceHost);
+        if (mjpeg && !SelenideLogger.hasListener("mjpeg-screenshots")) {
+            SelenideLogger.addListener("mjpeg-screenshots", new MjpegScreen.FailureScreenshots());
+        }
         if (!SelenideLogger.hasListener("AllureSelenide")) {
             SelenideLogger.addListener("AllureSelenide",
                     new AllureSelenide()
                             .savePageSource(true)
-                            .screenshots(true)
+                            .screenshots(!mjpeg)
                             .includeSelenideSteps(false)
             );
         }
@@ -91,7 +123,24 @@ public class TestBase {
         if (info != null && info.getDisplayName() != null) {
             MDC.put("test", info.getDisplayName());
         }
+        if (hasWebDriverStarted()) {
+            // сессия осталась от предыдущего теста (тёплый режим): сбрасываем приложение или пересоздаём
+            if (!WarmSession.isEnabledFor(getClass()) || !WarmSession.reset()) {
+                closeWebDriver();
+                App.reset();
+            }
+        }
+        if (!hasWebDriverStarted()) {
+            WebDriver prewarmed = SessionPipeline.takePrewarmed();
+            if (prewarmed != null) WebDriverRunner.setWebDriver(prewarmed);
+        }
         open();
+        long firstScreenStarted = System.nanoTime();
+        $(AppiumBy.id("android:id/content")).should(exist);
+        SessionTimings.report(WebDriverRunner.getWebDriver(), info == null ? "?" : info.getDisplayName(),
+                (System.nanoTime() - firstScreenStarted) / 1_000_000);
+        SlotScheduler.reportWait(WebDriverRunner.getWebDriver());
+        SessionPipeline.prewarmNext();
     }
 
     /**
@@ -100,6 +149,8 @@ public class TestBase {
      */
     @AfterEach
     void afterEach() {
+        GestureTelemetry.report(MDC.get("test"));
+        WaitAttribution.report(MDC.get("test"));
         if (!hasWebDriverStarted()) {
             MDC.remove("test");
             return;
@@ -118,11 +169,25 @@ public class TestBase {
             } else {
                 try { Attach.screenshotAs("Last screenshot"); } catch (Throwable ignored) {}
                 try { Attach.pageSource(); } catch (Throwable ignored) {}
-                closeWebDriver();
+                if (!WarmSession.isEnabledFor(getClass())) {
+                    closeWebDriver();
+                }
                 App.reset();
             }
         } finally {
             MDC.remove("test");
         }
     }
+
+    /**
+     * После класса: закрываем тёплую сессию области {@code class} (для {@code fork} — живёт до конца JVM).
+     * <br><b>EN:</b> Close class-scoped warm session.
+     */
+    @AfterAll
+    static void afterAll() {
+        if (hasWebDriverStarted() && WarmSession.scope() == WarmSession.Scope.CLASS) {
+            closeWebDriver();
+            App.reset();
+        }
+    }
 }
@@ -0,0 +1,83 @@
+package guru.qa.ui.utils;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * Неблокирующие файловые блокировки для межпроцессных «слотов» (устройства, порты, сессии BrowserStack).
+ *
+ * <p>Блокировку держит открытый канал: {@link #release(FileLock)} снимает её и закрывает канал. ОС освобождает
+ * блокировки и при аварийном завершении процесса, поэтому «висячих» слотов не бывает.</p>
+ */
+@UtilityClass
+public class FileLocks {
+
+    /**
+     * Неблокирующая попытка взять эксклюзивную блокировку файла (файл создаётся при необходимости).
+     *
+     * @param file lock-файл
+     * @return блокировка или {@code null}, если файл занят другим процессом или потоком этой JVM
+     * @throws IllegalStateException файл не открывается/не блокируется
+     */
+    @SuppressWarnings("resource")
+    public FileLock tryLock(Path file) {
+        FileChannel ch = null;
+        try {
+            ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = ch.tryLock();
+            if (lock == null) ch.close();
+            return lock;
+        } catch (OverlappingFileLockException e) {
+            // файл уже заблокирован другим потоком этой же JVM
+            closeQuietly(ch);
+            return null;
+        } catch (IOException e) {
+            closeQuietly(ch);
+            throw new IllegalStateException("Cannot lock " + file.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Снять блокировку и закрыть её канал (ошибки ввода-вывода игнорируются).
+     *
+     * @param lock блокировка
+     */
+    public void release(FileLock lock) {
+        try {
+            if (lock.isValid()) lock.release();
+        } catch (IOException ignored) {
+        }
+        closeQuietly(lock.channel());
+    }
+
+    /**
+     * Пауза между попытками занять слот.
+     *
+     * @param d    длительность
+     * @param what чего ждём (для сообщения об ошибке)
+     * @throws IllegalStateException поток прерван (флаг прерывания восстанавливается)
+     */
+    public void sleep(Duration d, String what) {
+        try {
+            Thread.sleep(d.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + what, e);
+        }
+    }
+
+    private void closeQuietly(FileChannel ch) {
+        if (ch == null) return;
+        try {
+            ch.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -2,6 +2,9 @@ package guru.qa.ui.utils.gestures;
 
 import com.codeborne.selenide.WebDriverRunner;
 import com.codeborne.selenide.appium.SelenideAppiumElement;
+import guru.qa.ui.reporting.GestureTelemetry;
+import guru.qa.ui.utils.hierarchy.Clickability;
+import guru.qa.ui.utils.hierarchy.HierarchySnapshot;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.android.AndroidDriver;
 import lombok.experimental.UtilityClass;
@@ -9,7 +12,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.openqa.selenium.remote.RemoteWebElement;
 
 import java.util.Map;
-import java.util.Objects;
 
 import static guru.qa.ui.allure.Steps.step;
 
@@ -35,24 +37,35 @@ public class AndroidMobileGestures {
         return ad;
     }
 
-    /** elementId с мягкой проверкой правила кликабельности. */
+    /**
+     * elementId с мягкой проверкой правила кликабельности — по снимку иерархии ({@link Clickability}),
+     * а не тремя отдельными запросами displayed/enabled/clickable.
+     */
     private String idOf(SelenideAppiumElement el) {
-        boolean displayed = el.isDisplayed();
-        boolean enabled = el.isEnabled();
-        boolean clickable = "true".equalsIgnoreCase(Objects.toString(el.getAttribute("clickable"), "false"));
-        if (!(displayed && enabled && clickable)) {
-            log.warn("Элемент может быть некликабелен (displayed={}, enabled={}, clickable={}) — жест может не сработать корректно",
-                    displayed, enabled, clickable);
-        }
+        Clickability.of(el).filter(c -> !c.ready()).ifPresent(c ->
+                log.warn("Элемент может быть некликабелен ({}) — жест может не сработать корректно", c));
         return ((RemoteWebElement) el.getWrappedElement()).getId();
     }
 
+    /**
+     * Выполнить {@code mobile: <gesture>} и сбросить снимок иерархии: жест меняет экран.
+     * Длительность вызова уходит в гистограммы {@link GestureTelemetry}.
+     */
+    private Object execute(String script, Map<String, ?> args) {
+        try {
+            return GestureTelemetry.time(script.substring("mobile: ".length()),
+                    () -> android().executeScript(script, args));
+        } finally {
+            HierarchySnapshot.invalidate();
+        }
+    }
+
     /* ===================== CLICK / DOUBLE / LONG CLICK ===================== */
 
     /** {@code mobile: clickGesture} по элементу. */
     public void clickGesture(SelenideAppiumElement element) {
         step("Тап по элементу (mobile: clickGesture)", () -> {
-            var result = android().executeScript("mobile: clickGesture",
+            var result = execute("mobile: clickGesture",
                     Map.ofEntries(Map.entry("elementId", idOf(element))));
             log.debug("clickGesture result={}", result);
         });
@@ -63,7 +76,7 @@ public class AndroidMobileGestures {
         step("Тап по области (mobile: clickGesture)", () -> {
             int cx = area.left() + area.width() / 2;
             int cy = area.top() + area.height() / 2;
-            var result = android().executeScript("mobile: clickGesture",
+            var result = execute("mobile: clickGesture",
                     Map.ofEntries(
                             Map.entry("x", cx),
                             Map.entry("y", cy),
@@ -79,7 +92,7 @@ public class AndroidMobileGestures {
     /** {@code mobile: doubleClickGesture} по элементу. */
     public void doubleClickGesture(SelenideAppiumElement element) {
         step("Двойной тап по элементу (mobile: doubleClickGesture)", () -> {
-            var result = android().executeScript("mobile: doubleClickGesture",
+            var result = execute("mobile: doubleClickGesture",
                     Map.ofEntries(Map.entry("elementId", idOf(element))));
             log.debug("doubleClickGesture result={}", result);
         });
@@ -88,7 +101,7 @@ public class AndroidMobileGestures {
     /** {@code mobile: longClickGesture} по элементу. */
     public void longClickGesture(SelenideAppiumElement element, long durationMs) {
         step("Долгое нажатие по элементу (mobile: longClickGesture, " + durationMs + " мс)", () -> {
-            var result = android().executeScript("mobile: longClickGesture",
+            var result = execute("mobile: longClickGesture",
                     Map.ofEntries(
                             Map.entry("elementId", idOf(element)),
                             Map.entry("duration", durationMs)
@@ -107,14 +120,14 @@ public class AndroidMobileGestures {
     public void swipeIn(SelenideAppiumElement element, GestureDirection direction, double percent, Integer speedPxPerSec) {
         step("Свайп по элементу (mobile: swipeGesture, " + direction + ", " + percent + ", speed=" + speedPxPerSec + ")", () -> {
             if (speedPxPerSec == null) {
-                android().executeScript("mobile: swipeGesture",
+                execute("mobile: swipeGesture",
                         Map.ofEntries(
                                 Map.entry("elementId", idOf(element)),
                                 Map.entry("direction", direction.wireValue()),
                                 Map.entry("percent", percent)
                         ));
             } else {
-                android().executeScript("mobile: swipeGesture",
+                execute("mobile: swipeGesture",
                         Map.ofEntries(
                                 Map.entry("elementId", idOf(element)),
                                 Map.entry("direction", direction.wireValue()),
@@ -129,7 +142,7 @@ public class AndroidMobileGestures {
     public void swipeIn(GestureArea area, GestureDirection direction, double percent, Integer speedPxPerSec) {
         step("Свайп по области (mobile: swipeGesture, " + direction + ", " + percent + ", speed=" + speedPxPerSec + ")", () -> {
             if (speedPxPerSec == null) {
-                android().executeScript("mobile: swipeGesture",
+                execute("mobile: swipeGesture",
                         Map.ofEntries(
                                 Map.entry("left", area.left()),
                                 Map.entry("top", area.top()),
@@ -139,7 +152,7 @@ public class AndroidMobileGestures {
                                 Map.entry("percent", percent)
                         ));
             } else {
-                android().executeScript("mobile: swipeGesture",
+                execute("mobile: swipeGesture",
                         Map.ofEntries(
                                 Map.entry("left", area.left()),
                                 Map.entry("top", area.top()),
@@ -161,13 +174,13 @@ public class AndroidMobileGestures {
         return step("Скролл по элементу (mobile: scrollGesture, " + direction + ", " + percent + ", speed=" + speedPxPerSec + ")", () -> {
             Object result =
                     (speedPxPerSec == null)
-                            ? android().executeScript("mobile: scrollGesture",
+                            ? execute("mobile: scrollGesture",
                             Map.ofEntries(
                                     Map.entry("elementId", idOf(element)),
                                     Map.entry("direction", direction.wireValue()),
                                     Map.entry("percent", percent)
                             ))
-                            : android().executeScript("mobile: scrollGesture",
+                            : execute("mobile: scrollGesture",
                             Map.ofEntries(
                                     Map.entry("elementId", idOf(element)),
                                     Map.entry("direction", direction.wireValue()),
@@ -185,7 +198,7 @@ public class AndroidMobileGestures {
         return step("Скролл по области (mobile: scrollGesture, " + direction + ", " + percent + ", speed=" + speedPxPerSec + ")", () -> {
             Object result =
                     (speedPxPerSec == null)
-                            ? android().executeScript("mobile: scrollGesture",
+                            ? execute("mobile: scrollGesture",
                             Map.ofEntries(
                                     Map.entry("left", area.left()),
                                     Map.entry("top", area.top()),
@@ -194,7 +207,7 @@ public class AndroidMobileGestures {
                                     Map.entry("direction", direction.wireValue()),
                                     Map.entry("percent", percent)
                             ))
-                            : android().executeScript("mobile: scrollGesture",
+                            : execute("mobile: scrollGesture",
                             Map.ofEntries(
                                     Map.entry("left", area.left()),
                                     Map.entry("top", area.top()),
@@ -218,12 +231,12 @@ public class AndroidMobileGestures {
         return step("Флинг по элементу (mobile: flingGesture, " + direction + ", speed=" + speedPxPerSec + ")", () -> {
             Object result =
                     (speedPxPerSec == null)
-                            ? android().executeScript("mobile: flingGesture",
+                            ? execute("mobile: flingGesture",
                             Map.ofEntries(
                                     Map.entry("elementId", idOf(element)),
                                     Map.entry("direction", direction.wireValue())
                             ))
-                            : android().executeScript("mobile: flingGesture",
+                            : execute("mobile: flingGesture",
                             Map.ofEntries(
                                     Map.entry("elementId", idOf(element)),
                                     Map.entry("direction", direction.wireValue()),
@@ -240,7 +253,7 @@ public class AndroidMobileGestures {
         return step("Флинг по области (mobile: flingGesture, " + direction + ", speed=" + speedPxPerSec + ")", () -> {
             Object result =
                     (speedPxPerSec == null)
-                            ? android().executeScript("mobile: flingGesture",
+                            ? execute("mobile: flingGesture",
                             Map.ofEntries(
                                     Map.entry("left", area.left()),
                                     Map.entry("top", area.top()),
@@ -248,7 +261,7 @@ public class AndroidMobileGestures {
                                     Map.entry("height", area.height()),
                                     Map.entry("direction", direction.wireValue())
                             ))
-                            : android().executeScript("mobile: flingGesture",
+                            : execute("mobile: flingGesture",
                             Map.ofEntries(
                                     Map.entry("left", area.left()),
                                     Map.entry("top", area.top()),
@@ -269,14 +282,14 @@ public class AndroidMobileGestures {
     public void dragFrom(SelenideAppiumElement element, int endX, int endY, Integer speedPxPerSec) {
         step("Drag&Drop (mobile: dragGesture) от элемента к (" + endX + "," + endY + "), speed=" + speedPxPerSec, () -> {
             if (speedPxPerSec == null) {
-                android().executeScript("mobile: dragGesture",
+                execute("mobile: dragGesture",
                         Map.ofEntries(
                                 Map.entry("elementId", idOf(element)),
                                 Map.entry("endX", endX),
                                 Map.entry("endY", endY)
                         ));
             } else {
-                android().executeScript("mobile: dragGesture",
+                execute("mobile: dragGesture",
                         Map.ofEntries(
                                 Map.entry("elementId", idOf(element)),
                                 Map.entry("endX", endX),
@@ -291,13 +304,13 @@ public class AndroidMobileGestures {
     public void pinchOpen(SelenideAppiumElement element, double percent, Integer speedPxPerSec) {
         step("Pinch Open (mobile: pinchOpenGesture, " + percent + ", speed=" + speedPxPerSec + ") по элементу", () -> {
             if (speedPxPerSec == null) {
-                android().executeScript("mobile: pinchOpenGesture",
+                execute("mobile: pinchOpenGesture",
                         Map.ofEntries(
                                 Map.entry("elementId", idOf(element)),
                                 Map.entry("percent", percent)
                         ));
             } else {
-                android().executeScript("mobile: pinchOpenGesture",
+                execute("mobile: pinchOpenGesture",
                         Map.ofEntries(
                                 Map.entry("elementId", idOf(element)),
                                 Map.entry("percent", percent),
@@ -311,13 +324,13 @@ public class AndroidMobileGestures {
     public void pinchClose(SelenideAppiumElement element, double percent, Integer speedPxPerSec) {
         step("Pinch Close (mobile: pinchCloseGesture, " + percent + ", speed=" + speedPxPerSec + ") по элементу", () -> {
             if (speedPxPerSec == null) {
-                android().executeScript("mobile: pinchCloseGesture",
+                execute("mobile: pinchCloseGesture",
                         Map.ofEntries(
                                 Map.entry("elementId", idOf(element)),
                                 Map.entry("percent", percent)
                         ));
             } else {
-                android().executeScript("mobile: pinchCloseGesture",
+                execute("mobile: pinchCloseGesture",
                         Map.ofEntries(
                                 Map.entry("elementId", idOf(element)),
                                 Map.entry("percent", percent),
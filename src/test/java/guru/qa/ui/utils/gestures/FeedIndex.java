@@ -0,0 +1,283 @@
+package guru.qa.ui.utils.gestures;
+
+import com.codeborne.selenide.WebDriverRunner;
+import com.codeborne.selenide.appium.SelenideAppiumElement;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import guru.qa.ui.drivers.session.SessionBuild;
+import guru.qa.ui.reporting.RunReports;
+import guru.qa.ui.utils.hierarchy.DeviceGeometry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Индекс позиций карточек ленты: какой заголовок на каком смещении от верха ленты.
+ *
+ * <p><b>Профиль:</b> сборка приложения ({@link SessionBuild}: versionCode локального APK
+ * или {@code bs://}-id, привязаны провайдером к драйверу) + дата ленты (лента Explore меняется ежедневно) + профиль устройства (модель, экран,
+ * плотность, версия Android из capabilities сессии). Записи чужих дат при сохранении удаляются.</p>
+ *
+ * <p><b>Как работает:</b> поиск от верха ленты без записи в индексе — обычный {@link ListScanner}, увиденные
+ * заголовки с их смещениями сохраняются. Следующие вызовы передают ожидаемое смещение как {@code distanceHintPx}:
+ * {@link ListScanner} прыгает к нему одним запросом и ищет карточку коротко на месте. Найденная карточка
+ * выравнивается в ленте ({@link ScrollPlanner#align}) — второй поиск не нужен.</p>
+ *
+ * <p><b>Попадание</b> — карточка видна в контейнере и найдена рядом с ожидаемым местом: без прыжка — измеренное
+ * смещение отличается от записанного меньше чем на экран; после прыжка (его длина — оценка, сравнивать смещения
+ * бессмысленно) — поиск на месте занял не больше {@value ListScanner#JUMP_MIN_SCREENS} шагов. Если карточка не нашлась
+ * или оказалась далеко, профиль сбрасывается и индекс строится заново.</p>
+ *
+ * <p>Попадания/промахи пишутся в лог ({@code [FeedIndex]}) и в {@code build/reports/run/<run.id>/feed-index-<pid>.json}.
+ * Файл индекса — {@code ui.feedIndex.file} (по умолчанию {@code ~/.cache/wikipedia-tests/feed-index.json}, общий
+ * для форков и прогонов); {@code -Dui.feedIndex=false} — не использовать индекс.</p>
+ */
+@Slf4j
+public final class FeedIndex {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("ui.feedIndex", "true"));
+
+    private static final Path FILE = Path.of(System.getProperty("ui.feedIndex.file",
+            System.getProperty("user.home") + "/.cache/wikipedia-tests/feed-index.json"));
+
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static final Object JVM_LOCK = new Object();
+
+    private static final AtomicInteger HITS = new AtomicInteger();
+    private static final AtomicInteger MISSES = new AtomicInteger();
+    private static final AtomicInteger COLD = new AtomicInteger();
+
+    /** Индекс, прочитанный/записанный этой JVM последним. */
+    private static Index cached;
+
+    static {
+        RunReports.register("feed-index", () -> new Stats(HITS.get(), MISSES.get(), COLD.get()));
+    }
+
+    /**
+     * Счётчики за JVM.
+     *
+     * @param hits   карточка нашлась рядом с ожидаемым смещением
+     * @param misses карточки нет или она далеко — профиль перестроен
+     * @param cold   записи не было — полный поиск от верха
+     */
+    public record Stats(int hits, int misses, int cold) {
+    }
+
+    /** Индекс в файле: профиль → заголовок (lower-case) → смещение от верха ленты, px. */
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static final class Index {
+        private Map<String, Map<String, Integer>> profiles = new LinkedHashMap<>();
+    }
+
+    private FeedIndex() {
+    }
+
+    /**
+     * Докрутить ленту до карточки, используя индекс, и выровнять её в ленте.
+     *
+     * @param feed             прокручиваемая лента
+     * @param header           заголовок искомой карточки
+     * @param headerResourceId resource-id заголовков карточек (какие пункты индексировать)
+     * @param fromTop          лента сейчас в самом верху: только тогда смещения сопоставимы с индексом
+     * @param timeout          общий таймаут
+     * @param titles           варианты заголовка (RU/EN)
+     * @return {@code false}, если локаторы не поддерживаются снимком иерархии (нужен прежний алгоритм,
+     *         {@link ScrollIntoView}); {@code true} — карточка в поле видимости
+     * @throws IllegalStateException лента закончилась, карточки нет
+     * @throws TimeoutException      карточка не найдена за таймаут
+     */
+    public static boolean scrollTo(SelenideAppiumElement feed, SelenideAppiumElement header, String headerResourceId,
+                                   boolean fromTop, Duration timeout, String... titles) {
+        if (!ListScanner.supports(feed, header)) return false;
+        String title = String.join(" / ", titles);
+        if (!ENABLED || !fromTop) {
+            log.debug("[FeedIndex] «{}»: лента не в начале или индекс выключен — обычный поиск", title);
+            return ScrollPlanner.intoView(feed, header, timeout);
+        }
+
+        String profile = profile();
+        OptionalInt expected = lookup(profile, titles);
+        ListScanner.Result result;
+        try {
+            result = ListScanner.scrollTo(feed, header, timeout, expected);
+        } catch (IllegalStateException | TimeoutException e) {
+            if (expected.isPresent()) {
+                miss(profile, title, "ожидали " + expected.getAsInt() + " px, карточка не найдена");
+            }
+            throw e;
+        }
+
+        Rectangle c = result.container();
+        int actual = result.travelledPx() + result.target().bounds().getY() - c.getY();
+        if (expected.isEmpty()) {
+            COLD.incrementAndGet();
+            log.info("[FeedIndex] cold «{}»: записи нет, найдено на {} px {}", title, actual, rate());
+            if (result.exact()) record(profile, result, headerResourceId, actual, titles);
+        } else if (hit(result, actual, expected.getAsInt())) {
+            HITS.incrementAndGet();
+            log.info("[FeedIndex] hit «{}»: ожидали {} px, фактически ~{} px, жестов {} {}",
+                    title, expected.getAsInt(), actual, result.gestures(), rate());
+        } else {
+            miss(profile, title, "ожидали " + expected.getAsInt() + " px, фактически ~" + actual + " px, жестов "
+                    + result.gestures());
+            if (result.exact()) record(profile, result, headerResourceId, actual, titles);
+        }
+        ScrollPlanner.align(feed, header, result);
+        return true;
+    }
+
+    /* ===== internals ===== */
+
+    /**
+     * Карточка найдена там, куда привёл индекс.
+     *
+     * @param result   результат поиска
+     * @param actual   смещение карточки от верха ленты, px (после прыжка — оценка)
+     * @param expected смещение из индекса, px
+     */
+    private static boolean hit(ListScanner.Result result, int actual, int expected) {
+        Rectangle c = result.container();
+        Rectangle t = result.target().bounds();
+        boolean inView = t.getY() >= c.getY() && t.getY() < c.getY() + c.getHeight();
+        if (!inView) return false;
+        // без прыжка смещение измерено по снимкам; после прыжка оно включает оценку hops*span — проверяем,
+        // что карточка нашлась коротким поиском на месте
+        return result.exact()
+                ? Math.abs(actual - expected) <= c.getHeight()
+                : result.gestures() <= 1 + ListScanner.JUMP_MIN_SCREENS;
+    }
+
+    private static OptionalInt lookup(String profile, String... titles) {
+        Map<String, Integer> offsets = load().getProfiles().getOrDefault(profile, Map.of());
+        for (String t : titles) {
+            Integer offset = offsets.get(t.toLowerCase(Locale.ROOT));
+            if (offset != null) return OptionalInt.of(offset);
+        }
+        return OptionalInt.empty();
+    }
+
+    /** Промах: профиль сбрасывается, следующий поиск от верха построит его заново. */
+    private static void miss(String profile, String title, String why) {
+        MISSES.incrementAndGet();
+        log.warn("[FeedIndex] miss «{}»: {} — индекс профиля перестраивается {}", title, why, rate());
+        update(profiles -> profiles.remove(profile));
+    }
+
+    /** Сохранить смещения увиденных заголовков и найденной карточки (под всеми вариантами её заголовка). */
+    private static void record(String profile, ListScanner.Result result, String headerResourceId, int targetOffset,
+                               String... titles) {
+        Map<String, Integer> seen = new LinkedHashMap<>();
+        result.positions().forEach((k, offset) -> {
+            if (headerResourceId.equals(ScrollCalibration.resourceId(k))) {
+                seen.put(ScrollCalibration.label(k).toLowerCase(Locale.ROOT), offset);
+            }
+        });
+        for (String t : titles) seen.put(t.toLowerCase(Locale.ROOT), targetOffset);
+        update(profiles -> profiles.computeIfAbsent(profile, p -> new LinkedHashMap<>()).putAll(seen));
+        log.debug("[FeedIndex] профиль {}: записано {} заголовк(ов)", profile, seen.size());
+    }
+
+    private static String rate() {
+        int hits = HITS.get();
+        int known = hits + MISSES.get();
+        return "(попаданий " + hits + "/" + known + (known == 0 ? "" : ", " + hits * 100 / known + "%")
+                + "; без записи " + COLD.get() + ")";
+    }
+
+    /** Профиль: сборка приложения | дата ленты | устройство. */
+    private static String profile() {
+        WebDriver driver = WebDriverRunner.getWebDriver();
+        Capabilities caps = driver instanceof HasCapabilities hc ? hc.getCapabilities() : null;
+        String build = SessionBuild.of(driver);
+        if (build.isBlank()) build = firstCapability(caps, "app", "appPackage");
+
+        List<String> device = new ArrayList<>();
+        for (String name : new String[]{"deviceModel", "deviceScreenSize", "deviceScreenDensity", "platformVersion"}) {
+            String v = firstCapability(caps, name);
+            if (!v.isEmpty()) device.add(v);
+        }
+        if (device.isEmpty()) {
+            Dimension size = DeviceGeometry.viewport();
+            device.add(size.getWidth() + "x" + size.getHeight());
+        }
+        return String.join("|", build.isBlank() ? "app" : build, LocalDate.now().toString(), String.join("/", device));
+    }
+
+    private static String firstCapability(Capabilities caps, String... names) {
+        if (caps == null) return "";
+        for (String name : names) {
+            for (String key : new String[]{"appium:" + name, name}) {
+                Object v = caps.getCapability(key);
+                if (v != null && !v.toString().isBlank()) return v.toString();
+            }
+        }
+        return "";
+    }
+
+    private static Index load() {
+        synchronized (JVM_LOCK) {
+            if (cached == null) cached = read();
+            return cached;
+        }
+    }
+
+    /** Изменить индекс под файловой блокировкой (read-modify-write поверх свежей версии файла). */
+    private static void update(Consumer<Map<String, Map<String, Integer>>> change) {
+        synchronized (JVM_LOCK) {
+            try {
+                Files.createDirectories(FILE.toAbsolutePath().getParent());
+                try (FileChannel ch = FileChannel.open(FILE.resolveSibling(FILE.getFileName() + ".lock"),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                     FileLock ignored = ch.lock()) {
+                    Index index = read();
+                    change.accept(index.getProfiles());
+                    String today = "|" + LocalDate.now() + "|";
+                    index.getProfiles().keySet().removeIf(p -> !p.contains(today));
+                    Path tmp = FILE.resolveSibling(FILE.getFileName() + ".part");
+                    JSON.writeValue(tmp.toFile(), index);
+                    Files.move(tmp, FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    cached = index;
+                }
+            } catch (IOException e) {
+                log.warn("[FeedIndex] индекс не сохранён ({}): {}", FILE.toAbsolutePath(), e.toString());
+            }
+        }
+    }
+
+    private static Index read() {
+        if (Files.notExists(FILE)) return new Index();
+        try {
+            return JSON.readValue(FILE.toFile(), Index.class);
+        } catch (IOException e) {
+            log.warn("[FeedIndex] {} не читается ({}), начинаем с пустого индекса", FILE, e.toString());
+            return new Index();
+        }
+    }
+}
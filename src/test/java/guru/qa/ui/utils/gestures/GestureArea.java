@@ -2,6 +2,7 @@ package guru.qa.ui.utils.gestures;
 
 import com.codeborne.selenide.WebDriverRunner;
 import com.codeborne.selenide.appium.SelenideAppiumElement;
+import guru.qa.ui.utils.hierarchy.DeviceGeometry;
 import org.openqa.selenium.Dimension;
 import org.openqa.selenium.Rectangle;
 import org.openqa.selenium.WebDriver;
@@ -20,22 +21,23 @@ public record GestureArea(int left, int top, int width, int height) {
         return new GestureArea(r.getX(), r.getY(), r.getWidth(), r.getHeight());
     }
 
-    /** Область из SelenideAppiumElement (удобно для проекта). */
+    /** Область из SelenideAppiumElement (удобно для проекта); границы — из кеша {@link DeviceGeometry}. */
     public static GestureArea fromElement(SelenideAppiumElement element) {
-        Rectangle r = element.getRect();
+        Rectangle r = DeviceGeometry.rect(element);
         return new GestureArea(r.getX(), r.getY(), r.getWidth(), r.getHeight());
     }
 
-    /** Весь вьюпорт указанного окна. */
+    /** Весь вьюпорт указанного окна (для текущей сессии — из кеша {@link DeviceGeometry}). */
     public static GestureArea fromViewport(WebDriver driver) {
-        Dimension d = driver.manage().window().getSize();
+        Dimension d = WebDriverRunner.hasWebDriverStarted() && driver == WebDriverRunner.getWebDriver()
+                ? DeviceGeometry.viewport()
+                : driver.manage().window().getSize();
         return new GestureArea(0, 0, d.getWidth(), d.getHeight());
     }
 
-    /** Весь вьюпорт текущего окна (WebDriverRunner). */
+    /** Весь вьюпорт текущего окна (WebDriverRunner), из кеша {@link DeviceGeometry}. */
     public static GestureArea fromViewport() {
-        WebDriver d = WebDriverRunner.getWebDriver();
-        Dimension s = d.manage().window().getSize();
+        Dimension s = DeviceGeometry.viewport();
         return new GestureArea(0, 0, s.getWidth(), s.getHeight());
     }
 
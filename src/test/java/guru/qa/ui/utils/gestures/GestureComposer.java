@@ -0,0 +1,152 @@
+package guru.qa.ui.utils.gestures;
+
+import com.codeborne.selenide.WebDriverRunner;
+import guru.qa.ui.reporting.GestureTelemetry;
+import guru.qa.ui.utils.hierarchy.HierarchySnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.interactions.Interactive;
+import org.openqa.selenium.interactions.Pause;
+import org.openqa.selenium.interactions.PointerInput;
+import org.openqa.selenium.interactions.Sequence;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static guru.qa.ui.allure.Steps.step;
+
+/**
+ * Составной жест: цепочка скроллов одним запросом W3C Actions.
+ *
+ * <p><b>Зачем:</b> каждый {@code mobile: *Gesture} — отдельный HTTP-запрос (через хаб BrowserStack — сотни мс).
+ * Композитор собирает все скроллы в одну {@link Sequence} пальца и отправляет одним {@code perform}:
+ * прыжок по длинному списку ({@link ListScanner}) — один round trip и один Allure-шаг.</p>
+ *
+ * <p><b>Ограничение:</b> W3C Actions не возвращают «можно ли скроллить дальше» — если нужен сигнал конца
+ * списка, проверяйте снимок иерархии после {@link #perform()} (как {@link ListScanner}).</p>
+ *
+ * <pre>{@code
+ * GestureComposer.in(GestureArea.fromElement(feed))
+ *         .scroll(GestureDirection.DOWN, 0.8)
+ *         .scroll(GestureDirection.DOWN, 0.8)
+ *         .perform();
+ * }</pre>
+ */
+@Slf4j
+public final class GestureComposer {
+
+    /** Отступ от краёв области (доля), чтобы не задевать края/системные жесты. */
+    private static final double EDGE = 0.1;
+
+    /** Скорость «медленного» пальца для скролла без инерции, px/s. */
+    private static final int SCROLL_SPEED = 2000;
+
+    /** Удержание пальца в конце скролла — гасит инерцию, дистанция повторяемая. */
+    private static final Duration HOLD = Duration.ofMillis(120);
+
+    /** Пауза между шагами — дать UI отработать предыдущий. */
+    private static final Duration BETWEEN = Duration.ofMillis(150);
+
+    private final GestureArea area;
+    private final PointerInput finger = new PointerInput(PointerInput.Kind.TOUCH, "finger");
+    private final Sequence sequence = new Sequence(finger, 0);
+    private final List<String> steps = new ArrayList<>();
+
+    private GestureComposer(GestureArea area) {
+        this.area = area;
+    }
+
+    /**
+     * Начать составной жест в области.
+     *
+     * @param area область жестов (обычно контейнер списка/пейджера)
+     * @return композитор
+     */
+    public static GestureComposer in(GestureArea area) {
+        return new GestureComposer(area);
+    }
+
+    /**
+     * Скролл контента (как {@code mobile: scrollGesture}): {@code DOWN} — палец ведёт вверх.
+     *
+     * @param direction направление прокрутки контента
+     * @param percent   доля размера области (0..1)
+     */
+    public GestureComposer scroll(GestureDirection direction, double percent) {
+        drag(opposite(direction), percent);
+        steps.add("scroll " + direction.wireValue() + " " + percent);
+        return this;
+    }
+
+    /**
+     * Длина хода пальца одного {@link #scroll} по вертикали, px: без инерции (удержание в конце)
+     * контент сдвигается примерно на эту величину.
+     *
+     * @param percent доля размера области (0..1)
+     */
+    public int scrollSpan(double percent) {
+        return span(true, percent);
+    }
+
+    /** Отправить все шаги одним запросом W3C Actions. */
+    public void perform() {
+        if (steps.isEmpty()) return;
+        step("Составной жест одним запросом (" + steps.size() + " шаг(ов)): " + String.join(", ", steps), () -> {
+            try {
+                GestureTelemetry.time("w3cActions", () -> {
+                    ((Interactive) WebDriverRunner.getWebDriver()).perform(List.of(sequence));
+                    return null;
+                });
+            } finally {
+                HierarchySnapshot.invalidate();
+            }
+            log.debug("[Composer] {} шаг(ов) одним perform", steps.size());
+        });
+    }
+
+    /* ===== internals ===== */
+
+    /** Палец от одной стороны области к другой вдоль {@code fingerDirection}, с удержанием в конце. */
+    private void drag(GestureDirection fingerDirection, double percent) {
+        GestureArea inner = inner();
+        boolean vertical = fingerDirection == GestureDirection.UP || fingerDirection == GestureDirection.DOWN;
+        int span = span(vertical, percent);
+
+        int startX = inner.centerX();
+        int startY = inner.centerY();
+        int endX = startX;
+        int endY = startY;
+        switch (fingerDirection) {
+            case UP -> { startY = inner.top() + inner.height() - 1; endY = startY - span; }
+            case DOWN -> { startY = inner.top(); endY = startY + span; }
+            case LEFT -> { startX = inner.left() + inner.width() - 1; endX = startX - span; }
+            case RIGHT -> { startX = inner.left(); endX = startX + span; }
+        }
+        Duration move = Duration.ofMillis(Math.max(50, span * 1000L / SCROLL_SPEED));
+
+        sequence.addAction(finger.createPointerMove(Duration.ZERO, PointerInput.Origin.viewport(), startX, startY));
+        sequence.addAction(finger.createPointerDown(PointerInput.MouseButton.LEFT.asArg()));
+        sequence.addAction(finger.createPointerMove(move, PointerInput.Origin.viewport(), endX, endY));
+        sequence.addAction(new Pause(finger, HOLD));
+        sequence.addAction(finger.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+        sequence.addAction(new Pause(finger, BETWEEN));
+    }
+
+    private GestureArea inner() {
+        return area.inset((int) (area.width() * EDGE), (int) (area.height() * EDGE));
+    }
+
+    private int span(boolean vertical, double percent) {
+        GestureArea inner = inner();
+        return (int) Math.round((vertical ? inner.height() : inner.width()) * Math.min(1.0, Math.max(0.0, percent)));
+    }
+
+    private static GestureDirection opposite(GestureDirection d) {
+        return switch (d) {
+            case UP -> GestureDirection.DOWN;
+            case DOWN -> GestureDirection.UP;
+            case LEFT -> GestureDirection.RIGHT;
+            case RIGHT -> GestureDirection.LEFT;
+        };
+    }
+}
@@ -0,0 +1,289 @@
+package guru.qa.ui.utils.gestures;
+
+import com.codeborne.selenide.Configuration;
+import com.codeborne.selenide.Selenide;
+import com.codeborne.selenide.appium.SelenideAppiumElement;
+import guru.qa.ui.utils.hierarchy.Clickability;
+import guru.qa.ui.utils.hierarchy.DeviceGeometry;
+import guru.qa.ui.utils.hierarchy.HierarchySnapshot;
+import guru.qa.ui.utils.hierarchy.HierarchyXPath;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.TimeoutException;
+import org.w3c.dom.Document;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+
+/**
+ * Поиск пункта в любом прокручиваемом списке (RecyclerView / Compose LazyColumn) с определением конца списка.
+ *
+ * <p><b>Конец списка</b> — по двум сигналам между жестами: {@code scrollGesture}/{@code flingGesture} вернул
+ * «дальше некуда» либо набор видимых пунктов (подписи узлов в снимке иерархии) не изменился. Перед отказом ждём
+ * {@value #LOAD_MORE_WAIT_MS} мс — ленты вроде Explore догружают карточки у конца; если новых пунктов нет,
+ * поиск падает сразу, с перечнем всех увиденных пунктов, а не по таймауту.</p>
+ *
+ * <p><b>Прыжок:</b> если вызывающий знает примерное расстояние до пункта ({@code distanceHintPx},
+ * например из {@link FeedIndex}) и оно больше {@value #JUMP_MIN_SCREENS} высот контейнера — цепочка скроллов
+ * без инерции одним запросом ({@link GestureComposer}) примерно на расстояние минус экран, дальше короткий поиск
+ * шагами {@code scrollGesture}. В отличие от fling дистанция прыжка предсказуема. Если после прыжка список кончился,
+ * а пункта нет, — один проход вверх (прыжок перелетел цель).</p>
+ *
+ * <p><b>Позиции:</b> по ходу поиска вниз для каждого увиденного пункта запоминается смещение от стартовой позиции
+ * (фактический сдвиг между снимками, {@link ScrollCalibration#measure}) — из них {@link FeedIndex} строит индекс ленты.</p>
+ */
+@Slf4j
+public final class ListScanner {
+
+    /** Доля высоты контейнера на шаг поиска (шаг меньше экрана — пункты не пропускаются). */
+    static final double SEARCH_PERCENT = 0.8;
+
+    /** С какого расстояния (в высотах контейнера) выгоднее прыжок. */
+    static final int JUMP_MIN_SCREENS = 3;
+
+    /** Предел скроллов в одном прыжке. */
+    private static final int MAX_JUMP_HOPS = 25;
+
+    /** Пауза на догрузку у конца списка, мс. */
+    static final long LOAD_MORE_WAIT_MS = 1000;
+
+    /** Сколько подписей показывать в ошибке. */
+    private static final int MAX_REPORTED = 60;
+
+    /**
+     * Результат поиска.
+     *
+     * @param document   снимок, в котором цель найдена
+     * @param container  границы контейнера в этом снимке
+     * @param target     состояние цели
+     * @param gestures   выполнено жестов
+     * @param snapshots  снято снимков иерархии
+     * @param travelledPx на сколько px список сдвинулся вниз от стартовой позиции
+     * @param positions  смещения увиденных пунктов от стартовой позиции, px (ключ — узел: class, resource-id, text, content-desc)
+     * @param exact      смещения измерены по снимкам (без прыжка) и годятся для индекса
+     */
+    public record Result(Document document, Rectangle container, Clickability target, int gestures, int snapshots,
+                         int travelledPx, Map<String, Integer> positions, boolean exact) {
+    }
+
+    /** Счётчики поиска (жесты и снимки иерархии); вызывающий читает их и после исключения {@link #scrollTo}. */
+    public static final class Counts {
+
+        private int gestures;
+        private int snapshots;
+
+        /** Выполнено жестов. */
+        public int gestures() {
+            return gestures;
+        }
+
+        /** Снято снимков иерархии. */
+        public int snapshots() {
+            return snapshots;
+        }
+    }
+
+    private ListScanner() {
+    }
+
+    /**
+     * Прокрутить список до появления цели (без выравнивания).
+     *
+     * @param container прокручиваемый контейнер
+     * @param target    искомый пункт
+     * @param timeout   общий таймаут
+     * @return снимок и статистика
+     * @throws IllegalArgumentException локаторы не переводятся в XPath над снимком ({@link HierarchyXPath})
+     * @throws IllegalStateException    список закончился, цели нет (в сообщении — увиденные пункты)
+     * @throws TimeoutException         таймаут
+     */
+    public static Result scrollTo(SelenideAppiumElement container, SelenideAppiumElement target, Duration timeout) {
+        return scrollTo(container, target, timeout, OptionalInt.empty());
+    }
+
+    /**
+     * Прокрутить список до появления цели, используя оценку расстояния до неё.
+     *
+     * @param distanceHintPx примерное расстояние от текущей позиции вниз до цели, px (пусто — неизвестно)
+     * @see #scrollTo(SelenideAppiumElement, SelenideAppiumElement, Duration)
+     */
+    public static Result scrollTo(SelenideAppiumElement container, SelenideAppiumElement target, Duration timeout,
+                                  OptionalInt distanceHintPx) {
+        return scrollTo(container, target, timeout, distanceHintPx, new Counts());
+    }
+
+    /**
+     * Вариант со счётчиками вызывающего: число жестов и снимков видно и когда поиск упал.
+     *
+     * @param counts счётчики, растут по ходу поиска
+     * @see #scrollTo(SelenideAppiumElement, SelenideAppiumElement, Duration, OptionalInt)
+     */
+    public static Result scrollTo(SelenideAppiumElement container, SelenideAppiumElement target, Duration timeout,
+                                  OptionalInt distanceHintPx, Counts counts) {
+        if (!supports(container, target)) {
+            throw new IllegalArgumentException("Локатор не поддерживается снимком иерархии: "
+                    + container.getSearchCriteria() + " / " + target.getSearchCriteria());
+        }
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        String key = ScrollCalibration.key(container);
+
+        Set<String> seen = new LinkedHashSet<>();
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        GestureDirection direction = GestureDirection.DOWN;
+        boolean jumped = false;
+        boolean lastCanScroll = true;
+        double travelled = 0;
+        Document doc = HierarchySnapshot.refresh();
+        counts.snapshots++;
+
+        while (true) {
+            Optional<Rectangle> box = bounds(doc, container);
+            Optional<Clickability> found = Clickability.in(doc, target).filter(Clickability::displayed);
+            if (box.isPresent() && found.isPresent()) {
+                if (direction == GestureDirection.DOWN) remember(positions, ScrollCalibration.items(doc, box.get()), travelled, box.get());
+                log.debug("[ListScan] найдено: жестов={}, снимков={}, сдвиг={} px", counts.gestures, counts.snapshots, Math.round(travelled));
+                return new Result(doc, box.get(), found.get(), counts.gestures, counts.snapshots, (int) Math.round(travelled),
+                        positions, !jumped);
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw new TimeoutException("Пункт не найден за " + timeout.toSeconds() + " с: " + target.getSearchCriteria()
+                        + ". Просмотрено: " + describe(seen));
+            }
+            if (box.isEmpty()) {
+                // контейнер ещё не отрисован
+                Selenide.sleep(Configuration.pollingInterval);
+                doc = HierarchySnapshot.refresh();
+                counts.snapshots++;
+                continue;
+            }
+
+            Rectangle c = box.get();
+            Map<String, Integer> visible = ScrollCalibration.items(doc, c);
+            visible.keySet().forEach(k -> seen.add(ScrollCalibration.label(k)));
+            if (direction == GestureDirection.DOWN) remember(positions, visible, travelled, c);
+
+            boolean atEdge;
+            if (!lastCanScroll) {
+                // прошлый жест упёрся в край, цели в новом снимке нет — новый жест ничего не даст; ждём догрузку
+                doc = afterLoadWait();
+                counts.snapshots++;
+                atEdge = sameItems(doc, container, c, visible);
+            } else {
+                Document before = doc;
+                boolean canScroll;
+                boolean stepped = false;
+                double ppu = ScrollCalibration.pxPerUnit(key, c.getHeight());
+                int remaining = distanceHintPx.isPresent() ? (int) (distanceHintPx.getAsInt() - travelled) : 0;
+                if (!jumped && direction == GestureDirection.DOWN && remaining > JUMP_MIN_SCREENS * c.getHeight()) {
+                    // останавливаемся примерно за экран до цели — дальше короткий поиск вперёд
+                    travelled += jump(c, remaining - c.getHeight());
+                    canScroll = true;
+                    jumped = true;
+                } else {
+                    canScroll = AndroidMobileGestures.scrollIn(area(c), direction, SEARCH_PERCENT, ScrollCalibration.SPEED);
+                    stepped = true;
+                }
+                counts.gestures++;
+                doc = HierarchySnapshot.refresh();
+                counts.snapshots++;
+                if (stepped && direction == GestureDirection.DOWN) {
+                    Optional<Integer> moved = ScrollCalibration.measure(before, doc, c);
+                    if (!ScrollCalibration.known(key)) {
+                        moved.ifPresent(m -> ScrollCalibration.calibrate(key, m / SEARCH_PERCENT, false));
+                    }
+                    travelled += moved.map(Integer::doubleValue).orElse(ppu * SEARCH_PERCENT);
+                } else if (stepped) {
+                    travelled -= ppu * SEARCH_PERCENT;
+                }
+                lastCanScroll = canScroll;
+                if (!ScrollCalibration.items(doc, c).keySet().equals(visible.keySet())) continue;
+                // набор пунктов не изменился — список не сдвинулся; ждём догрузку
+                doc = afterLoadWait();
+                counts.snapshots++;
+                atEdge = sameItems(doc, container, c, visible);
+            }
+            if (!atEdge) {
+                lastCanScroll = true;
+                continue;
+            }
+
+            if (jumped && direction == GestureDirection.DOWN) {
+                log.debug("[ListScan] конец списка после прыжка — проход вверх");
+                direction = GestureDirection.UP;
+                lastCanScroll = true;
+                continue;
+            }
+            throw new IllegalStateException("Список закончился (" + (direction == GestureDirection.DOWN ? "низ" : "верх")
+                    + "), пункт не найден: " + target.getSearchCriteria() + ". Просмотрено " + seen.size()
+                    + ": " + describe(seen));
+        }
+    }
+
+    /**
+     * Поддерживаются ли локаторы сканером (переводятся в XPath над снимком иерархии).
+     *
+     * @param container контейнер
+     * @param target    цель
+     * @return {@code true}, если можно вызывать {@link #scrollTo}
+     */
+    public static boolean supports(SelenideAppiumElement container, SelenideAppiumElement target) {
+        return HierarchyXPath.of(container).isPresent() && HierarchyXPath.of(target).isPresent();
+    }
+
+    /* ===== internals ===== */
+
+    /** Пауза на догрузку у края и новый снимок. */
+    private static Document afterLoadWait() {
+        Selenide.sleep(LOAD_MORE_WAIT_MS);
+        return HierarchySnapshot.refresh();
+    }
+
+    /**
+     * Прыжок вниз: цепочка скроллов без инерции одним запросом W3C Actions.
+     *
+     * @return на сколько px примерно сдвинулся список
+     */
+    private static int jump(Rectangle c, int distancePx) {
+        GestureComposer composer = GestureComposer.in(area(c));
+        int span = composer.scrollSpan(1.0);
+        int hops = Math.min(MAX_JUMP_HOPS, Math.max(1, distancePx / Math.max(1, span)));
+        for (int i = 0; i < hops; i++) composer.scroll(GestureDirection.DOWN, 1.0);
+        composer.perform();
+        log.debug("[ListScan] прыжок: {} скролл(ов) по ~{} px одним запросом", hops, span);
+        return hops * span;
+    }
+
+    /** Запомнить смещения впервые увиденных пунктов относительно стартовой позиции. */
+    private static void remember(Map<String, Integer> positions, Map<String, Integer> visible, double travelled, Rectangle c) {
+        visible.forEach((k, top) -> positions.putIfAbsent(k, (int) Math.round(travelled) + top - c.getY()));
+    }
+
+    /** Набор видимых пунктов в снимке тот же, что был до жеста/паузы. */
+    private static boolean sameItems(Document doc, SelenideAppiumElement container, Rectangle c, Map<String, Integer> visible) {
+        Rectangle box = bounds(doc, container).orElse(c);
+        return ScrollCalibration.items(doc, box).keySet().equals(visible.keySet());
+    }
+
+    /** Границы контейнера из снимка; заодно обновляют кеш {@link DeviceGeometry} для жестов вне сканера. */
+    private static Optional<Rectangle> bounds(Document doc, SelenideAppiumElement container) {
+        Optional<Rectangle> box = Clickability.in(doc, container).map(Clickability::bounds).filter(r -> r.getHeight() > 0);
+        box.ifPresent(r -> DeviceGeometry.remember(container, r));
+        return box;
+    }
+
+    private static String describe(Set<String> seen) {
+        if (seen.isEmpty()) return "[]";
+        return seen.size() <= MAX_REPORTED
+                ? seen.toString()
+                : seen.stream().limit(MAX_REPORTED).toList() + " … (+" + (seen.size() - MAX_REPORTED) + ")";
+    }
+
+    private static GestureArea area(Rectangle r) {
+        return new GestureArea(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+    }
+}
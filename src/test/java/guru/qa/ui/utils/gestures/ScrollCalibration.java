@@ -0,0 +1,142 @@
+package guru.qa.ui.utils.gestures;
+
+import com.codeborne.selenide.WebDriverRunner;
+import com.codeborne.selenide.appium.SelenideAppiumElement;
+import guru.qa.ui.utils.hierarchy.HierarchySnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriver;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Калибровка «пикселей на 1.0 percent» {@code scrollGesture} для пары (устройство, контейнер)
+ * и разбор видимых пунктов списка из снимка иерархии.
+ *
+ * <p>Калибровка снимается по ходу обычных жестов (смещение узлов, видимых в двух соседних снимках)
+ * и живёт до конца JVM.</p>
+ */
+@Slf4j
+final class ScrollCalibration {
+
+    /** Фиксированная скорость жестов, px/s: одинаковая скорость — повторяемая дистанция (без инерции fling). */
+    static final int SPEED = 2000;
+
+    /** Разделитель полей в ключе пункта (не встречается в тексте UI). */
+    private static final String SEP = "\u001F";
+
+    private static final Map<String, Double> PX_PER_UNIT = new ConcurrentHashMap<>();
+
+    private ScrollCalibration() {
+    }
+
+    /** Ключ калибровки: устройство текущей сессии + критерий контейнера. */
+    static String key(SelenideAppiumElement container) {
+        return deviceKey() + "|" + container.getSearchCriteria();
+    }
+
+    /** Есть ли калибровка по ключу. */
+    static boolean known(String key) {
+        return PX_PER_UNIT.containsKey(key);
+    }
+
+    /**
+     * Пикселей на 1.0 percent.
+     *
+     * @param key      ключ калибровки
+     * @param fallback значение без калибровки (обычно высота контейнера)
+     */
+    static double pxPerUnit(String key, double fallback) {
+        return PX_PER_UNIT.getOrDefault(key, fallback);
+    }
+
+    /**
+     * Записать калибровку.
+     *
+     * @param overwrite {@code true} — уточнение по точному жесту; {@code false} — только если ещё не откалибровано
+     */
+    static void calibrate(String key, double pxPerUnit, boolean overwrite) {
+        Double prev = overwrite ? PX_PER_UNIT.put(key, pxPerUnit) : PX_PER_UNIT.putIfAbsent(key, pxPerUnit);
+        if (prev == null || overwrite) {
+            log.debug("[ScrollPlan] калибровка {}: {} px на 1.0 (было {})", key, Math.round(pxPerUnit), prev);
+        }
+    }
+
+    /**
+     * Медианное смещение вверх (px) узлов, видимых внутри контейнера в обоих снимках.
+     */
+    static Optional<Integer> measure(Document before, Document after, Rectangle container) {
+        Map<String, Integer> a = items(before, container);
+        Map<String, Integer> b = items(after, container);
+        List<Integer> moves = new ArrayList<>();
+        a.forEach((k, y) -> {
+            Integer y2 = b.get(k);
+            if (y2 != null && y > y2) moves.add(y - y2);
+        });
+        if (moves.isEmpty()) return Optional.empty();
+        Collections.sort(moves);
+        return Optional.of(moves.get(moves.size() / 2));
+    }
+
+    /**
+     * Видимые пункты списка: уникальные узлы с текстом/описанием целиком внутри контейнера, в порядке документа.
+     *
+     * @return ключ узла (class, resource-id, text, content-desc) → top
+     */
+    static Map<String, Integer> items(Document doc, Rectangle container) {
+        Map<String, Integer> out = new LinkedHashMap<>();
+        Set<String> duplicates = new HashSet<>();
+        NodeList all = doc.getElementsByTagName("*");
+        for (int i = 0; i < all.getLength(); i++) {
+            Element e = (Element) all.item(i);
+            String text = e.getAttribute("text");
+            String desc = e.getAttribute("content-desc");
+            if (text.isEmpty() && desc.isEmpty()) continue;
+            Rectangle r = HierarchySnapshot.bounds(e);
+            if (r.getHeight() == 0 || r.getY() < container.getY()
+                    || r.getY() + r.getHeight() > container.getY() + container.getHeight()) continue;
+            String k = String.join(SEP, e.getTagName(), e.getAttribute("resource-id"), text, desc);
+            if (out.putIfAbsent(k, r.getY()) != null) duplicates.add(k);
+        }
+        duplicates.forEach(out::remove);
+        return out;
+    }
+
+    /** Человекочитаемая подпись пункта из ключа {@link #items}. */
+    static String label(String itemKey) {
+        String[] p = itemKey.split(SEP, -1);
+        String text = p.length > 2 ? p[2] : "";
+        return text.isEmpty() && p.length > 3 ? p[3] : text;
+    }
+
+    /** resource-id пункта из ключа {@link #items}. */
+    static String resourceId(String itemKey) {
+        String[] p = itemKey.split(SEP, -1);
+        return p.length > 1 ? p[1] : "";
+    }
+
+    private static String deviceKey() {
+        WebDriver driver = WebDriverRunner.getWebDriver();
+        if (driver instanceof HasCapabilities hc) {
+            Capabilities caps = hc.getCapabilities();
+            for (String name : new String[]{"appium:udid", "udid", "appium:deviceUDID", "deviceUDID", "appium:deviceName", "deviceName"}) {
+                Object v = caps.getCapability(name);
+                if (v != null && !v.toString().isBlank()) return v.toString();
+            }
+        }
+        return "device";
+    }
+}
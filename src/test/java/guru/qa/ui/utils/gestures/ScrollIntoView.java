@@ -2,6 +2,7 @@ package guru.qa.ui.utils.gestures;
 
 import com.codeborne.selenide.Selenide;
 import com.codeborne.selenide.appium.SelenideAppiumElement;
+import guru.qa.ui.utils.hierarchy.DeviceGeometry;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
 import org.openqa.selenium.Rectangle;
@@ -13,7 +14,9 @@ import static guru.qa.ui.allure.Steps.step;
 /**
  * Утилита «доскролла» до элемента в пределах контейнера.
  *
- * <p>Алгоритм:
+ * <p>Основной путь — {@link ScrollPlanner}: поиск крупными шагами по снимкам иерархии ({@link ListScanner}:
+ * у конца списка — сразу ошибка со списком увиденных пунктов, без ожидания таймаута), затем один
+ * рассчитанный по калибровке жест выравнивания. Если локаторы не переводятся в XPath над снимком — прежний алгоритм:
  * <ol>
  *   <li>Внутри {@code Selenide.Wait()} скроллим контейнер ВНИЗ, пока целевой элемент не станет видимым.</li>
  *   <li>Когда элемент видим — «дотягиваем» его так, чтобы он полностью поместился в границы контейнера
@@ -61,54 +64,62 @@ public class ScrollIntoView {
     public void intoView(SelenideAppiumElement scrollableContainer,
                          SelenideAppiumElement target,
                          Duration timeout) {
-        step("Прокрутить контейнер до полной видимости элемента (таймаут: " + timeout.toSeconds() + " с)", () ->
-                Selenide.Wait()
-                        .withTimeout(timeout)
-                        .pollingEvery(Duration.ofMillis(250))
-                        .until(driver -> {
-                            // 1) Фаза поиска: крутим вниз, пока элемент не станет видимым
-                            if (!safeDisplayed(target)) {
-                                boolean scrolled = AndroidMobileGestures.scrollIn(
-                                        scrollableContainer, GestureDirection.DOWN, 0.5, null);
-                                log.debug("search phase: displayed=false, scrolledDown={}", scrolled);
-                                return false;
-                            }
-
-                            // 2) Проверка полной видимости внутри контейнера
-                            if (isFullyVisibleIn(scrollableContainer, target)) {
-                                log.debug("target is fully visible in container");
-                                return true;
-                            }
-
-                            // 3) Дотяжка: корректируем позицию короткими скроллами
-                            Rectangle cr = scrollableContainer.getRect();
-                            Rectangle er = target.getRect();
-                            int containerTop = cr.getY();
-                            int containerBottom = cr.getY() + cr.getHeight();
-                            int elemTop = er.getY();
-                            int elemBottom = er.getY() + er.getHeight();
-
-                            if (elemTop < containerTop) {
-                                double percent = clamp(((containerTop - elemTop) / (double) cr.getHeight()) + 0.1,
-                                        MIN_ADJUST_PERCENT, MAX_ADJUST_PERCENT);
-                                boolean up = AndroidMobileGestures.scrollIn(
-                                        scrollableContainer, GestureDirection.UP, percent, null);
-                                log.debug("adjust phase: top overflow, percent={}, scrolledUp={}", percent, up);
-                                return false;
-                            }
-
-                            if (elemBottom > containerBottom) {
-                                double percent = clamp(((elemBottom - containerBottom) / (double) cr.getHeight()) + 0.1,
-                                        MIN_ADJUST_PERCENT, MAX_ADJUST_PERCENT);
-                                boolean down = AndroidMobileGestures.scrollIn(
-                                        scrollableContainer, GestureDirection.DOWN, percent, null);
-                                log.debug("adjust phase: bottom overflow, percent={}, scrolledDown={}", percent, down);
-                                return false;
-                            }
-
-                            return true;
-                        })
-        );
+        step("Прокрутить контейнер до полной видимости элемента (таймаут: " + timeout.toSeconds() + " с)", () -> {
+            if (ScrollPlanner.intoView(scrollableContainer, target, timeout)) return;
+            pollIntoView(scrollableContainer, target, timeout);
+        });
+    }
+
+    /** Прежний алгоритм поллингом — для локаторов, которые не переводятся в XPath над снимком иерархии. */
+    private void pollIntoView(SelenideAppiumElement scrollableContainer,
+                              SelenideAppiumElement target,
+                              Duration timeout) {
+        Selenide.Wait()
+                .withTimeout(timeout)
+                .pollingEvery(Duration.ofMillis(250))
+                .until(driver -> {
+                    // 1) Фаза поиска: крутим вниз, пока элемент не станет видимым
+                    if (!safeDisplayed(target)) {
+                        boolean scrolled = AndroidMobileGestures.scrollIn(
+                                scrollableContainer, GestureDirection.DOWN, 0.5, null);
+                        log.debug("search phase: displayed=false, scrolledDown={}", scrolled);
+                        return false;
+                    }
+
+                    // 2) Проверка полной видимости внутри контейнера
+                    if (isFullyVisibleIn(scrollableContainer, target)) {
+                        log.debug("target is fully visible in container");
+                        return true;
+                    }
+
+                    // 3) Дотяжка: корректируем позицию короткими скроллами
+                    Rectangle cr = DeviceGeometry.rect(scrollableContainer);
+                    Rectangle er = target.getRect();
+                    int containerTop = cr.getY();
+                    int containerBottom = cr.getY() + cr.getHeight();
+                    int elemTop = er.getY();
+                    int elemBottom = er.getY() + er.getHeight();
+
+                    if (elemTop < containerTop) {
+                        double percent = clamp(((containerTop - elemTop) / (double) cr.getHeight()) + 0.1,
+                                MIN_ADJUST_PERCENT, MAX_ADJUST_PERCENT);
+                        boolean up = AndroidMobileGestures.scrollIn(
+                                scrollableContainer, GestureDirection.UP, percent, null);
+                        log.debug("adjust phase: top overflow, percent={}, scrolledUp={}", percent, up);
+                        return false;
+                    }
+
+                    if (elemBottom > containerBottom) {
+                        double percent = clamp(((elemBottom - containerBottom) / (double) cr.getHeight()) + 0.1,
+                                MIN_ADJUST_PERCENT, MAX_ADJUST_PERCENT);
+                        boolean down = AndroidMobileGestures.scrollIn(
+                                scrollableContainer, GestureDirection.DOWN, percent, null);
+                        log.debug("adjust phase: bottom overflow, percent={}, scrolledDown={}", percent, down);
+                        return false;
+                    }
+
+                    return true;
+                });
     }
 
     // ----------------------- Helpers -----------------------
@@ -125,7 +136,7 @@ public class ScrollIntoView {
 
     /** Полная видимость: элемент целиком внутри вертикальных границ контейнера и видим. */
     private boolean isFullyVisibleIn(SelenideAppiumElement container, SelenideAppiumElement element) {
-        Rectangle cr = container.getRect();
+        Rectangle cr = DeviceGeometry.rect(container);
         Rectangle er = element.getRect();
         int containerTop = cr.getY();
         int containerBottom = cr.getY() + cr.getHeight();
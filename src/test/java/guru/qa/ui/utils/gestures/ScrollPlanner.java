@@ -0,0 +1,204 @@
+package guru.qa.ui.utils.gestures;
+
+import com.codeborne.selenide.appium.SelenideAppiumElement;
+import guru.qa.ui.reporting.RunReports;
+import guru.qa.ui.utils.hierarchy.Clickability;
+import guru.qa.ui.utils.hierarchy.HierarchySnapshot;
+import io.qameta.allure.Allure;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.TimeoutException;
+import org.w3c.dom.Document;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * Планировщик прокрутки «до элемента»: вместо поллинга с фиксированным шагом считает нужный жест.
+ *
+ * <p><b>Как работает:</b>
+ * <ol>
+ *   <li>Поиск — {@link ListScanner}: крупные шаги по снимкам иерархии, быстрый отказ у конца списка;</li>
+ *   <li>Калибровка «пикселей на единицу percent» для пары (устройство, контейнер) — один раз, по ходу поиска
+ *       ({@link ScrollCalibration}), без лишних жестов;</li>
+ *   <li>Цель найдена, но обрезана — один точный {@code scrollGesture} на посчитанную долю;
+ *       при промахе калибровка уточняется по фактическому смещению цели (не больше {@value #MAX_CORRECTIONS} поправок).</li>
+ * </ol>
+ *
+ * <p>Число жестов и запросов к драйверу на вызов пишется в лог ({@code [ScrollPlan]}), в Allure-шаг и в
+ * {@code build/reports/run/<run.id>/scroll-plans-<pid>.json}.</p>
+ *
+ * <p>Если локатор контейнера или цели не переводится в XPath над снимком ({@link ListScanner#supports}),
+ * {@link #intoView} возвращает {@code false} и вызывающий использует прежний алгоритм.</p>
+ */
+@Slf4j
+public final class ScrollPlanner {
+
+    /** Максимум корректирующих жестов после первого точного. */
+    static final int MAX_CORRECTIONS = 2;
+
+    /** Отступ цели от края контейнера после выравнивания, px. */
+    private static final int PADDING = 16;
+
+    private static final List<Report> REPORTS = Collections.synchronizedList(new ArrayList<>());
+
+    static {
+        RunReports.register("scroll-plans", () -> {
+            synchronized (REPORTS) {
+                return new ArrayList<>(REPORTS);
+            }
+        });
+    }
+
+    /**
+     * Итог одного вызова {@link #intoView}.
+     *
+     * @param container   критерий контейнера
+     * @param target      критерий цели
+     * @param gestures    выполнено жестов
+     * @param roundTrips  запросов к драйверу (снимки + жесты)
+     * @param corrections корректирующих жестов после точного
+     * @param pxPerUnit   калибровка, px на 1.0 percent
+     * @param millis      длительность
+     */
+    public record Report(String container, String target, int gestures, int roundTrips, int corrections,
+                         double pxPerUnit, long millis) {
+    }
+
+    private ScrollPlanner() {
+    }
+
+    /**
+     * Прокрутить контейнер так, чтобы цель оказалась целиком внутри него.
+     *
+     * @param container прокручиваемый контейнер
+     * @param target    целевой элемент
+     * @param timeout   общий таймаут
+     * @return {@code false}, если локаторы не поддерживаются снимком (нужен прежний алгоритм)
+     * @throws TimeoutException      цель не найдена за таймаут
+     * @throws IllegalStateException список закончился, а цели нет
+     */
+    public static boolean intoView(SelenideAppiumElement container, SelenideAppiumElement target, Duration timeout) {
+        return intoView(container, target, timeout, OptionalInt.empty());
+    }
+
+    /**
+     * Вариант с оценкой расстояния до цели (прыжок к цели, см. {@link ListScanner}).
+     *
+     * @param distanceHintPx примерное расстояние вниз до цели, px
+     * @see #intoView(SelenideAppiumElement, SelenideAppiumElement, Duration)
+     */
+    public static boolean intoView(SelenideAppiumElement container, SelenideAppiumElement target, Duration timeout,
+                                   OptionalInt distanceHintPx) {
+        if (!ListScanner.supports(container, target)) return false;
+
+        long started = System.nanoTime();
+        ListScanner.Counts counts = new ListScanner.Counts();
+        ListScanner.Result found = null;
+        try {
+            found = ListScanner.scrollTo(container, target, timeout, distanceHintPx, counts);
+        } finally {
+            if (found == null) {
+                report(new Report(container.getSearchCriteria(), target.getSearchCriteria(), counts.gestures(),
+                        counts.snapshots() + counts.gestures(), 0,
+                        ScrollCalibration.pxPerUnit(ScrollCalibration.key(container), 0),
+                        (System.nanoTime() - started) / 1_000_000));
+            }
+        }
+        align(container, target, found, started);
+        return true;
+    }
+
+    /**
+     * Выровнять цель, уже найденную поиском {@link ListScanner} (для вызывающих со своим поиском, см. {@link FeedIndex}).
+     *
+     * @param container прокручиваемый контейнер
+     * @param target    целевой элемент
+     * @param found     результат поиска: снимок, границы контейнера и цели, число жестов
+     */
+    public static void align(SelenideAppiumElement container, SelenideAppiumElement target, ListScanner.Result found) {
+        align(container, target, found, System.nanoTime());
+    }
+
+    /* ===== internals ===== */
+
+    private static void align(SelenideAppiumElement container, SelenideAppiumElement target, ListScanner.Result found,
+                              long started) {
+        String key = ScrollCalibration.key(container);
+        int gestures = found.gestures();
+        int snapshots = found.snapshots();
+        int corrections = 0;
+        try {
+            Rectangle c = found.container();
+            Rectangle t = found.target().bounds();
+
+            for (int aligns = 0; ; aligns++) {
+                int delta = overflow(c, t);
+                if (delta == 0) return;
+                if (aligns > MAX_CORRECTIONS) {
+                    log.warn("[ScrollPlan] цель не выровнялась за {} поправки (сдвиг {} px) — оставляем как есть",
+                            MAX_CORRECTIONS, delta);
+                    return;
+                }
+
+                double percent = clamp(Math.abs(delta) / ScrollCalibration.pxPerUnit(key, c.getHeight()), 0.01, 1.0);
+                GestureDirection dir = delta > 0 ? GestureDirection.DOWN : GestureDirection.UP;
+                AndroidMobileGestures.scrollIn(area(c), dir, percent, ScrollCalibration.SPEED);
+                gestures++;
+                corrections = aligns;
+                Document doc = HierarchySnapshot.refresh();
+                snapshots++;
+
+                Optional<Clickability> after = Clickability.in(doc, target);
+                if (after.isEmpty()) {
+                    log.warn("[ScrollPlan] цель пропала из иерархии после выравнивания");
+                    return;
+                }
+                // уточняем калибровку по фактическому смещению самой цели
+                int moved = Math.abs(t.getY() - after.get().bounds().getY());
+                if (moved > 0) ScrollCalibration.calibrate(key, moved / percent, true);
+                t = after.get().bounds();
+                c = Clickability.in(doc, container).map(Clickability::bounds).orElse(c);
+            }
+        } finally {
+            report(new Report(container.getSearchCriteria(), target.getSearchCriteria(), gestures, snapshots + gestures,
+                    corrections, ScrollCalibration.pxPerUnit(key, 0), (System.nanoTime() - started) / 1_000_000));
+        }
+    }
+
+    /**
+     * На сколько пикселей нужно прокрутить, чтобы цель целиком вошла в контейнер: {@code > 0} — вниз, {@code < 0} — вверх.
+     */
+    static int overflow(Rectangle c, Rectangle t) {
+        int cTop = c.getY();
+        int cBottom = c.getY() + c.getHeight();
+        int tTop = t.getY();
+        int tBottom = t.getY() + t.getHeight();
+        int pad = Math.max(0, Math.min(PADDING, (c.getHeight() - t.getHeight()) / 2));
+
+        if (t.getHeight() > c.getHeight()) return tTop - cTop - pad;   // не помещается — выравниваем по верху
+        if (tTop < cTop) return -(cTop - tTop + pad);
+        if (tBottom > cBottom) return tBottom - cBottom + pad;
+        return 0;
+    }
+
+    private static void report(Report r) {
+        REPORTS.add(r);
+        log.info("[ScrollPlan] жестов={}, запросов={}, поправок={}, {} px/1.0, {} мс — {}",
+                r.gestures(), r.roundTrips(), r.corrections(), Math.round(r.pxPerUnit()), r.millis(), r.target());
+        Allure.step("План прокрутки: жестов " + r.gestures() + ", запросов к драйверу " + r.roundTrips()
+                + ", " + r.millis() + " мс");
+    }
+
+    private static GestureArea area(Rectangle r) {
+        return new GestureArea(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+    }
+
+    private static double clamp(double v, double min, double max) {
+        return Math.max(min, Math.min(max, v));
+    }
+}
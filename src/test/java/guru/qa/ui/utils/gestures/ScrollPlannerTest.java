@@ -0,0 +1,58 @@
+package guru.qa.ui.utils.gestures;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Расчёт жеста выравнивания {@link ScrollPlanner} (без устройства).
+ */
+@Tag("unit")
+@DisplayName("ScrollPlanner: сдвиг для выравнивания цели в контейнере")
+class ScrollPlannerTest {
+
+    /** Контейнер: y = 100..1100. */
+    private static final Rectangle FEED = rect(100, 1000);
+
+    @Test
+    @DisplayName("Цель целиком внутри — жест не нужен")
+    void insideNeedsNoGesture() {
+        assertThat(ScrollPlanner.overflow(FEED, rect(100, 200))).isZero();
+        assertThat(ScrollPlanner.overflow(FEED, rect(500, 600))).isZero();
+    }
+
+    @Test
+    @DisplayName("Обрезана снизу — вниз на вылет плюс отступ")
+    void clippedAtBottomScrollsDown() {
+        assertThat(ScrollPlanner.overflow(FEED, rect(1050, 100))).isEqualTo(1150 - 1100 + 16);
+    }
+
+    @Test
+    @DisplayName("Обрезана сверху — вверх на вылет плюс отступ")
+    void clippedAtTopScrollsUp() {
+        assertThat(ScrollPlanner.overflow(FEED, rect(50, 100))).isEqualTo(-(100 - 50 + 16));
+    }
+
+    @Test
+    @DisplayName("Цель выше контейнера — выравнивание по верху без отступа")
+    void tallerTargetAlignsTop() {
+        assertThat(ScrollPlanner.overflow(FEED, rect(300, 1200))).isEqualTo(300 - 100);
+    }
+
+    @Test
+    @DisplayName("Отступ не больше половины свободного места")
+    void paddingShrinksInSmallContainer() {
+        Rectangle small = rect(100, 100);
+        assertThat(ScrollPlanner.overflow(small, rect(50, 90))).isEqualTo(-(100 - 50 + 5));
+        assertThat(ScrollPlanner.overflow(small, rect(100, 100))).isZero();
+    }
+
+    private static Rectangle rect(int y, int height) {
+        return new Rectangle(new Point(0, y), new Dimension(1080, height));
+    }
+}
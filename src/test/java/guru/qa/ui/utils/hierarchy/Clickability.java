@@ -0,0 +1,157 @@
+package guru.qa.ui.utils.hierarchy;
+
+import com.codeborne.selenide.Condition;
+import com.codeborne.selenide.Configuration;
+import com.codeborne.selenide.Selenide;
+import com.codeborne.selenide.WebDriverRunner;
+import com.codeborne.selenide.appium.SelenideAppiumElement;
+import guru.qa.ui.reporting.GestureTelemetry;
+import guru.qa.ui.reporting.WaitAttribution;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.Rectangle;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.xpath.XPathExpressionException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Кликабельность элемента одним снимком: displayed / enabled / clickable / bounds из {@link HierarchySnapshot}.
+ *
+ * <p><b>Правило клика проекта</b> ({@code visible && enabled && clickable="true"}) проверяется по снимку
+ * иерархии, а тап идёт {@code mobile: clickGesture} в центр bounds — итого один запрос на проверку и один на действие
+ * вместо трёх {@code shouldBe} + поиска элемента + тапа.</p>
+ *
+ * <p>Снимок строится для локаторов верхнего уровня {@code id} / {@code accessibilityId} / {@code xpath}
+ * ({@link HierarchyXPath}). Для остальных (вложенные, индексные) {@link #of(SelenideAppiumElement)} возвращает
+ * {@link Optional#empty()}, а {@link #tap(SelenideAppiumElement, String)} работает прежними ожиданиями Selenide.</p>
+ *
+ * @param displayed узел виден
+ * @param enabled   узел доступен
+ * @param clickable {@code clickable="true"}
+ * @param bounds    границы узла на экране
+ */
+@Slf4j
+public record Clickability(boolean displayed, boolean enabled, boolean clickable, Rectangle bounds) {
+
+    /** Элемент удовлетворяет правилу клика проекта. */
+    public boolean ready() {
+        return displayed && enabled && clickable && bounds.getWidth() > 0 && bounds.getHeight() > 0;
+    }
+
+    /**
+     * Состояние элемента по (кешированному) снимку иерархии.
+     *
+     * @param el элемент
+     * @return состояние; пусто — узел не найден или локатор не переводится в XPath
+     */
+    public static Optional<Clickability> of(SelenideAppiumElement el) {
+        return in(HierarchySnapshot.document(), el);
+    }
+
+    /**
+     * Состояние элемента в заданном снимке иерархии.
+     *
+     * @param doc снимок ({@link HierarchySnapshot#document()} / {@link HierarchySnapshot#refresh()})
+     * @param el  элемент
+     * @return состояние; пусто — узел не найден или локатор не переводится в XPath
+     */
+    public static Optional<Clickability> in(Document doc, SelenideAppiumElement el) {
+        Optional<String> xpath = HierarchyXPath.of(el);
+        if (xpath.isEmpty()) return Optional.empty();
+        try {
+            return find(doc, xpath.get());
+        } catch (XPathExpressionException e) {
+            log.debug("[Click] XPath не поддерживается снимком ({}): {}", e.getMessage(), xpath.get());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Дождаться готовности элемента к клику по снимкам иерархии и тапнуть в центр.
+     *
+     * <p>Опрос идёт по кешированному снимку ({@link HierarchySnapshot#document()}): в пределах его TTL повторный
+     * {@code getPageSource} не запрашивается. По таймауту правило клика проверяется проверками Selenide без ожидания —
+     * падение то же, что у прежнего пути (со скриншотом и причиной).</p>
+     *
+     * @param el   элемент
+     * @param name имя для сообщений
+     * @throws com.codeborne.selenide.ex.UIAssertionError если элемент не стал кликабельным за {@link Configuration#timeout}
+     */
+    public static void tap(SelenideAppiumElement el, String name) {
+        Optional<String> xpath = HierarchyXPath.of(el);
+        if (xpath.isEmpty()) {
+            tapLegacy(el, name);
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        long deadline = started + Configuration.timeout;
+        Document doc = HierarchySnapshot.document();
+        Optional<Clickability> state;
+        int polls = 1;
+        while (true) {
+            try {
+                state = find(doc, xpath.get());
+            } catch (XPathExpressionException e) {
+                log.debug("[Click] XPath не поддерживается снимком ({}): {}", e.getMessage(), xpath.get());
+                tapLegacy(el, name);
+                return;
+            }
+            if (state.isPresent() && state.get().ready()) break;
+            if (System.currentTimeMillis() >= deadline) {
+                WaitAttribution.record(el.getSearchCriteria(), "clickable (snapshot)",
+                        System.currentTimeMillis() - started, polls, true);
+                log.debug("[Click] {} не готов(а) к клику за {} мс: {}", name, Configuration.timeout,
+                        state.map(Clickability::toString).orElse("узел не найден"));
+                // ошибка Selenide по живому элементу; если он успел стать готовым после снимка — тап прежним путём
+                shouldBeClickable(el, name, Duration.ZERO);
+                el.tap();
+                HierarchySnapshot.invalidate();
+                return;
+            }
+            Selenide.sleep(Configuration.pollingInterval);
+            doc = HierarchySnapshot.document();
+            polls++;
+        }
+        WaitAttribution.record(el.getSearchCriteria(), "clickable (snapshot)", System.currentTimeMillis() - started, polls, false);
+
+        Rectangle b = state.get().bounds();
+        int x = b.getX() + b.getWidth() / 2;
+        int y = b.getY() + b.getHeight() / 2;
+        GestureTelemetry.time("clickGesture", () ->
+                ((JavascriptExecutor) WebDriverRunner.getWebDriver()).executeScript("mobile: clickGesture", Map.of("x", x, "y", y)));
+        HierarchySnapshot.invalidate();
+        log.debug("[Click] {} → тап ({}, {})", name, x, y);
+    }
+
+    /* ===== internals ===== */
+
+    /** Прежний путь: три ожидания Selenide + {@code tap()} (для локаторов, которые не переводятся в XPath). */
+    private static void tapLegacy(SelenideAppiumElement el, String name) {
+        shouldBeClickable(el, name, Duration.ofMillis(Configuration.timeout));
+        el.tap();
+        HierarchySnapshot.invalidate();
+    }
+
+    /** Правило клика проекта проверками Selenide (ошибка — {@code UIAssertionError}). */
+    private static void shouldBeClickable(SelenideAppiumElement el, String name, Duration timeout) {
+        el.shouldBe(Condition.visible.because(name + " должен(а) быть видим(а)"), timeout);
+        el.shouldBe(Condition.enabled.because(name + " должен(а) быть доступен/доступна"), timeout);
+        el.shouldHave(Condition.attribute("clickable", "true").because(name + " должен(а) быть кликабельн(ым/ой)"), timeout);
+    }
+
+    private static Optional<Clickability> find(Document doc, String xpath) throws XPathExpressionException {
+        Node node = HierarchyXPath.first(doc, xpath);
+        if (!(node instanceof Element e)) return Optional.empty();
+        return Optional.of(new Clickability(
+                !"false".equals(e.getAttribute("displayed")),
+                "true".equals(e.getAttribute("enabled")),
+                "true".equals(e.getAttribute("clickable")),
+                HierarchySnapshot.bounds(e)));
+    }
+}
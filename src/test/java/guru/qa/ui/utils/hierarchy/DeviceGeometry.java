@@ -0,0 +1,132 @@
+package guru.qa.ui.utils.hierarchy;
+
+import com.codeborne.selenide.WebDriverRunner;
+import com.codeborne.selenide.appium.SelenideAppiumElement;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriver;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Геометрия устройства текущей сессии с кешем на поток: размер вьюпорта и прямоугольники стабильных контейнеров
+ * (лента, списки, пейджер).
+ *
+ * <p><b>Зачем:</b> жесты и доскролл спрашивали {@code window().getSize()} / {@code getRect()} контейнера
+ * на каждом шаге (поиск элемента + запрос размеров); при прокрутке контейнер не двигается — достаточно одного раза.</p>
+ *
+ * <p><b>Сброс:</b>
+ * <ul>
+ *   <li>новая сессия (другой драйвер) — всё;</li>
+ *   <li>поворот/смена размера окна — всё: {@link HierarchySnapshot} сверяет корень каждого нового снимка ({@link #observe});</li>
+ *   <li>любой сброс снимка {@link HierarchySnapshot#invalidate()} (действия Selenide, тапы {@link Clickability},
+ *       жесты, быстрый ввод) — прямоугольники контейнеров: после смены экрана общий локатор
+ *       ({@code //*[@scrollable='true']}) указывает уже на другой контейнер;</li>
+ *   <li>страховка: прямоугольник живёт не дольше {@code ui.geometry.ttlMs} (по умолчанию 10 с).</li>
+ * </ul>
+ */
+@Slf4j
+@UtilityClass
+public class DeviceGeometry {
+
+    /** Время жизни прямоугольника контейнера, мс. */
+    private static final long RECT_TTL_MS = Long.getLong("ui.geometry.ttlMs", 10_000);
+
+    private static final ThreadLocal<State> STATE = new ThreadLocal<>();
+
+    private record TimedRect(Rectangle rect, long atNanos) {
+    }
+
+    private static final class State {
+        private final WebDriver driver;
+        private final Map<String, TimedRect> rects = new HashMap<>();
+        private Dimension viewport;
+        private String window;
+
+        private State(WebDriver driver) {
+            this.driver = driver;
+        }
+    }
+
+    /**
+     * Размер вьюпорта (один {@code window().getSize()} на сессию и ориентацию).
+     *
+     * @return размер окна
+     */
+    public Dimension viewport() {
+        State s = state();
+        if (s.viewport == null) s.viewport = s.driver.manage().window().getSize();
+        return s.viewport;
+    }
+
+    /**
+     * Прямоугольник контейнера: из кеша (по критерию локатора), иначе {@code getRect()}.
+     *
+     * @param container стабильный контейнер (лента, список, пейджер)
+     * @return границы на экране
+     */
+    public Rectangle rect(SelenideAppiumElement container) {
+        State s = state();
+        String key = container.getSearchCriteria();
+        TimedRect cached = s.rects.get(key);
+        if (cached != null && (System.nanoTime() - cached.atNanos()) / 1_000_000 <= RECT_TTL_MS) {
+            return cached.rect();
+        }
+        Rectangle r = container.getRect();
+        s.rects.put(key, new TimedRect(r, System.nanoTime()));
+        return r;
+    }
+
+    /**
+     * Запомнить прямоугольник контейнера, уже известный из снимка иерархии (без запроса к драйверу).
+     *
+     * @param container контейнер
+     * @param rect      границы из снимка
+     */
+    public void remember(SelenideAppiumElement container, Rectangle rect) {
+        state().rects.put(container.getSearchCriteria(), new TimedRect(rect, System.nanoTime()));
+    }
+
+    /** Сбросить прямоугольники контейнеров текущего потока (раскладка могла измениться). */
+    public void invalidate() {
+        State s = STATE.get();
+        if (s != null) s.rects.clear();
+    }
+
+    /**
+     * Сверить корень нового снимка ({@code rotation}, {@code width}, {@code height}) с прошлым:
+     * поворот или смена размера окна сбрасывают всю геометрию.
+     *
+     * @param doc разобранный page source
+     */
+    void observe(Document doc) {
+        Element root = doc.getDocumentElement();
+        if (root == null || root.getAttribute("rotation").isEmpty()) return;
+        String window = root.getAttribute("rotation") + ":" + root.getAttribute("width") + "x" + root.getAttribute("height");
+        State s = state();
+        if (s.window != null && !s.window.equals(window)) {
+            log.debug("[Geometry] окно изменилось ({} → {}), геометрия сброшена", s.window, window);
+            State fresh = new State(s.driver);
+            STATE.set(fresh);
+            s = fresh;
+        }
+        s.window = window;
+    }
+
+    /* ===== internals ===== */
+
+    private static State state() {
+        WebDriver driver = WebDriverRunner.getWebDriver();
+        State s = STATE.get();
+        if (s == null || s.driver != driver) {
+            s = new State(driver);
+            STATE.set(s);
+        }
+        return s;
+    }
+}
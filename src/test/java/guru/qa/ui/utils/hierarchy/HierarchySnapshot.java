@@ -0,0 +1,128 @@
+package guru.qa.ui.utils.hierarchy;
+
+import com.codeborne.selenide.WebDriverRunner;
+import com.codeborne.selenide.logevents.LogEvent;
+import com.codeborne.selenide.logevents.LogEventListener;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriver;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Снимок UI-иерархии (page source UiAutomator2) с коротким кешем на поток.
+ *
+ * <p><b>Зачем:</b> один {@code getPageSource} отдаёт displayed/enabled/clickable/bounds всех узлов экрана,
+ * тогда как проверка элемента через WebDriver стоит по запросу на каждое свойство (на BrowserStack —
+ * 150–300 мс каждый). Снимок живёт {@code ui.snapshot.ttlMs} (по умолчанию 300 мс) и сбрасывается
+ * после любого действия: жесты и тапы вызывают {@link #invalidate()}, действия Selenide — {@link Invalidator}.</p>
+ */
+@Slf4j
+@UtilityClass
+public class HierarchySnapshot {
+
+    /** Время жизни снимка, мс. */
+    private static final long TTL_MS = Long.getLong("ui.snapshot.ttlMs", 300);
+
+    private static final Pattern BOUNDS = Pattern.compile("\\[(-?\\d+),(-?\\d+)]\\[(-?\\d+),(-?\\d+)]");
+
+    private static final ThreadLocal<Cached> CACHE = new ThreadLocal<>();
+
+    private record Cached(WebDriver driver, long fetchedAtNanos, Document document) {
+    }
+
+    /**
+     * Разобранная иерархия текущего экрана: из кеша, если он свежий и того же драйвера, иначе — новым запросом.
+     *
+     * @return DOM page source
+     */
+    public Document document() {
+        WebDriver driver = WebDriverRunner.getWebDriver();
+        Cached c = CACHE.get();
+        if (c != null && c.driver() == driver && (System.nanoTime() - c.fetchedAtNanos()) / 1_000_000 <= TTL_MS) {
+            return c.document();
+        }
+        return refresh();
+    }
+
+    /**
+     * Снять иерархию заново (один запрос к драйверу) и положить в кеш.
+     *
+     * @return DOM page source
+     */
+    public Document refresh() {
+        WebDriver driver = WebDriverRunner.getWebDriver();
+        long started = System.nanoTime();
+        Document doc = parse(driver.getPageSource());
+        CACHE.set(new Cached(driver, System.nanoTime(), doc));
+        DeviceGeometry.observe(doc);
+        log.debug("[Hierarchy] page source снят за {} мс", (System.nanoTime() - started) / 1_000_000);
+        return doc;
+    }
+
+    /**
+     * Границы узла из атрибута {@code bounds="[l,t][r,b]"}.
+     *
+     * @param node узел page source
+     * @return прямоугольник; нулевой, если атрибута нет
+     */
+    public Rectangle bounds(Element node) {
+        Matcher m = BOUNDS.matcher(node.getAttribute("bounds"));
+        if (!m.matches()) return new Rectangle(0, 0, 0, 0);
+        int l = Integer.parseInt(m.group(1));
+        int t = Integer.parseInt(m.group(2));
+        int r = Integer.parseInt(m.group(3));
+        int b = Integer.parseInt(m.group(4));
+        return new Rectangle(l, t, b - t, r - l);
+    }
+
+    /** Сбросить кеш текущего потока (UI мог измениться) вместе с прямоугольниками контейнеров {@link DeviceGeometry}. */
+    public void invalidate() {
+        CACHE.remove();
+        DeviceGeometry.invalidate();
+    }
+
+    /**
+     * Сбрасывает снимок (и прямоугольники {@link DeviceGeometry}) после действий Selenide (click/tap/setValue/…);
+     * проверки и чтения кеш не трогают.
+     * Регистрируется в {@code TestBase} как SelenideLogger-слушатель.
+     */
+    public static final class Invalidator implements LogEventListener {
+
+        private static final String[] READ_ONLY = {"should", "wait", "is", "has", "exist", "get", "find", "$", "text"};
+
+        @Override
+        public void afterEvent(LogEvent event) {
+            String subject = String.valueOf(event.getSubject()).trim().toLowerCase(Locale.ROOT);
+            for (String prefix : READ_ONLY) {
+                if (subject.startsWith(prefix)) return;
+            }
+            invalidate();
+        }
+
+        @Override
+        public void beforeEvent(LogEvent event) {
+        }
+    }
+
+    /* ===== internals ===== */
+
+    private static Document parse(String xml) {
+        try {
+            DocumentBuilderFactory f = DocumentBuilderFactory.newInstance();
+            f.setNamespaceAware(false);
+            f.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return f.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot parse page source: " + e, e);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package guru.qa.ui.utils.hierarchy;
+
+import com.codeborne.selenide.appium.SelenideAppiumElement;
+import lombok.experimental.UtilityClass;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathFunction;
+import javax.xml.xpath.XPathFunctionException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * XPath над снимком иерархии ({@link HierarchySnapshot}) для локаторов проекта.
+ *
+ * <p>Критерий поиска Selenide ({@code AppiumBy.id: …}, {@code AppiumBy.accessibilityId: …}, {@code By.xpath: …})
+ * переводится в XPath над page source. JAXP знает только XPath 1.0, поэтому функции XPath 2.0, которые
+ * используют локаторы проекта ({@code matches}, {@code lower-case}, {@code upper-case}, {@code ends-with}),
+ * подменяются своими реализациями через {@link javax.xml.xpath.XPathFunctionResolver}.</p>
+ */
+@UtilityClass
+public class HierarchyXPath {
+
+    private static final String FN_NS = "urn:wikipedia-tests:xpath2";
+
+    private static final Pattern CRITERIA = Pattern.compile("^(?:Appium)?By\\.(id|accessibilityId|xpath): (.+)$", Pattern.DOTALL);
+    private static final Pattern XPATH2_CALL = Pattern.compile("(?<![\\w:.-])(matches|lower-case|upper-case|ends-with)\\s*\\(");
+
+    private static final ThreadLocal<XPath> XPATH = ThreadLocal.withInitial(HierarchyXPath::newXPath);
+
+    /**
+     * XPath для элемента Selenide.
+     *
+     * @param el элемент
+     * @return XPath над page source; пусто — вложенный/индексный/неподдерживаемый локатор
+     */
+    public Optional<String> of(SelenideAppiumElement el) {
+        String criteria = el.getSearchCriteria();
+        Matcher m = CRITERIA.matcher(criteria);
+        if (!m.matches() || criteria.contains("/By.") || criteria.contains("/AppiumBy.")) return Optional.empty();
+
+        String value = m.group(2);
+        Optional<String> xpath = switch (m.group(1)) {
+            case "id" -> value.contains(":id/") ? literal(value).map(v -> "//*[@resource-id=" + v + "]") : Optional.empty();
+            case "accessibilityId" -> literal(value).map(v -> "//*[@content-desc=" + v + "]");
+            default -> Optional.of(value);
+        };
+        return xpath.filter(HierarchyXPath::compiles);
+    }
+
+    /**
+     * Первый узел по XPath.
+     *
+     * @param doc   снимок иерархии
+     * @param xpath выражение (XPath 1.0 + функции выше)
+     * @return узел или {@code null}
+     * @throws XPathExpressionException выражение не разбирается или не вычисляется
+     */
+    public Node first(Document doc, String xpath) throws XPathExpressionException {
+        return (Node) XPATH.get().evaluate(rewrite(xpath), doc, XPathConstants.NODE);
+    }
+
+    /**
+     * Все узлы по XPath (в порядке документа).
+     *
+     * @param doc   снимок иерархии
+     * @param xpath выражение (XPath 1.0 + функции выше)
+     * @return найденные узлы (возможно, пустой список)
+     * @throws XPathExpressionException выражение не разбирается или не вычисляется
+     */
+    public NodeList all(Document doc, String xpath) throws XPathExpressionException {
+        return (NodeList) XPATH.get().evaluate(rewrite(xpath), doc, XPathConstants.NODESET);
+    }
+
+    /* ===== internals ===== */
+
+    private static boolean compiles(String xpath) {
+        try {
+            XPATH.get().compile(rewrite(xpath));
+            return true;
+        } catch (XPathExpressionException e) {
+            return false;
+        }
+    }
+
+    /** Вызовы функций XPath 2.0 → {@code fn:…} (их вычисляет {@link #resolve}). */
+    static String rewrite(String xpath) {
+        return XPATH2_CALL.matcher(xpath).replaceAll("fn:$1(");
+    }
+
+    private static Optional<String> literal(String value) {
+        if (!value.contains("'")) return Optional.of("'" + value + "'");
+        if (!value.contains("\"")) return Optional.of("\"" + value + "\"");
+        return Optional.empty();
+    }
+
+    private static XPath newXPath() {
+        XPath xp = XPathFactory.newInstance().newXPath();
+        xp.setNamespaceContext(new NamespaceContext() {
+            @Override
+            public String getNamespaceURI(String prefix) {
+                return "fn".equals(prefix) ? FN_NS : null;
+            }
+
+            @Override
+            public String getPrefix(String namespaceURI) {
+                return FN_NS.equals(namespaceURI) ? "fn" : null;
+            }
+
+            @Override
+            public Iterator<String> getPrefixes(String namespaceURI) {
+                return List.of("fn").iterator();
+            }
+        });
+        xp.setXPathFunctionResolver(HierarchyXPath::resolve);
+        return xp;
+    }
+
+    private static XPathFunction resolve(QName name, int arity) {
+        if (!FN_NS.equals(name.getNamespaceURI())) return null;
+        return switch (name.getLocalPart()) {
+            case "lower-case" -> args -> str(args, 0).toLowerCase(Locale.ROOT);
+            case "upper-case" -> args -> str(args, 0).toUpperCase(Locale.ROOT);
+            case "ends-with" -> args -> str(args, 0).endsWith(str(args, 1));
+            case "matches" -> args -> regex(str(args, 1), args.size() > 2 ? str(args, 2) : "").matcher(str(args, 0)).find();
+            default -> null;
+        };
+    }
+
+    private static Pattern regex(String pattern, String flags) throws XPathFunctionException {
+        int f = 0;
+        if (flags.contains("i")) f |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+        if (flags.contains("s")) f |= Pattern.DOTALL;
+        if (flags.contains("m")) f |= Pattern.MULTILINE;
+        if (flags.contains("x")) f |= Pattern.COMMENTS;
+        try {
+            return Pattern.compile(pattern, f);
+        } catch (RuntimeException e) {
+            throw new XPathFunctionException(e);
+        }
+    }
+
+    /** Строковое значение аргумента (узлы — по первому узлу, как в XPath 1.0). */
+    private static String str(List<?> args, int i) {
+        Object a = args.get(i);
+        if (a instanceof NodeList nl) return nl.getLength() == 0 ? "" : nl.item(0).getTextContent();
+        if (a instanceof Node n) return n.getTextContent();
+        return a == null ? "" : String.valueOf(a);
+    }
+}
@@ -0,0 +1,72 @@
+package guru.qa.ui.utils.hierarchy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Перевод функций XPath 2.0 в {@code fn:…} и их вычисление над снимком иерархии (без устройства).
+ */
+@Tag("unit")
+@DisplayName("HierarchyXPath: функции XPath 2.0 над снимком иерархии")
+class HierarchyXPathTest {
+
+    private static final String PAGE_SOURCE = """
+            <hierarchy>
+              <android.widget.FrameLayout resource-id="org.wikipedia.alpha:id/root">
+                <android.widget.TextView resource-id="org.wikipedia.alpha:id/view_card_header_title" text="In the News"/>
+                <android.widget.TextView resource-id="org.wikipedia.alpha:id/page_title" text="Sweden"/>
+              </android.widget.FrameLayout>
+            </hierarchy>
+            """;
+
+    @Test
+    @DisplayName("Вызовы matches / lower-case / upper-case / ends-with получают префикс fn:")
+    void rewritesXPath2Calls() {
+        assertThat(HierarchyXPath.rewrite("//*[lower-case(@text)='sweden']"))
+                .isEqualTo("//*[fn:lower-case(@text)='sweden']");
+        assertThat(HierarchyXPath.rewrite("//*[matches (@text, '^in', 'i') and ends-with(@resource-id, 'title')]"))
+                .isEqualTo("//*[fn:matches(@text, '^in', 'i') and fn:ends-with(@resource-id, 'title')]");
+        assertThat(HierarchyXPath.rewrite("//*[upper-case(lower-case(@text))='X']"))
+                .isEqualTo("//*[fn:upper-case(fn:lower-case(@text))='X']");
+    }
+
+    @Test
+    @DisplayName("Функции XPath 1.0 и уже переписанные вызовы не трогаются")
+    void keepsXPath1AndPrefixedCalls() {
+        String xpath = "//*[starts-with(@text, 'S') and contains(@resource-id, 'title') and fn:matches(@text, 'e')]";
+        assertThat(HierarchyXPath.rewrite(xpath)).isEqualTo(xpath);
+        assertThat(HierarchyXPath.rewrite("//*[my-matches(@text)]")).isEqualTo("//*[my-matches(@text)]");
+    }
+
+    @Test
+    @DisplayName("Переписанные выражения вычисляются по page source")
+    void evaluatesRewrittenFunctions() throws Exception {
+        Document doc = parse(PAGE_SOURCE);
+
+        assertThat(text(doc, "//*[lower-case(@text)='in the news']")).isEqualTo("In the News");
+        assertThat(text(doc, "//*[matches(@text, '^SWE', 'i')]")).isEqualTo("Sweden");
+        assertThat(text(doc, "//*[ends-with(@resource-id, ':id/page_title')]")).isEqualTo("Sweden");
+        assertThat(text(doc, "//*[upper-case(@text)='SWEDEN']")).isEqualTo("Sweden");
+        assertThat(HierarchyXPath.first(doc, "//*[matches(@text, '^swe')]")).isNull();
+        assertThat(HierarchyXPath.all(doc, "//android.widget.TextView[matches(@resource-id, 'title$')]").getLength())
+                .isEqualTo(2);
+    }
+
+    private static String text(Document doc, String xpath) throws Exception {
+        return ((Element) HierarchyXPath.first(doc, xpath)).getAttribute("text");
+    }
+
+    static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+}
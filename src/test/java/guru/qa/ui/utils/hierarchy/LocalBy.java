@@ -0,0 +1,213 @@
+package guru.qa.ui.utils.hierarchy;
+
+import guru.qa.ui.reporting.WaitAttribution;
+import io.appium.java_client.AppiumBy;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.xpath.XPathExpressionException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Локатор, XPath которого вычисляется в JVM над снимком иерархии ({@link HierarchySnapshot}), а не на устройстве.
+ *
+ * <p><b>Зачем:</b> тяжёлые XPath 2.0-локаторы ({@code matches(lower-case(@text), …)}, {@code //*[child::*[…]]//…})
+ * UiAutomator2 вычисляет по всему дереву на каждом опросе Selenide. Здесь выражение вычисляется по закешированному
+ * page source (один запрос на изменение UI, снимок общий с {@link Clickability} и прокрутками), а на устройстве
+ * ищется только найденный узел — дешёвым запросом:</p>
+ * <ul>
+ *   <li>у всех найденных узлов один {@code resource-id} — {@link AppiumBy#id}, нужные берутся по порядковому номеру;</li>
+ *   <li>один узел с уникальным {@code content-desc} — {@link AppiumBy#accessibilityId};</li>
+ *   <li>иначе — абсолютный позиционный путь с проверкой {@code bounds} (без перебора дерева по предикатам).</li>
+ * </ul>
+ *
+ * <p>Элементы, взятые по {@code resource-id} и порядковому номеру, сверяются со снимком по {@code bounds} и тексту.
+ * Если устройство вернуло не те элементы (UI успел измениться — например, список прокрутился), снимок сбрасывается
+ * и поиск один раз повторяется по свежему снимку; после второго расхождения, как и для вложенного поиска
+ * ({@code el.$(…)}) и выражений, которые JAXP не вычисляет, — обычный {@link By#xpath} на устройстве.</p>
+ *
+ * <p>{@code toString()} совпадает с {@link By#xpath}: критерий поиска Selenide понимают {@link HierarchyXPath#of},
+ * {@code ListScanner} и {@link Clickability}. {@code -Dui.localXPath=false} — все выражения на устройстве, как раньше.</p>
+ *
+ * <pre>{@code
+ * SelenideAppiumElement gotIt = $(LocalBy.xpath("//*[matches(lower-case(@text),'^got it$')]"));
+ * }</pre>
+ */
+@Slf4j
+public final class LocalBy extends By {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("ui.localXPath", "true"));
+
+    /** Индекс снимка: узлы по resource-id / content-desc (строится один раз на снимок). */
+    private static final Map<Document, Index> INDEXES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final String xpath;
+
+    private LocalBy(String xpath) {
+        this.xpath = xpath;
+    }
+
+    /**
+     * Локатор по XPath (XPath 1.0 + {@code matches}/{@code lower-case}/{@code upper-case}/{@code ends-with}).
+     *
+     * @param xpath выражение от корня иерархии
+     * @return локатор
+     */
+    public static LocalBy xpath(String xpath) {
+        if (xpath == null || xpath.isBlank()) {
+            throw new IllegalArgumentException("XPath не может быть пустым");
+        }
+        return new LocalBy(xpath);
+    }
+
+    @Override
+    public WebElement findElement(SearchContext context) {
+        List<WebElement> found = find(context, true);
+        if (found.isEmpty()) throw new NoSuchElementException("Cannot locate an element using " + this);
+        return found.get(0);
+    }
+
+    @Override
+    public List<WebElement> findElements(SearchContext context) {
+        return find(context, false);
+    }
+
+    @Override
+    public String toString() {
+        return "By.xpath: " + xpath;
+    }
+
+    /* ===== internals ===== */
+
+    private record Index(Map<String, List<Element>> byId, Map<String, Integer> descCount) {
+    }
+
+    private List<WebElement> find(SearchContext context, boolean firstOnly) {
+        if (!ENABLED || context instanceof WebElement) return context.findElements(By.xpath(xpath));
+
+        WaitAttribution.lookup();
+        for (int attempt = 0; ; attempt++) {
+            long started = System.nanoTime();
+            Document doc = HierarchySnapshot.document();
+            List<Element> matches = new ArrayList<>();
+            try {
+                NodeList nodes = HierarchyXPath.all(doc, xpath);
+                for (int i = 0; i < nodes.getLength() && !(firstOnly && !matches.isEmpty()); i++) {
+                    Node n = nodes.item(i);
+                    if (n instanceof Element e) matches.add(e);
+                }
+            } catch (XPathExpressionException e) {
+                log.debug("[Locator] JAXP не вычисляет {} ({}) — поиск на устройстве", xpath, e.getMessage());
+                return context.findElements(By.xpath(xpath));
+            }
+            long evalMs = (System.nanoTime() - started) / 1_000_000;
+            if (matches.isEmpty()) {
+                log.trace("[Locator] {}: в снимке нет ({} мс)", xpath, evalMs);
+                return List.of();
+            }
+
+            List<WebElement> resolved = resolve(context, index(doc), matches);
+            if (resolved != null) {
+                log.debug("[Locator] {}: {} узл(ов) в снимке за {} мс, на устройстве {}",
+                        xpath, matches.size(), evalMs, resolved.size());
+                return resolved;
+            }
+            HierarchySnapshot.invalidate();
+            if (attempt > 0) {
+                log.debug("[Locator] {}: снимок и устройство не сошлись дважды — поиск на устройстве", xpath);
+                return context.findElements(By.xpath(xpath));
+            }
+            log.debug("[Locator] {}: снимок устарел — повтор по свежему снимку", xpath);
+        }
+    }
+
+    /**
+     * Найденные в снимке узлы → элементы устройства одним дешёвым запросом.
+     *
+     * @return элементы в порядке {@code matches}; {@code null} — устройство не совпало со снимком
+     */
+    private static List<WebElement> resolve(SearchContext context, Index index, List<Element> matches) {
+        String id = matches.get(0).getAttribute("resource-id");
+        if (!id.isEmpty() && matches.stream().allMatch(m -> id.equals(m.getAttribute("resource-id")))) {
+            List<Element> sameId = index.byId().get(id);
+            List<WebElement> device = context.findElements(AppiumBy.id(id));
+            if (device.size() != sameId.size()) return null;
+            List<WebElement> out = new ArrayList<>(matches.size());
+            for (Element m : matches) {
+                WebElement el = device.get(sameId.indexOf(m));
+                // Тот же счёт ещё не значит те же строки: RecyclerView мог прокрутиться или переиспользовать их.
+                if (!sameNode(el, m)) return null;
+                out.add(el);
+            }
+            return out;
+        }
+
+        String desc = matches.get(0).getAttribute("content-desc");
+        if (matches.size() == 1 && !desc.isEmpty() && index.descCount().get(desc) == 1) {
+            List<WebElement> device = context.findElements(AppiumBy.accessibilityId(desc));
+            return device.size() == 1 ? device : null;
+        }
+
+        StringBuilder union = new StringBuilder();
+        for (Element m : matches) {
+            if (!union.isEmpty()) union.append(" | ");
+            union.append(path(m));
+        }
+        List<WebElement> device = context.findElements(AppiumBy.xpath(union.toString()));
+        return device.size() == matches.size() ? device : null;
+    }
+
+    /** Элемент устройства — тот же узел, что в снимке: совпадают {@code bounds} и текст. */
+    private static boolean sameNode(WebElement el, Element node) {
+        String bounds = node.getAttribute("bounds");
+        if (!bounds.isEmpty() && !bounds.equals(el.getAttribute("bounds"))) return false;
+        return node.getAttribute("text").equals(String.valueOf(el.getText()));
+    }
+
+    /** Абсолютный путь {@code /hierarchy/*[1]/*[3]…[@bounds='…']}: устройство проходит только по нему. */
+    private static String path(Element e) {
+        List<String> steps = new ArrayList<>();
+        for (Node n = e; n instanceof Element el; n = n.getParentNode()) {
+            if (el.getParentNode() instanceof Document) {
+                steps.add(el.getTagName());
+                break;
+            }
+            int position = 1;
+            for (Node s = el.getPreviousSibling(); s != null; s = s.getPreviousSibling()) {
+                if (s instanceof Element) position++;
+            }
+            steps.add("*[" + position + "]");
+        }
+        Collections.reverse(steps);
+        String bounds = e.getAttribute("bounds");
+        return "/" + String.join("/", steps) + (bounds.isEmpty() ? "" : "[@bounds='" + bounds + "']");
+    }
+
+    private static Index index(Document doc) {
+        return INDEXES.computeIfAbsent(doc, d -> {
+            Map<String, List<Element>> byId = new HashMap<>();
+            Map<String, Integer> descCount = new HashMap<>();
+            NodeList all = d.getElementsByTagName("*");
+            for (int i = 0; i < all.getLength(); i++) {
+                Element e = (Element) all.item(i);
+                String id = e.getAttribute("resource-id");
+                if (!id.isEmpty()) byId.computeIfAbsent(id, k -> new ArrayList<>()).add(e);
+                String desc = e.getAttribute("content-desc");
+                if (!desc.isEmpty()) descCount.merge(desc, 1, Integer::sum);
+            }
+            return new Index(byId, descCount);
+        });
+    }
+}
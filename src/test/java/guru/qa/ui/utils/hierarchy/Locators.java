@@ -0,0 +1,113 @@
+package guru.qa.ui.utils.hierarchy;
+
+import guru.qa.ui.reporting.RunReports;
+import io.appium.java_client.AppiumBy;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.By;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Реестр XPath-локаторов: один {@link By} на шаблон и аргументы, тривиальные XPath — в id / accessibilityId.
+ *
+ * <p><b>Зачем:</b> параметризованные локаторы ({@code headerBy(titles)}, строки языков, статья в списке чтения)
+ * собирались конкатенацией и заново на каждом вызове; {@code //*[@resource-id='…']} уходил на устройство как XPath
+ * по всему дереву, хотя это поиск по id.</p>
+ *
+ * <p><b>Правила:</b></p>
+ * <ul>
+ *   <li>шаблон — {@link String#format} с {@code %s}; аргументы подставляются как есть (пользовательские строки —
+ *       только через {@link #literal}, не внутри регулярных выражений {@code matches}); готовый {@code By} кешируется
+ *       по (шаблон, аргументы), не больше {@code ui.locators.max} (по умолчанию 512) записей — дальше локаторы
+ *       собираются без кеша;</li>
+ *   <li>{@code //*[@resource-id='…']} → {@link AppiumBy#id}, {@code //*[@content-desc='…']} → {@link AppiumBy#accessibilityId};</li>
+ *   <li>относительный XPath ({@code .//…}, для вложенного поиска) — {@link AppiumBy#xpath};</li>
+ *   <li>остальное — XPath по всему дереву: {@link LocalBy} (вычисляется по снимку иерархии), раз за прогон
+ *       на шаблон — предупреждение {@code [Locators]} в логе (WARN).</li>
+ * </ul>
+ *
+ * <p>Сводка (сколько локаторов, какие переписаны, какие шаблоны остались XPath) — в
+ * {@code build/reports/run/<run.id>/locators-<pid>.json}.</p>
+ */
+@Slf4j
+@UtilityClass
+public class Locators {
+
+    private static final Pattern BY_ID = Pattern.compile("^//\\*\\[@resource-id=(['\"])([^'\"]+)\\1]$");
+    private static final Pattern BY_DESC = Pattern.compile("^//\\*\\[@content-desc=(['\"])([^'\"]+)\\1]$");
+
+    /** Предел кеша: аргументы (заголовки статей, языки) зависят от данных теста. */
+    private static final int MAX_INTERNED = Integer.getInteger("ui.locators.max", 512);
+
+    private static final Map<Key, By> INTERNED = new ConcurrentHashMap<>();
+    private static final Set<String> REWRITTEN = ConcurrentHashMap.newKeySet();
+    private static final Set<String> FULL_TREE = ConcurrentHashMap.newKeySet();
+
+    static {
+        RunReports.register("locators", () -> Map.of(
+                "interned", INTERNED.size(),
+                "rewritten", new TreeSet<>(REWRITTEN),
+                "fullTreeXPath", new TreeSet<>(FULL_TREE)));
+    }
+
+    private record Key(String template, List<Object> args) {
+    }
+
+    /**
+     * Локатор по XPath-шаблону (из кеша, если такой уже собирался).
+     *
+     * @param template XPath с {@code %s}
+     * @param args     значения для {@code %s} (подставляются как есть)
+     * @return {@code id} / {@code accessibilityId} для тривиальных выражений, иначе XPath-локатор
+     */
+    public By xpath(String template, Object... args) {
+        Key key = new Key(template, Arrays.asList(args));
+        By cached = INTERNED.get(key);
+        if (cached != null) return cached;
+        if (INTERNED.size() >= MAX_INTERNED) return compile(template, args);
+        return INTERNED.computeIfAbsent(key, k -> compile(template, args));
+    }
+
+    /**
+     * Строковый литерал XPath 1.0 ({@code 'a'}, или {@code concat(…)}, если в строке есть апостроф).
+     *
+     * @param s значение
+     * @return литерал
+     */
+    public String literal(String s) {
+        if (s == null) return "''";
+        if (!s.contains("'")) return "'" + s + "'";
+        if (!s.contains("\"")) return "\"" + s + "\"";
+        return "concat('" + s.replace("'", "',\"'\",'") + "')";
+    }
+
+    /* ===== internals ===== */
+
+    private static By compile(String template, Object... args) {
+        String xpath = args.length == 0 ? template : String.format(template, args);
+
+        Matcher id = BY_ID.matcher(xpath);
+        if (id.matches()) return rewritten(template, AppiumBy.id(id.group(2)));
+        Matcher desc = BY_DESC.matcher(xpath);
+        if (desc.matches()) return rewritten(template, AppiumBy.accessibilityId(desc.group(2)));
+
+        if (xpath.startsWith(".")) return AppiumBy.xpath(xpath);
+        if (FULL_TREE.add(template)) {
+            log.warn("[Locators] XPath по всему дереву (вычисляется по снимку иерархии): {}", template);
+        }
+        return LocalBy.xpath(xpath);
+    }
+
+    private static By rewritten(String template, By by) {
+        if (REWRITTEN.add(template)) log.debug("[Locators] {} → {}", template, by);
+        return by;
+    }
+}
@@ -0,0 +1,68 @@
+package guru.qa.ui.utils.hierarchy;
+
+import io.appium.java_client.AppiumBy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.By;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Литералы XPath и реестр локаторов {@link Locators} (без устройства).
+ */
+@Tag("unit")
+@DisplayName("Locators: литералы и реестр локаторов")
+class LocatorsTest {
+
+    private static final String TEMPLATE = "//android.widget.TextView[@text=%s]";
+
+    @Test
+    @DisplayName("literal: апострофы, кавычки и оба вида сразу")
+    void quotesLiterals() {
+        assertThat(Locators.literal("Sweden")).isEqualTo("'Sweden'");
+        assertThat(Locators.literal("Côte d'Ivoire")).isEqualTo("\"Côte d'Ivoire\"");
+        assertThat(Locators.literal("a'b\"c")).isEqualTo("concat('a',\"'\",'b\"c')");
+        assertThat(Locators.literal(null)).isEqualTo("''");
+    }
+
+    @Test
+    @DisplayName("literal: выражение находит узел с тем же текстом")
+    void literalMatchesNodeText() throws Exception {
+        Document doc = HierarchyXPathTest.parse("""
+                <hierarchy>
+                  <android.widget.TextView text="It's a &quot;quote&quot;"/>
+                </hierarchy>
+                """);
+        String value = "It's a \"quote\"";
+
+        Element found = (Element) HierarchyXPath.first(doc, "//*[@text=" + Locators.literal(value) + "]");
+
+        assertThat(found).isNotNull();
+        assertThat(found.getAttribute("text")).isEqualTo(value);
+    }
+
+    @Test
+    @DisplayName("xpath: один By на шаблон и аргументы")
+    void internsByTemplateAndArgs() {
+        By first = Locators.xpath(TEMPLATE, Locators.literal("Sweden"));
+
+        assertThat(Locators.xpath(TEMPLATE, Locators.literal("Sweden"))).isSameAs(first);
+        assertThat(Locators.xpath(TEMPLATE, Locators.literal("Norway"))).isNotSameAs(first);
+        assertThat(first).isInstanceOf(LocalBy.class);
+        assertThat(first).hasToString(By.xpath("//android.widget.TextView[@text='Sweden']").toString());
+    }
+
+    @Test
+    @DisplayName("xpath: тривиальные выражения → id / accessibilityId, относительные — XPath устройства")
+    void rewritesTrivialXPath() {
+        assertThat(Locators.xpath("//*[@resource-id='org.wikipedia.alpha:id/search_container']"))
+                .isEqualTo(AppiumBy.id("org.wikipedia.alpha:id/search_container"));
+        assertThat(Locators.xpath("//*[@content-desc=%s]", Locators.literal("Navigate up")))
+                .isEqualTo(AppiumBy.accessibilityId("Navigate up"));
+        assertThat(Locators.xpath(".//android.widget.TextView[1]"))
+                .isEqualTo(AppiumBy.xpath(".//android.widget.TextView[1]"));
+    }
+}
@@ -0,0 +1,160 @@
+package guru.qa.ui.utils.hierarchy;
+
+import com.codeborne.selenide.Configuration;
+import com.codeborne.selenide.Selenide;
+import guru.qa.ui.reporting.WaitAttribution;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.Rectangle;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.xpath.XPathExpressionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Неизменяемые снимки состояния экрана для пакетных чтений и групп проверок.
+ *
+ * <p><b>Зачем:</b> {@code texts()} коллекции стоит по {@code getText} на элемент, а блок проверок слайда —
+ * по ожиданию Selenide на каждое свойство. Page object описывает своё состояние record-ом (тексты, флаги, bounds)
+ * и функцией чтения из одного page source; все проверки блока идут по этому record-у.</p>
+ *
+ * <p><b>Повтор:</b> если проверка падает ({@link AssertionError}), снимок снимается заново и весь блок проверяется
+ * снова — до {@link Configuration#timeout}. После таймаута летит последняя ошибка с состоянием экрана в сообщении.</p>
+ *
+ * <pre>{@code
+ * Slide slide = ScreenSnapshot.verify("слайд 2", this::slide, s -> {
+ *     assertStep(s, 2);
+ *     assertTitle(s, S2_TITLE);
+ * });
+ * }</pre>
+ */
+@Slf4j
+@UtilityClass
+public class ScreenSnapshot {
+
+    /**
+     * Узел снимка: всё, что проверяют page object-ы, одним чтением атрибутов.
+     *
+     * @param present     узел есть в снимке
+     * @param text        {@code text} (пусто, если нет)
+     * @param contentDesc {@code content-desc}
+     * @param displayed   узел виден
+     * @param enabled     {@code enabled="true"}
+     * @param clickable   {@code clickable="true"}
+     * @param focusable   {@code focusable="true"}
+     * @param selected    {@code selected="true"}
+     * @param bounds      границы на экране (нулевые, если узла нет)
+     */
+    public record UiNode(boolean present, String text, String contentDesc, boolean displayed, boolean enabled,
+                       boolean clickable, boolean focusable, boolean selected, Rectangle bounds) {
+
+        /** Узла нет в снимке. */
+        public static final UiNode ABSENT = new UiNode(false, "", "", false, false, false, false, false, new Rectangle(0, 0, 0, 0));
+
+        /** Узел виден и имеет ненулевой размер (как {@code Condition.visible}). */
+        public boolean visible() {
+            return present && displayed && bounds.getWidth() > 0 && bounds.getHeight() > 0;
+        }
+
+        static UiNode of(Element e) {
+            return new UiNode(true,
+                    e.getAttribute("text"),
+                    e.getAttribute("content-desc"),
+                    !"false".equals(e.getAttribute("displayed")),
+                    "true".equals(e.getAttribute("enabled")),
+                    "true".equals(e.getAttribute("clickable")),
+                    "true".equals(e.getAttribute("focusable")),
+                    "true".equals(e.getAttribute("selected")),
+                    HierarchySnapshot.bounds(e));
+        }
+    }
+
+    /**
+     * Проверить блок утверждений по одному снимку; при падении — новый снимок и повтор до {@link Configuration#timeout}.
+     *
+     * @param name       что проверяем (для лога и сообщения)
+     * @param capture    чтение состояния из page source
+     * @param assertions проверки (бросают {@link AssertionError})
+     * @return состояние, на котором проверки прошли
+     */
+    public <S> S verify(String name, Function<Document, S> capture, Consumer<S> assertions) {
+        return verify(name, capture, assertions, Duration.ofMillis(Configuration.timeout));
+    }
+
+    /**
+     * Проверить блок утверждений по одному снимку; при падении — новый снимок и повтор до таймаута.
+     *
+     * @param name       что проверяем (для лога и сообщения)
+     * @param capture    чтение состояния из page source
+     * @param assertions проверки (бросают {@link AssertionError})
+     * @param timeout    сколько ждать, пока проверки пройдут
+     * @return состояние, на котором проверки прошли
+     * @throws AssertionError проверки не прошли за таймаут (с последним состоянием в сообщении)
+     */
+    public <S> S verify(String name, Function<Document, S> capture, Consumer<S> assertions, Duration timeout) {
+        long started = System.nanoTime();
+        long deadline = started + timeout.toNanos();
+        Document doc = HierarchySnapshot.document();
+        int snapshots = 1;
+        while (true) {
+            S state = capture.apply(doc);
+            try {
+                assertions.accept(state);
+                WaitAttribution.record(name, "snapshot verify", (System.nanoTime() - started) / 1_000_000, snapshots, false);
+                log.debug("[Snapshot] {}: проверки прошли ({} снимк(ов), {} мс)",
+                        name, snapshots, (System.nanoTime() - started) / 1_000_000);
+                return state;
+            } catch (AssertionError e) {
+                if (System.nanoTime() >= deadline) {
+                    WaitAttribution.record(name, "snapshot verify", (System.nanoTime() - started) / 1_000_000, snapshots, true);
+                    throw new AssertionError(name + ": " + e.getMessage()
+                            + " (" + snapshots + " снимк(ов) за " + timeout.toMillis() + " мс; состояние: " + state + ")", e);
+                }
+            }
+            Selenide.sleep(Configuration.pollingInterval);
+            doc = HierarchySnapshot.refresh();
+            snapshots++;
+        }
+    }
+
+    /**
+     * Первый узел с {@code resource-id}.
+     *
+     * @param doc        снимок
+     * @param resourceId полный resource-id
+     * @return узел или {@link UiNode#ABSENT}
+     */
+    public UiNode node(Document doc, String resourceId) {
+        List<UiNode> found = nodes(doc, "//*[@resource-id='" + resourceId + "']");
+        return found.isEmpty() ? UiNode.ABSENT : found.get(0);
+    }
+
+    /**
+     * Все узлы по XPath (в порядке документа).
+     *
+     * @param doc   снимок
+     * @param xpath выражение ({@link HierarchyXPath})
+     * @return узлы
+     * @throws IllegalStateException выражение не вычисляется по снимку
+     */
+    public List<UiNode> nodes(Document doc, String xpath) {
+        try {
+            NodeList list = HierarchyXPath.all(doc, xpath);
+            List<UiNode> out = new ArrayList<>(list.getLength());
+            for (int i = 0; i < list.getLength(); i++) {
+                Node n = list.item(i);
+                if (n instanceof Element e) out.add(UiNode.of(e));
+            }
+            return out;
+        } catch (XPathExpressionException e) {
+            throw new IllegalStateException("XPath не вычисляется по снимку иерархии: " + xpath, e);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package guru.qa.ui.utils.hierarchy;
+
+import com.codeborne.selenide.Selenide;
+import guru.qa.ui.reporting.GestureTelemetry;
+import guru.qa.ui.reporting.WaitAttribution;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.NodeList;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.CRC32;
+
+/**
+ * «UI успокоился»: ожидание по хешу иерархии вместо фиксированных {@code is(appear, 5s)}.
+ *
+ * <p><b>Как работает:</b> снимки иерархии ({@link HierarchySnapshot#refresh()}) идут подряд с интервалом не меньше
+ * {@code ui.settle.intervalMs} (по умолчанию 100 мс); от каждого считается CRC32 по классам, атрибутам и bounds всех
+ * узлов. Два одинаковых хеша подряд — экран устоялся (анимации/переходы закончились), ожидание сразу завершается.
+ * Пока на экране виден {@code ProgressBar}, экран не считается устоявшимся (индикатор загрузки не меняет атрибуты).
+ * Предел — {@code ui.settle.timeoutMs} (по умолчанию 3 с): после него возвращается последний снимок.</p>
+ *
+ * <p>Длительность ожидания пишется в лог ({@code [Settle]}) и в UI-гистограммы {@link GestureTelemetry}
+ * (категория не-жестов, тип {@code settle}).</p>
+ *
+ * <pre>{@code
+ * UiSettle.Result settled = UiSettle.await();
+ * if (Clickability.in(settled.document(), overlay).filter(Clickability::displayed).isPresent()) { ... }
+ * }</pre>
+ */
+@Slf4j
+@UtilityClass
+public class UiSettle {
+
+    /** Минимальный интервал между снимками, мс. */
+    private static final long INTERVAL_MS = Long.getLong("ui.settle.intervalMs", 100);
+
+    /** Предел ожидания по умолчанию, мс. */
+    private static final long TIMEOUT_MS = Long.getLong("ui.settle.timeoutMs", 3000);
+
+    private static final String PROGRESS_BAR = "android.widget.ProgressBar";
+
+    /**
+     * Итог ожидания.
+     *
+     * @param document  последний снимок (устоявшийся, если {@code settled})
+     * @param settled   два снимка подряд совпали до предела
+     * @param samples   снято снимков
+     * @param millis    сколько длилось ожидание
+     */
+    public record Result(Document document, boolean settled, int samples, long millis) {
+    }
+
+    /**
+     * Дождаться устоявшегося экрана (предел — {@code ui.settle.timeoutMs}).
+     *
+     * @return последний снимок и статистика
+     */
+    public Result await() {
+        return await(Duration.ofMillis(TIMEOUT_MS));
+    }
+
+    /**
+     * Дождаться устоявшегося экрана.
+     *
+     * @param max предел ожидания
+     * @return последний снимок и статистика
+     */
+    public Result await(Duration max) {
+        long started = System.nanoTime();
+        long deadline = started + max.toNanos();
+        long sampledAt = System.nanoTime();
+        Document doc = HierarchySnapshot.refresh();
+        long previous = hash(doc);
+        int samples = 1;
+        boolean settled = false;
+        while (System.nanoTime() < deadline) {
+            // интервал между началами снимков: два снимка подряд без паузы совпали бы до старта анимации
+            long waitMs = INTERVAL_MS - (System.nanoTime() - sampledAt) / 1_000_000;
+            if (waitMs > 0) Selenide.sleep(waitMs);
+            sampledAt = System.nanoTime();
+            doc = HierarchySnapshot.refresh();
+            samples++;
+            long current = hash(doc);
+            if (current == previous && !loading(doc)) {
+                settled = true;
+                break;
+            }
+            previous = current;
+        }
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        GestureTelemetry.recordUi("settle", millis);
+        WaitAttribution.record("screen", "settle", millis, samples, !settled);
+        if (settled) {
+            log.debug("[Settle] экран устоялся за {} мс ({} снимк(ов))", millis, samples);
+        } else {
+            log.debug("[Settle] экран не устоялся за {} мс ({} снимк(ов)) — продолжаем с последним снимком", millis, samples);
+        }
+        return new Result(doc, settled, samples, millis);
+    }
+
+    /**
+     * На экране виден индикатор загрузки: {@code ProgressBar} с ненулевой высотой и без {@code displayed="false"}.
+     *
+     * @param doc снимок иерархии
+     * @return индикатор виден
+     */
+    public boolean loading(Document doc) {
+        NodeList bars = doc.getElementsByTagName(PROGRESS_BAR);
+        for (int i = 0; i < bars.getLength(); i++) {
+            Element e = (Element) bars.item(i);
+            if (!"false".equals(e.getAttribute("displayed")) && HierarchySnapshot.bounds(e).getHeight() > 0) return true;
+        }
+        return false;
+    }
+
+    /* ===== internals ===== */
+
+    /** CRC32 по тегам и всем атрибутам узлов в порядке документа. */
+    private static long hash(Document doc) {
+        CRC32 crc = new CRC32();
+        NodeList all = doc.getElementsByTagName("*");
+        for (int i = 0; i < all.getLength(); i++) {
+            Element e = (Element) all.item(i);
+            crc.update(e.getTagName().getBytes(StandardCharsets.UTF_8));
+            NamedNodeMap attrs = e.getAttributes();
+            for (int a = 0; a < attrs.getLength(); a++) {
+                crc.update(attrs.item(a).getNodeName().getBytes(StandardCharsets.UTF_8));
+                crc.update(attrs.item(a).getNodeValue().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return crc.getValue();
+    }
+}